@@ -0,0 +1,53 @@
+package com.llw.wifi;
+
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * 系统密钥库中的 AES 密钥，供 {@link CredentialVault} 使用
+ * <p>
+ * 密钥不能导出，只能在密钥库中加解密；卸载应用后被清除。
+ */
+public class AndroidKeystoreKeyProvider implements CredentialVault.KeyProvider {
+
+    private static final String KEY_STORE = "AndroidKeyStore";
+
+    private final String alias;//密钥别名
+
+    private SecretKey key;//第一次使用时读取或创建
+
+    public AndroidKeystoreKeyProvider(String alias) {
+        this.alias = alias;
+    }
+
+    @Override
+    public synchronized SecretKey getKey() throws GeneralSecurityException, IOException {
+        if (key != null) {
+            return key;
+        }
+        KeyStore keyStore = KeyStore.getInstance(KEY_STORE);
+        keyStore.load(null);
+        KeyStore.Entry entry = keyStore.getEntry(alias, null);
+        if (entry instanceof KeyStore.SecretKeyEntry) {
+            key = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+            return key;
+        }
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEY_STORE);
+        //IV由 CredentialVault 随机生成
+        generator.init(new KeyGenParameterSpec.Builder(alias, KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setRandomizedEncryptionRequired(false)
+                .setKeySize(256)
+                .build());
+        key = generator.generateKey();
+        return key;
+    }
+}
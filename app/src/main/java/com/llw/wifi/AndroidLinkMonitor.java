@@ -0,0 +1,135 @@
+package com.llw.wifi;
+
+import android.annotation.SuppressLint;
+import android.net.ConnectivityManager;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 监听已连接网络的能力和链路属性变化，采样写入 {@link LinkQualityMonitor}
+ * <p>
+ * 同一时间只监听一个网络，开始监听新的网络时清空之前的采样。
+ * 链路属性变化（地址或路由变化）时使用上一次的能力值再采样一次，网络断开时记录一次断开事件。
+ */
+public class AndroidLinkMonitor {
+
+    private static final String TAG = AndroidLinkMonitor.class.getSimpleName();
+
+    private final ConnectivityManager connectivityManager;//连接管理者
+
+    private final LinkQualityMonitor monitor;
+
+    private Callback callback;//当前的监听
+
+    public AndroidLinkMonitor(ConnectivityManager connectivityManager, LinkQualityMonitor monitor) {
+        this.connectivityManager = connectivityManager;
+        this.monitor = monitor;
+    }
+
+    /**
+     * 开始监听网络，已在监听该网络时不做处理
+     */
+    public synchronized void start(Network network) {
+        if (callback != null && callback.network.equals(network)) {
+            return;
+        }
+        stop();
+        monitor.reset();
+        //通过 WifiNetworkSpecifier 连接的网络没有互联网能力
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        callback = new Callback(network);
+        try {
+            connectivityManager.registerNetworkCallback(request, callback);
+        } catch (RuntimeException e) {
+            //回调数量超过上限等情况
+            Log.e(TAG, "start: " + e.getMessage());
+            callback = null;
+        }
+    }
+
+    public synchronized void stop() {
+        if (callback == null) {
+            return;
+        }
+        try {
+            connectivityManager.unregisterNetworkCallback(callback);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "stop: " + e.getMessage());
+        }
+        callback = null;
+    }
+
+    public LinkQualityMonitor getMonitor() {
+        return monitor;
+    }
+
+    @SuppressLint("NewApi")
+    private static int rssiOf(NetworkCapabilities capabilities) {
+        //Android 10 以下没有信号强度
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ? capabilities.getSignalStrength() : LinkQualityMonitor.UNKNOWN_RSSI;
+    }
+
+    /**
+     * 只处理监听的网络，上一次的能力值保存为基本类型
+     */
+    private final class Callback extends ConnectivityManager.NetworkCallback {
+
+        final Network network;
+
+        int downstreamKbps;
+
+        int upstreamKbps;
+
+        int rssi = LinkQualityMonitor.UNKNOWN_RSSI;
+
+        boolean validated;
+
+        Callback(Network network) {
+            this.network = network;
+        }
+
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+            super.onCapabilitiesChanged(network, networkCapabilities);
+            if (!this.network.equals(network)) {
+                return;
+            }
+            downstreamKbps = networkCapabilities.getLinkDownstreamBandwidthKbps();
+            upstreamKbps = networkCapabilities.getLinkUpstreamBandwidthKbps();
+            rssi = rssiOf(networkCapabilities);
+            validated = networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+            sample();
+        }
+
+        @Override
+        public void onLinkPropertiesChanged(@NonNull Network network, @NonNull LinkProperties linkProperties) {
+            super.onLinkPropertiesChanged(network, linkProperties);
+            if (this.network.equals(network)) {
+                sample();
+            }
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            super.onLost(network);
+            //通过 WifiNetworkSpecifier 连接的网络从未验证，不能依靠验证状态判断断开
+            if (this.network.equals(network)) {
+                monitor.recordLost(SystemClock.elapsedRealtime());
+            }
+        }
+
+        void sample() {
+            monitor.record(SystemClock.elapsedRealtime(), downstreamKbps, upstreamKbps, rssi, validated);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.llw.wifi;
+
+import android.annotation.SuppressLint;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.wifi.WifiNetworkSpecifier;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.SocketFactory;
+
+/**
+ * 通过 WifiNetworkSpecifier 连接候选网络，供 {@link ProbeEngine} 探测使用
+ * <p>
+ * 探测请求和用户点击的连接互不影响，关闭连接时注销回调，系统随后释放该网络。
+ * 测速的域名解析和连接都绑定在探测的网络上，不会走当前的默认网络。
+ */
+public class AndroidProbeConnector implements ProbeEngine.Connector {
+
+    /**
+     * 连接成功后等待系统验证互联网访问的时间 毫秒，只在网络声明可以访问互联网时等待
+     */
+    static final long VALIDATION_WAIT_MILLIS = 3_000;
+
+    private final ConnectivityManager connectivityManager;//连接管理者
+
+    public AndroidProbeConnector(ConnectivityManager connectivityManager) {
+        this.connectivityManager = connectivityManager;
+    }
+
+    @SuppressLint("NewApi")
+    @Override
+    public ProbeEngine.Link connect(WifiCredential credential, long timeoutMillis) throws IOException, InterruptedException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            throw new IOException("探测需要Android 10及以上版本");
+        }
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .setNetworkSpecifier(createSpecifier(credential))
+                .build();
+        ProbeLink link = new ProbeLink();
+        try {
+            connectivityManager.requestNetwork(request, link, (int) Math.min(Integer.MAX_VALUE, timeoutMillis));
+        } catch (RuntimeException e) {
+            //回调数量超过上限等情况
+            throw new IOException(e);
+        }
+        try {
+            if (!link.available.await(timeoutMillis, TimeUnit.MILLISECONDS) || link.network == null) {
+                throw new IOException("连接失败或超时");
+            }
+            //能否访问互联网只作为排序依据，不作为连接条件。
+            //指定网络请求连上的通常是本地网络，没有 NET_CAPABILITY_INTERNET，系统不会验证，不用等待
+            NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(link.network);
+            if (capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+                if (capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)) {
+                    link.validated = true;
+                } else {
+                    link.validatedLatch.await(VALIDATION_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            return link;
+        } catch (IOException | InterruptedException e) {
+            link.close();
+            throw e;
+        }
+    }
+
+    @SuppressLint("NewApi")
+    static WifiNetworkSpecifier createSpecifier(WifiCredential credential) throws IOException {
+        WifiNetworkSpecifier.Builder builder = new WifiNetworkSpecifier.Builder().setSsid(credential.getSsid());
+        switch (credential.getSecurity()) {
+            case OPEN:
+                break;
+            case OWE:
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) {
+                    throw new IOException("增强型开放网络需要Android 12及以上版本");
+                }
+                builder.setIsEnhancedOpen(true);
+                break;
+            case PSK:
+                builder.setWpa2Passphrase(credential.getPassphrase());
+                break;
+            case SAE:
+                builder.setWpa3Passphrase(credential.getPassphrase());
+                break;
+            default:
+                throw new IOException("不支持的加密方式 " + credential.getSecurity());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 探测中的网络
+     */
+    private final class ProbeLink extends ConnectivityManager.NetworkCallback implements ProbeEngine.Link {
+
+        final CountDownLatch available = new CountDownLatch(1);
+
+        final CountDownLatch validatedLatch = new CountDownLatch(1);
+
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        volatile Network network;
+
+        volatile boolean validated;
+
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            super.onAvailable(network);
+            this.network = network;
+            available.countDown();
+        }
+
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+            super.onCapabilitiesChanged(network, networkCapabilities);
+            if (networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)) {
+                validated = true;
+                validatedLatch.countDown();
+            }
+        }
+
+        @Override
+        public void onUnavailable() {
+            super.onUnavailable();
+            //连接失败或超时
+            available.countDown();
+        }
+
+        @Override
+        public SocketFactory getSocketFactory() {
+            return network.getSocketFactory();
+        }
+
+        @Override
+        public InetAddress[] lookup(String host) throws UnknownHostException {
+            return network.getAllByName(host);
+        }
+
+        @Override
+        public boolean isValidated() {
+            return validated;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                connectivityManager.unregisterNetworkCallback(this);
+            } catch (IllegalArgumentException ignored) {
+                //回调没有注册成功
+            }
+        }
+    }
+}
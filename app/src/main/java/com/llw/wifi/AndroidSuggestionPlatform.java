@@ -0,0 +1,103 @@
+package com.llw.wifi;
+
+import android.annotation.SuppressLint;
+import android.net.wifi.WifiManager;
+import android.net.wifi.WifiNetworkSuggestion;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 通过 WifiManager 提交建议网络，供 {@link SuggestionBatcher} 使用
+ */
+@SuppressLint("NewApi")
+public class AndroidSuggestionPlatform implements SuggestionBatcher.Platform {
+
+    private final WifiManager wifiManager;//Wifi管理者
+
+    public AndroidSuggestionPlatform(WifiManager wifiManager) {
+        this.wifiManager = wifiManager;
+    }
+
+    @Override
+    public int getMaxSuggestions() {
+        return wifiManager.getMaxNumberOfNetworkSuggestionsPerApp();
+    }
+
+    @Override
+    public int add(List<WifiCredential> credentials) {
+        return wifiManager.addNetworkSuggestions(toSuggestions(credentials));
+    }
+
+    @Override
+    public int remove(List<WifiCredential> credentials) {
+        return wifiManager.removeNetworkSuggestions(toSuggestions(credentials));
+    }
+
+    /**
+     * 读取系统中本应用已提交的建议网络，Android 11 以下返回空列表
+     * <p>
+     * 系统没有提供加密方式，有密码的按 WPA2 处理。
+     */
+    public List<WifiCredential> getSuggested() {
+        List<WifiCredential> credentials = new ArrayList<>();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return credentials;
+        }
+        for (WifiNetworkSuggestion suggestion : wifiManager.getNetworkSuggestions()) {
+            String ssid = suggestion.getSsid();
+            if (ssid == null) {
+                continue;
+            }
+            ssid = ConfiguredNetworkIndex.normalize(ssid);
+            String passphrase = suggestion.getPassphrase();
+            WifiSecurity security;
+            if (passphrase != null) {
+                security = WifiSecurity.PSK;
+            } else if (suggestion.isEnhancedOpen()) {
+                security = WifiSecurity.OWE;
+            } else if (suggestion.getEnterpriseConfig() == null) {
+                security = WifiSecurity.OPEN;
+            } else {
+                continue;
+            }
+            credentials.add(new WifiCredential(ssid, security, passphrase));
+        }
+        return credentials;
+    }
+
+    private static List<WifiNetworkSuggestion> toSuggestions(List<WifiCredential> credentials) {
+        List<WifiNetworkSuggestion> suggestions = new ArrayList<>(credentials.size());
+        for (WifiCredential credential : credentials) {
+            suggestions.add(toSuggestion(credential, false));
+        }
+        return suggestions;
+    }
+
+    /**
+     * 创建建议网络
+     *
+     * @param credential             凭据
+     * @param appInteractionRequired 连接后是否需要应用处理，为true时系统发送连接广播
+     */
+    static WifiNetworkSuggestion toSuggestion(WifiCredential credential, boolean appInteractionRequired) {
+        WifiNetworkSuggestion.Builder builder = new WifiNetworkSuggestion.Builder()
+                .setSsid(credential.getSsid())
+                .setIsAppInteractionRequired(appInteractionRequired);
+        switch (credential.getSecurity()) {
+            case OWE:
+                builder.setIsEnhancedOpen(true);
+                break;
+            case PSK:
+                builder.setWpa2Passphrase(credential.getPassphrase());
+                break;
+            case SAE:
+                builder.setWpa3Passphrase(credential.getPassphrase());
+                break;
+            default:
+                break;
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,236 @@
+package com.llw.wifi;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.wifi.WifiConfiguration;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+/**
+ * 通过 WifiManager 和 ConnectivityManager 实现的Wifi系统接口
+ */
+public class AndroidWifiBackend implements WifiBackend {
+
+    private static final String TAG = AndroidWifiBackend.class.getSimpleName();
+
+    private final Context context;
+
+    private final WifiManager wifiManager;//Wifi管理者
+
+    private final ConnectivityManager connectivityManager;//连接管理者
+
+    private final WifiScanSource scanSource;
+
+    private final AndroidSuggestionPlatform suggestionPlatform;
+
+    private ScanListener scanListener;
+
+    /**
+     * Wifi扫描广播接收器
+     */
+    private final BroadcastReceiver scanReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            ScanListener listener = scanListener;
+            if (listener != null) {
+                listener.onScanResults(intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, false));
+            }
+        }
+    };
+
+    public AndroidWifiBackend(Context context, WifiManager wifiManager, ConnectivityManager connectivityManager) {
+        this.context = context.getApplicationContext();
+        this.wifiManager = wifiManager;
+        this.connectivityManager = connectivityManager;
+        scanSource = new WifiScanSource(wifiManager);
+        suggestionPlatform = new AndroidSuggestionPlatform(wifiManager);
+    }
+
+    /**
+     * 请求对应的系统网络，连接前或其他实现的请求返回null
+     */
+    public static Network getNetwork(Request request) {
+        return request instanceof NetworkHandle ? ((NetworkHandle) request).network : null;
+    }
+
+    @Override
+    public boolean isWifiEnabled() {
+        return wifiManager.getWifiState() == WifiManager.WIFI_STATE_ENABLED;
+    }
+
+    /**
+     * 设置监听时注册扫描广播，设置为null时注销
+     */
+    @Override
+    public synchronized void setScanListener(ScanListener listener) {
+        if (scanListener == null && listener != null) {
+            context.registerReceiver(scanReceiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        } else if (scanListener != null && listener == null) {
+            context.unregisterReceiver(scanReceiver);
+        }
+        scanListener = listener;
+    }
+
+    @Override
+    public boolean startScan() {
+        return wifiManager.startScan();
+    }
+
+    @Override
+    public List<WifiScanEntry> getScanResults() {
+        return scanSource.getScanResults();
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public List<String> getConfiguredNetworks() {
+        List<WifiConfiguration> configurations;
+        try {
+            configurations = wifiManager.getConfiguredNetworks();
+        } catch (SecurityException e) {
+            return Collections.emptyList();
+        }
+        List<String> ssids = new ArrayList<>();
+        if (configurations != null) {
+            for (WifiConfiguration configuration : configurations) {
+                if (configuration.SSID != null) {
+                    ssids.add(ConfiguredNetworkIndex.normalize(configuration.SSID));
+                }
+            }
+        }
+        return ssids;
+    }
+
+    /**
+     * 通过 WifiNetworkSpecifier 请求连接，需要Android 10及以上版本；系统拒绝请求时抛出 IllegalStateException
+     */
+    @SuppressLint("NewApi")
+    @Override
+    public Request requestNetwork(WifiCredential credential, long timeoutMillis, RequestCallback callback) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            throw new UnsupportedOperationException("请求连接需要Android 10及以上版本");
+        }
+        NetworkRequest request;
+        try {
+            request = new NetworkRequest.Builder()
+                    .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                    .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_RESTRICTED)
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_TRUSTED)
+                    .setNetworkSpecifier(AndroidProbeConnector.createSpecifier(credential))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        NetworkHandle handle = new NetworkHandle(callback);
+        connectivityManager.requestNetwork(request, handle, (int) Math.min(Integer.MAX_VALUE, timeoutMillis));
+        return handle;
+    }
+
+    @Override
+    public SuggestionBatcher.Platform getSuggestionPlatform() {
+        return suggestionPlatform;
+    }
+
+    @Override
+    public List<WifiCredential> getSuggestedNetworks() {
+        return suggestionPlatform.getSuggested();
+    }
+
+    /**
+     * 系统网络请求，释放时注销回调
+     */
+    private final class NetworkHandle extends ConnectivityManager.NetworkCallback implements Request {
+
+        final RequestCallback callback;
+
+        volatile Network network;
+
+        volatile boolean released;
+
+        NetworkHandle(RequestCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            super.onAvailable(network);
+            this.network = network;
+            if (!released) {
+                callback.onAvailable(this);
+            }
+        }
+
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+            super.onCapabilitiesChanged(network, networkCapabilities);
+            if (!released) {
+                callback.onCapabilitiesChanged(this, networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED));
+            }
+        }
+
+        @Override
+        public void onUnavailable() {
+            super.onUnavailable();
+            if (!released) {
+                callback.onUnavailable(this);
+            }
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            super.onLost(network);
+            if (!released) {
+                callback.onLost(this);
+            }
+        }
+
+        /**
+         * 连接前没有网络，使用默认网络
+         */
+        @Override
+        public SocketFactory getSocketFactory() {
+            Network network = this.network;
+            return network == null ? Request.super.getSocketFactory() : network.getSocketFactory();
+        }
+
+        @Override
+        public InetAddress[] lookup(String host) throws UnknownHostException {
+            Network network = this.network;
+            return network == null ? Request.super.lookup(host) : network.getAllByName(host);
+        }
+
+        @Override
+        public synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                connectivityManager.unregisterNetworkCallback(this);
+            } catch (IllegalArgumentException e) {
+                //回调没有注册成功
+                Log.w(TAG, "release: " + e.getMessage());
+            }
+        }
+    }
+}
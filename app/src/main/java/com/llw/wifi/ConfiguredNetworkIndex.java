@@ -0,0 +1,136 @@
+package com.llw.wifi;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.wifi.WifiConfiguration;
+import android.net.wifi.WifiManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 已保存的Wifi配置索引
+ * <p>
+ * 首次查询时读取一次配置表，之后按名称直接查找；配置表变化后失效，下次查询时重新读取。
+ * 读取期间失效时，读到的配置表不再保存。
+ */
+public class ConfiguredNetworkIndex {
+
+    /**
+     * 配置表变化广播，对应 WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION
+     */
+    public static final String ACTION_CONFIGURED_NETWORKS_CHANGED = "android.net.wifi.CONFIGURED_NETWORKS_CHANGE";
+
+    private final WifiManager wifiManager;//Wifi管理者
+
+    private volatile Map<String, WifiConfiguration> index;//名称 -> 配置
+
+    private final AtomicInteger generation = new AtomicInteger();//每次失效时加1
+
+    /**
+     * 配置表变化广播接收器
+     */
+    private final BroadcastReceiver configuredNetworksReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidate();
+        }
+    };
+
+    public ConfiguredNetworkIndex(WifiManager wifiManager) {
+        this.wifiManager = wifiManager;
+    }
+
+    /**
+     * 注册配置表变化监听
+     */
+    public void register(Context context) {
+        context.registerReceiver(configuredNetworksReceiver, new IntentFilter(ACTION_CONFIGURED_NETWORKS_CHANGED));
+    }
+
+    public void unregister(Context context) {
+        context.unregisterReceiver(configuredNetworksReceiver);
+    }
+
+    /**
+     * 查找Wifi配置
+     *
+     * @param ssid 名称，带不带引号均可
+     * @return 没有找到时返回null
+     */
+    public WifiConfiguration get(String ssid) {
+        return load().get(normalize(ssid));
+    }
+
+    public boolean contains(String ssid) {
+        return get(ssid) != null;
+    }
+
+    /**
+     * 查找Wifi配置的网络ID
+     *
+     * @param ssid 名称
+     * @return 没有找到时返回-1
+     */
+    public int getNetworkId(String ssid) {
+        WifiConfiguration configuration = get(ssid);
+        return configuration == null ? -1 : configuration.networkId;
+    }
+
+    /**
+     * 使索引失效，添加或删除配置后调用
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        index = null;
+    }
+
+    @SuppressLint("MissingPermission")
+    private Map<String, WifiConfiguration> load() {
+        Map<String, WifiConfiguration> index = this.index;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = this.index;
+            if (index == null) {
+                int start = generation.get();
+                List<WifiConfiguration> configurations = wifiManager.getConfiguredNetworks();
+                if (configurations == null || configurations.isEmpty()) {
+                    index = Collections.emptyMap();
+                } else {
+                    index = new HashMap<>(configurations.size() * 4 / 3 + 1);
+                    for (WifiConfiguration configuration : configurations) {
+                        if (configuration.SSID != null) {
+                            index.put(normalize(configuration.SSID), configuration);
+                        }
+                    }
+                }
+                this.index = index;
+                //读取期间失效，不保留可能过期的配置表；失效发生在检查之后时由 invalidate 清空
+                if (generation.get() != start) {
+                    this.index = null;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 去掉名称两端的引号
+     *
+     * @param ssid 名称
+     */
+    static String normalize(String ssid) {
+        if (ssid.length() >= 2 && ssid.charAt(0) == '"' && ssid.charAt(ssid.length() - 1) == '"') {
+            return ssid.substring(1, ssid.length() - 1);
+        }
+        return ssid;
+    }
+}
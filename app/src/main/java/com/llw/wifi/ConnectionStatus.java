@@ -0,0 +1,43 @@
+package com.llw.wifi;
+
+import android.net.Network;
+
+/**
+ * 连接状态
+ */
+public final class ConnectionStatus {
+
+    /**
+     * 没有连接请求
+     */
+    public static final ConnectionStatus IDLE = new ConnectionStatus(null, ConnectionState.IDLE, null);
+
+    private final String ssid;//名称，没有连接请求时为null
+
+    private final ConnectionState state;
+
+    private final Network network;//已连接或断开的网络，其他状态为null
+
+    public ConnectionStatus(String ssid, ConnectionState state, Network network) {
+        this.ssid = ssid;
+        this.state = state;
+        this.network = network;
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public ConnectionState getState() {
+        return state;
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStatus{" + ssid + ", " + state + "}";
+    }
+}
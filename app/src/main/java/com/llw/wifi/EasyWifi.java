@@ -1,10 +1,12 @@
 package com.llw.wifi;
 
+import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.pm.PackageManager;
 import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
@@ -12,15 +14,22 @@ import android.net.NetworkRequest;
 import android.net.wifi.ScanResult;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
-import android.net.wifi.WifiNetworkSpecifier;
 import android.net.wifi.WifiNetworkSuggestion;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Wifi工具类
@@ -29,21 +38,214 @@ public class EasyWifi {
 
     private static final String TAG = EasyWifi.class.getSimpleName();
 
-    private final ConnectivityManager connectivityManager;//连接管理者
+    /**
+     * 默认的探测地址，只返回204，用于测量首字节耗时
+     */
+    public static final String DEFAULT_PROBE_HOST = "connectivitycheck.gstatic.com";
+
+    private ConnectivityManager connectivityManager;//连接管理者，第一次使用时获取
+
+    private WifiManager wifiManager;//Wifi管理者，第一次使用时获取
+
+    private WifiBackend backend;//Wifi系统接口，没有指定时第一次使用时创建
+
+    private ConfiguredNetworkIndex configuredNetworkIndex;//已保存的Wifi配置索引，第一次使用时创建
+
+    private final ConnectionMetrics connectionMetrics = new ConnectionMetrics();//连接耗时统计
+
+    private WifiConnectionManager connectionManager;//连接管理，第一次使用时创建
+
+    private final Map<String, ConnectionMetrics.Attempt> pendingSuggestions = new ConcurrentHashMap<>();//等待连接的建议网络
+
+    private final RoamingSelector roamingSelector = new RoamingSelector();//切换到更好的已知网络
+
+    private final Map<ConnectionMetrics.Attempt, WifiCredential> pendingCredentials = new ConcurrentHashMap<>();//每次连接使用的凭据
+
+    private CredentialVault credentialVault;//已连接过的网络的凭据，第一次使用时创建
+
+    private AndroidLinkMonitor linkMonitor;//已连接网络的链路质量，第一次使用时创建
+
+    private ScanHistoryStore scanHistoryStore;//扫描历史，第一次使用时创建
+
+    private volatile WifiConnectCallback wifiConnectCallback;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());//连接回调切换到主线程
+
+    private ScanProcessor scanProcessor;//扫描结果处理器，第一次收到扫描广播时创建
+
+    private final AtomicBoolean scanResultsUpdated = new AtomicBoolean();//上次处理之后是否收到过结果已更新的扫描广播
+
+    private boolean processingUpdated;//正在处理的扫描结果是否已更新，只在处理线程中使用
+
+    private final ConflatedStream<ScanSnapshot> scanResults = new ConflatedStream<>();//扫描结果
+
+    private WifiStateTracker wifiStateTracker;//Wifi开关状态跟踪，第一次使用时创建
+
+    private final ConflatedStream<Integer> wifiState = new ConflatedStream<>();//Wifi开关状态，稳定后才发布
+
+    private final ConflatedStream<ConnectionStatus> connectionStatus = new ConflatedStream<>(ConnectionStatus.IDLE);//连接状态
+
+    /**
+     * Wifi开关状态广播接收器
+     */
+    private final BroadcastReceiver wifiStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            getWifiStateTracker().report(WifiStateTracker.State.of(
+                    intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_UNKNOWN)));
+        }
+    };
+
+    private BroadcastReceiver suggestionReceiver;//建议网络连接广播接收器
 
-    private final WifiManager wifiManager;//Wifi管理者
+    private ProbeEndpoint probeEndpoint = new HttpProbeEndpoint(DEFAULT_PROBE_HOST, 80, "/generate_204");//探测测速地址
 
-    private WifiConnectCallback wifiConnectCallback;
+    private ProbeEngine probeEngine;//网络探测
+
+    private SuggestionBatcher suggestionBatcher;//批量建议网络
 
     @SuppressLint("StaticFieldLeak")
     private static volatile EasyWifi mInstance;
 
     private final Context mContext;
 
+    /**
+     * 构造时只保存上下文，系统服务和各个组件在第一次使用时再获取，减少启动耗时
+     */
     public EasyWifi(Context context) {
-        mContext = context;
-        wifiManager = (WifiManager) mContext.getSystemService(Context.WIFI_SERVICE);
-        connectivityManager = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this(context, null);
+    }
+
+    /**
+     * @param context 上下文
+     * @param backend Wifi系统接口，为null时使用 {@link AndroidWifiBackend}
+     */
+    public EasyWifi(Context context, WifiBackend backend) {
+        mContext = context.getApplicationContext();
+        this.backend = backend;
+        //连接成功的网络作为已知网络并保存凭据，并记录连接结果
+        connectionMetrics.addListener(new ConnectionMetrics.Listener() {
+            @Override
+            public void onPhase(ConnectionMetrics.Attempt attempt, ConnectionMetrics.Phase phase, long micros) {
+
+            }
+
+            @Override
+            public void onFinished(ConnectionMetrics.Attempt attempt, boolean success) {
+                WifiCredential credential = pendingCredentials.remove(attempt);
+                //被替代或主动断开的连接不能说明密码是否正确
+                if (credential == null || attempt.isCancelled()) {
+                    return;
+                }
+                long now = SystemClock.elapsedRealtime();
+                roamingSelector.onConnectionResult(credential.getSsid(), credential.getSecurity(), success, now);
+                CredentialVault vault = getCredentialVault();
+                if (success) {
+                    roamingSelector.addKnownNetwork(credential);
+                    roamingSelector.onConnected(credential.getSsid(), now);
+                    vault.put(credential);
+                } else if (credential.equals(vault.get(credential.getSsid(), credential.getSecurity()))) {
+                    //密码可能已修改，下次连接时重新输入
+                    vault.remove(credential.getSsid(), credential.getSecurity());
+                    roamingSelector.removeKnownNetwork(credential);
+                }
+            }
+        });
+        //有订阅者时才监听扫描完成，并立即处理一次系统缓存的扫描结果
+        scanResults.setActiveListener(active -> {
+            getBackend().setScanListener(active ? updated -> {
+                //合并的多次通知中只要有一次已更新，处理的结果就是新的
+                if (updated) {
+                    scanResultsUpdated.set(true);
+                }
+                //在后台线程处理扫描结果，连续的通知只会处理一次
+                getScanProcessor().request();
+            } : null);
+            if (active && mContext.checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+                getScanProcessor().request();
+            }
+        });
+        //有订阅者时发布当前状态，之后由状态跟踪发布变化
+        wifiState.setActiveListener(active -> {
+            if (active) {
+                wifiState.publish(getWifiStateTracker().getState().getValue());
+            }
+        });
+    }
+
+    /**
+     * Wifi管理者
+     */
+    public synchronized WifiManager getWifiManager() {
+        if (wifiManager == null) {
+            wifiManager = (WifiManager) mContext.getSystemService(Context.WIFI_SERVICE);
+        }
+        return wifiManager;
+    }
+
+    /**
+     * 连接管理者
+     */
+    public synchronized ConnectivityManager getConnectivityManager() {
+        if (connectivityManager == null) {
+            connectivityManager = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        }
+        return connectivityManager;
+    }
+
+    /**
+     * Wifi系统接口，扫描、连接和建议网络都通过它调用系统
+     */
+    public synchronized WifiBackend getBackend() {
+        if (backend == null) {
+            backend = new AndroidWifiBackend(mContext, getWifiManager(), getConnectivityManager());
+        }
+        return backend;
+    }
+
+    /**
+     * Wifi开关状态跟踪，第一次使用时注册开关状态广播和Wifi网络回调，之后读取状态不需要调用系统服务
+     * <p>
+     * 可以用 {@link WifiStateTracker#runWhenEnabled(Runnable)} 让扫描等到Wifi打开后再发起。
+     */
+    public synchronized WifiStateTracker getWifiStateTracker() {
+        if (wifiStateTracker == null) {
+            wifiStateTracker = new WifiStateTracker();
+            wifiStateTracker.addListener((previous, current) -> wifiState.publish(current.getValue()));
+            //广播到达之前先读取一次
+            wifiStateTracker.report(getBackend().isWifiEnabled() ? WifiStateTracker.State.ENABLED : WifiStateTracker.State.DISABLED);
+            //开关状态广播是粘性广播，注册后立即收到当前状态
+            mContext.registerReceiver(wifiStateReceiver, new IntentFilter(WifiManager.WIFI_STATE_CHANGED_ACTION));
+            NetworkRequest request = new NetworkRequest.Builder()
+                    .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                    .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .build();
+            getConnectivityManager().registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    super.onAvailable(network);
+                    wifiStateTracker.reportNetworkAvailable();
+                }
+            });
+        }
+        return wifiStateTracker;
+    }
+
+    private synchronized ScanProcessor getScanProcessor() {
+        if (scanProcessor == null) {
+            WifiBackend backend = getBackend();
+            //读取结果前取出并清除标记，读取之后到达的广播留给下一次处理
+            scanProcessor = new ScanProcessor(() -> {
+                processingUpdated = scanResultsUpdated.getAndSet(false);
+                return backend.getScanResults();
+            });
+            //平滑信号强度，避免单次波动导致列表重排
+            scanProcessor.setRssiTracker(new RssiTracker());
+            //扫描结果的时间戳为开机以来的微秒数
+            scanProcessor.setCallback(snapshot -> scanResults.publish(new ScanSnapshot(snapshot, System.currentTimeMillis(),
+                    processingUpdated, SystemClock.elapsedRealtimeNanos() / 1000)));
+        }
+        return scanProcessor;
     }
 
     public static EasyWifi initialize(Context context) {
@@ -57,6 +259,273 @@ public class EasyWifi {
         return mInstance;
     }
 
+    /**
+     * 扫描结果，有订阅者时接收扫描广播，每次扫描完成后发布处理好的快照
+     * <p>
+     * 扫描由调用者发起，如 {@link ScanScheduler}。
+     */
+    public ConflatedStream<ScanSnapshot> getScanResults() {
+        return scanResults;
+    }
+
+    /**
+     * Wifi开关状态，值为 WifiManager.WIFI_STATE_*，打开或关闭过程中的短暂状态不会发布
+     */
+    public ConflatedStream<Integer> getWifiState() {
+        return wifiState;
+    }
+
+    /**
+     * 通过 {@link WifiConnectionManager} 发起的连接的状态
+     */
+    public ConflatedStream<ConnectionStatus> getConnectionStatus() {
+        return connectionStatus;
+    }
+
+    /**
+     * 已保存的Wifi配置索引
+     */
+    public synchronized ConfiguredNetworkIndex getConfiguredNetworkIndex() {
+        if (configuredNetworkIndex == null) {
+            configuredNetworkIndex = new ConfiguredNetworkIndex(getWifiManager());
+            configuredNetworkIndex.register(mContext);
+        }
+        return configuredNetworkIndex;
+    }
+
+    /**
+     * 连接管理，可以查询连接状态或断开连接
+     */
+    public synchronized WifiConnectionManager getConnectionManager() {
+        if (connectionManager == null) {
+            connectionManager = new WifiConnectionManager(getBackend(), connectionMetrics);
+            connectionManager.setStateListener((ssid, state, request) -> {
+                Network network = AndroidWifiBackend.getNetwork(request);
+                connectionStatus.publish(new ConnectionStatus(ssid, state, network));
+                if (state == ConnectionState.IDLE) {
+                    roamingSelector.onDisconnected();
+                }
+                //连接后开始采样链路质量
+                if (state == ConnectionState.CONNECTED && network != null) {
+                    getLinkMonitor().start(network);
+                } else if (state == ConnectionState.IDLE || state == ConnectionState.FAILED) {
+                    getLinkMonitor().stop();
+                }
+                WifiConnectCallback callback = wifiConnectCallback;
+                if (callback == null) {
+                    return;
+                }
+                //状态可能在连接回调线程或发起连接的后台线程（如切换网络）中变化
+                if (state == ConnectionState.CONNECTED) {
+                    mainHandler.post(() -> callback.onSuccess(network));
+                } else if (state == ConnectionState.FAILED) {
+                    mainHandler.post(callback::onFailure);
+                }
+            });
+        }
+        return connectionManager;
+    }
+
+    private synchronized AndroidLinkMonitor getLinkMonitor() {
+        if (linkMonitor == null) {
+            LinkQualityMonitor monitor = new LinkQualityMonitor();
+            monitor.setListener((reason, timeMillis) -> Log.w(TAG, "linkQuality: " + reason));
+            linkMonitor = new AndroidLinkMonitor(getConnectivityManager(), monitor);
+        }
+        return linkMonitor;
+    }
+
+    /**
+     * 当前通过本类连接的网络的长连接池，连接绑定到该网络
+     * <p>
+     * 通过 WifiNetworkSpecifier 连接的网络没有互联网能力，默认不会走这个网络，需要通过此连接池访问设备。
+     * 网络断开、切换到其他网络或主动断开时关闭。
+     *
+     * @return 没有连接时返回null
+     */
+    public ConnectionPool getConnectionPool() {
+        return getConnectionManager().getConnectionPool();
+    }
+
+    /**
+     * 当前连接的链路质量，可以读取带宽分位数和掉线次数，或设置掉线监听
+     * <p>
+     * 通过本类连接成功后开始采样，连接新的网络时清空。
+     */
+    public LinkQualityMonitor getLinkQuality() {
+        return getLinkMonitor().getMonitor();
+    }
+
+    /**
+     * 连接耗时统计，可以添加监听或读取各阶段的耗时分布
+     */
+    public ConnectionMetrics getConnectionMetrics() {
+        return connectionMetrics;
+    }
+
+    /**
+     * 输出连接耗时统计
+     */
+    public String dumpConnectionMetrics() {
+        return connectionMetrics.dump();
+    }
+
+    /**
+     * 设置探测使用的测速地址，默认地址没有响应内容，需要比较下载速率时应设置为可以下载数据的地址
+     *
+     * @param probeEndpoint 测速地址
+     */
+    public synchronized void setProbeEndpoint(ProbeEndpoint probeEndpoint) {
+        this.probeEndpoint = probeEndpoint;
+        //进行中的探测会被取消
+        if (probeEngine != null) {
+            probeEngine.release();
+            probeEngine = null;
+        }
+    }
+
+    /**
+     * 探测已知凭据的候选网络，按连接耗时、是否能访问互联网、首字节耗时和下载速率排序
+     * <p>
+     * 支持同时连接多个网络的设备并行探测，其他设备依次探测。
+     *
+     * @param candidates 候选网络的凭据
+     * @param listener   结果监听，在探测线程中回调
+     * @return 本次探测，可以取消
+     */
+    public ProbeEngine.Session probeNetworks(List<WifiCredential> candidates, ProbeEngine.Listener listener) {
+        return getProbeEngine().probe(candidates, listener);
+    }
+
+    @SuppressLint("NewApi")
+    private synchronized ProbeEngine getProbeEngine() {
+        if (probeEngine == null) {
+            boolean concurrent = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                    && getWifiManager().isStaConcurrencyForLocalOnlyConnectionsSupported();
+            probeEngine = new ProbeEngine(new AndroidProbeConnector(getConnectivityManager()), probeEndpoint,
+                    concurrent ? ProbeEngine.DEFAULT_PARALLELISM : 1, ProbeEngine.DEFAULT_TIMEOUT_MILLIS);
+        }
+        return probeEngine;
+    }
+
+    /**
+     * 批量提交建议网络，系统会在网络可用时自动连接，不需要逐个确认
+     * <p>
+     * 与已提交的建议网络比较，凭据相同的不重复提交，超出系统数量上限的不提交。
+     * 需要Android 10及以上版本，会调用系统接口，建议在后台线程调用。
+     *
+     * @param credentials   凭据
+     * @param removeMissing 是否移除不在列表中的已提交网络
+     * @return 每个网络的结果，顺序与列表相同，移除的网络排在最后
+     */
+    public List<SuggestionBatcher.Result> suggestNetworks(List<WifiCredential> credentials, boolean removeMissing) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            throw new UnsupportedOperationException("建议网络需要Android 10及以上版本");
+        }
+        return getSuggestionBatcher().submit(credentials, removeMissing);
+    }
+
+    private synchronized SuggestionBatcher getSuggestionBatcher() {
+        if (suggestionBatcher == null) {
+            WifiBackend backend = getBackend();
+            suggestionBatcher = new SuggestionBatcher(backend.getSuggestionPlatform());
+            //应用重启后从系统恢复已提交的建议网络
+            suggestionBatcher.restore(backend.getSuggestedNetworks());
+        }
+        return suggestionBatcher;
+    }
+
+    /**
+     * 扫描历史，整个进程共用一个
+     * <p>
+     * 记录数量和名称字典保存在实例中，多个实例同时写入同一个目录会互相覆盖，
+     * 页面重建时新旧页面需要使用同一个实例。
+     */
+    public synchronized ScanHistoryStore getScanHistoryStore() {
+        if (scanHistoryStore == null) {
+            scanHistoryStore = new ScanHistoryStore(new File(mContext.getFilesDir(), "scan_history"));
+        }
+        return scanHistoryStore;
+    }
+
+    /**
+     * 已连接过的网络的凭据，加密保存在应用私有目录，密钥保存在系统密钥库；只保存 Android 10 及以上确认连接成功的凭据
+     * <p>
+     * 第一次查询时读取文件，可以先在后台线程调用 {@link #loadCredentials()}。
+     */
+    public synchronized CredentialVault getCredentialVault() {
+        if (credentialVault == null) {
+            credentialVault = new CredentialVault(new File(mContext.getFilesDir(), "credentials.bin"),
+                    new AndroidKeystoreKeyProvider("wifi_credentials"), Executors.newSingleThreadExecutor());
+            credentialVault.setErrorListener(e -> Log.e(TAG, "credentialVault: " + e));
+        }
+        return credentialVault;
+    }
+
+    /**
+     * 读取已保存的凭据并作为已知网络，会读取文件和系统密钥库，需要在后台线程调用
+     */
+    public void loadCredentials() {
+        for (WifiCredential credential : getCredentialVault().getAll()) {
+            roamingSelector.addKnownNetwork(credential);
+        }
+    }
+
+    /**
+     * 查询已保存的凭据
+     *
+     * @param entry 扫描结果快照
+     * @return 没有连接成功过时返回null
+     */
+    public WifiCredential getSavedCredential(WifiScanEntry entry) {
+        if (entry.getSsid().isEmpty()) {
+            return null;
+        }
+        return getCredentialVault().get(entry.getSsid(), entry.getSecurity());
+    }
+
+    /**
+     * 使用已保存的凭据连接，不需要再输入密码
+     *
+     * @param entry 扫描结果快照
+     * @return 没有已保存的凭据时返回false，不发起连接
+     */
+    public boolean connectSaved(WifiScanEntry entry) {
+        WifiCredential credential = getSavedCredential(entry);
+        if (credential == null) {
+            return false;
+        }
+        connectWifi(entry, credential.getPassphrase());
+        return true;
+    }
+
+    /**
+     * 网络切换选择，可以调整迟滞值和停留时间，或设置已知网络
+     */
+    public RoamingSelector getRoamingSelector() {
+        return roamingSelector;
+    }
+
+    /**
+     * 已连接时根据扫描结果判断是否切换到更好的已知网络，需要切换时直接发起连接
+     * <p>
+     * 通过本类连接成功的网络会自动成为已知网络。
+     *
+     * @param networks 新的扫描结果聚合后的网络列表
+     * @return 切换决定，不需要切换时返回null
+     */
+    public RoamingSelector.Decision roam(List<WifiNetwork> networks) {
+        RoamingSelector.Decision decision = roamingSelector.evaluate(networks, SystemClock.elapsedRealtime());
+        if (decision != null) {
+            Log.d(TAG, "roam: " + decision);
+            connectWifi(decision.getNetwork().getBestAccessPoint(), decision.getCredential().getPassphrase());
+        }
+        return decision;
+    }
+
+    /**
+     * 设置连接回调，只保留一个，在主线程中回调，需要多处接收时使用 {@link #getConnectionStatus()}
+     */
     public void setWifiConnectCallback(WifiConnectCallback wifiConnectCallback) {
         this.wifiConnectCallback = wifiConnectCallback;
     }
@@ -68,100 +537,121 @@ public class EasyWifi {
      * @param password   密码
      */
     public void connectWifi(ScanResult scanResult, String password) {
+        connectWifi(scanResult.SSID, scanResult.capabilities, password);
+    }
+
+    /**
+     * 连接Wifi
+     *
+     * @param entry    扫描结果快照
+     * @param password 密码
+     */
+    public void connectWifi(WifiScanEntry entry, String password) {
+        connectWifi(entry.getSsid(), entry.getCapabilities(), password);
+    }
+
+    private void connectWifi(String ssid, String capabilities, String password) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            connectByNew(scanResult.SSID, password);
+            connectByNew(new WifiCredential(ssid, WifiSecurity.of(capabilities), password));
         } else {
-            connectByOld(scanResult, password);
+            connectByOld(ssid, capabilities, password);
         }
     }
 
     /**
      * Android 10 以下使用
      *
-     * @param scanResult 扫描结果
-     * @param password   密码
+     * @param ssid         名称
+     * @param capabilities 加密能力描述
+     * @param password     密码
      */
-    private void connectByOld(ScanResult scanResult, String password) {
-        String ssid = scanResult.SSID;
+    private void connectByOld(String ssid, String capabilities, String password) {
+        //enableNetwork 只表示请求被接受，不能说明密码正确，已保存的配置也不会使用输入的密码，所以不保存凭据
+        ConnectionMetrics.Attempt timing = connectionMetrics.begin(ConnectionMetrics.Path.LEGACY, ssid);
         boolean isSuccess;
         WifiConfiguration configured = isExist(ssid);
         if (configured != null) {
             //在配置表中找到了，直接连接
-            isSuccess = wifiManager.enableNetwork(configured.networkId, true);
+            connectionMetrics.mark(timing, ConnectionMetrics.Phase.BUILT);
+            isSuccess = getWifiManager().enableNetwork(configured.networkId, true);
         } else {
-            WifiConfiguration wifiConfig = createWifiConfig(ssid, password, getCipherType(scanResult.capabilities));
-            int netId = wifiManager.addNetwork(wifiConfig);
-            isSuccess = wifiManager.enableNetwork(netId, true);
+            WifiConfiguration wifiConfig = createWifiConfig(ssid, password, getCipherType(capabilities));
+            connectionMetrics.mark(timing, ConnectionMetrics.Phase.BUILT);
+            int netId = getWifiManager().addNetwork(wifiConfig);
+            getConfiguredNetworkIndex().invalidate();
+            isSuccess = getWifiManager().enableNetwork(netId, true);
         }
+        connectionMetrics.mark(timing, ConnectionMetrics.Phase.SUBMITTED);
+        connectionMetrics.finish(timing, isSuccess);
         Log.d(TAG, "connectWifi: " + (isSuccess ? "成功" : "失败"));
     }
 
     /**
-     * Android 10及以上版本使用此方式连接Wifi
+     * Android 10及以上版本使用此方式连接Wifi，通过 {@link WifiBackend#requestNetwork} 请求
      *
-     * @param ssid     名称
-     * @param password 密码
+     * @param credential 凭据
      */
-    @SuppressLint("NewApi")
-    private void connectByNew(String ssid, String password) {
-        WifiNetworkSpecifier wifiNetworkSpecifier = new WifiNetworkSpecifier.Builder()
-                .setSsid(ssid)
-                .setWpa2Passphrase(password)
-                .build();
-        //网络请求
-        NetworkRequest request = new NetworkRequest.Builder()
-                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
-                .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
-                .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_RESTRICTED)
-                .addCapability(NetworkCapabilities.NET_CAPABILITY_TRUSTED)
-                .setNetworkSpecifier(wifiNetworkSpecifier)
-                .build();
-        //网络回调处理
-        ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
-            @Override
-            public void onAvailable(@NonNull Network network) {
-                super.onAvailable(network);
-                if (wifiConnectCallback != null) {
-                    wifiConnectCallback.onSuccess(network);
-                }
-            }
-
-            @Override
-            public void onUnavailable() {
-                super.onUnavailable();
-                if (wifiConnectCallback != null) {
-                    wifiConnectCallback.onFailure();
-                }
-            }
-        };
-        //请求连接网络
-        connectivityManager.requestNetwork(request, networkCallback);
+    private void connectByNew(WifiCredential credential) {
+        ConnectionMetrics.Attempt timing = connectionMetrics.begin(ConnectionMetrics.Path.SPECIFIER, credential.getSsid());
+        connectionMetrics.mark(timing, ConnectionMetrics.Phase.BUILT);
+        //连接结束时按本次的凭据保存或删除，可能在 connect 返回前结束
+        pendingCredentials.put(timing, credential);
+        //请求连接网络，重复点击同一个网络并且密码相同时复用进行中的请求
+        if (!getConnectionManager().connect(credential, timing)) {
+            pendingCredentials.remove(timing);
+            connectionMetrics.discard(timing);
+        }
     }
 
     @SuppressLint("NewApi")
     private void connectBySug(String ssid, String password) {
-        WifiNetworkSuggestion suggestion = new WifiNetworkSuggestion.Builder()
-                .setSsid(ssid)
-                .setWpa2Passphrase(password)
-                .setIsAppInteractionRequired(true)
-                .build();
+        ConnectionMetrics.Attempt timing = connectionMetrics.begin(ConnectionMetrics.Path.SUGGESTION, ssid);
+        WifiNetworkSuggestion suggestion = AndroidSuggestionPlatform.toSuggestion(
+                new WifiCredential(ssid, WifiSecurity.PSK, password), true);
         List<WifiNetworkSuggestion> suggestionList = new ArrayList<>();
         suggestionList.add(suggestion);
-        int status = wifiManager.addNetworkSuggestions(suggestionList);
+        connectionMetrics.mark(timing, ConnectionMetrics.Phase.BUILT);
+        int status = getWifiManager().addNetworkSuggestions(suggestionList);
         if (status != WifiManager.STATUS_NETWORK_SUGGESTIONS_SUCCESS) {
+            connectionMetrics.finish(timing, false);
+            return;
+        }
+        connectionMetrics.mark(timing, ConnectionMetrics.Phase.SUBMITTED);
+        //连接后系统发送广播，记录连接耗时
+        pendingSuggestions.put(ssid, timing);
+        registerSuggestionReceiver();
+    }
+
+    /**
+     * 注册建议网络连接广播，只注册一次
+     */
+    private synchronized void registerSuggestionReceiver() {
+        if (suggestionReceiver != null) {
             return;
         }
         IntentFilter intentFilter = new IntentFilter(WifiManager.ACTION_WIFI_NETWORK_SUGGESTION_POST_CONNECTION);
-        BroadcastReceiver wifiScanReceiver = new BroadcastReceiver() {
+        suggestionReceiver = new BroadcastReceiver() {
 
             @Override
             public void onReceive(Context context, Intent intent) {
                 if (!intent.getAction().equals(WifiManager.ACTION_WIFI_NETWORK_SUGGESTION_POST_CONNECTION)) {
                     return;
                 }
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+                    return;
+                }
+                WifiNetworkSuggestion suggestion = intent.getParcelableExtra(WifiManager.EXTRA_NETWORK_SUGGESTION);
+                if (suggestion == null || suggestion.getSsid() == null) {
+                    return;
+                }
+                ConnectionMetrics.Attempt timing = pendingSuggestions.remove(ConfiguredNetworkIndex.normalize(suggestion.getSsid()));
+                if (timing != null) {
+                    connectionMetrics.mark(timing, ConnectionMetrics.Phase.AVAILABLE);
+                    connectionMetrics.finish(timing, true);
+                }
             }
         };
-        mContext.registerReceiver(wifiScanReceiver, intentFilter);
+        mContext.registerReceiver(suggestionReceiver, intentFilter);
     }
 
     /**
@@ -181,8 +671,9 @@ public class EasyWifi {
         config.SSID = "\"" + ssid + "\"";
         WifiConfiguration configured = isExist(ssid);
         if (configured != null) {
-            wifiManager.removeNetwork(configured.networkId);
-            wifiManager.saveConfiguration();
+            getWifiManager().removeNetwork(configured.networkId);
+            getWifiManager().saveConfiguration();
+            getConfiguredNetworkIndex().invalidate();
         }
 
         //不需要密码的场景
@@ -237,31 +728,23 @@ public class EasyWifi {
      * @param SSID
      * @return
      */
-    @SuppressLint("MissingPermission")
     private WifiConfiguration isExist(String SSID) {
-        List<WifiConfiguration> existingConfigs = wifiManager.getConfiguredNetworks();
-        for (WifiConfiguration existingConfig : existingConfigs) {
-            if (existingConfig.SSID.equals("\"" + SSID + "\"")) {
-                return existingConfig;
-            }
-        }
-        return null;
+        return getConfiguredNetworkIndex().get(SSID);
     }
 
     private WifiCapability getCipherType(String capabilities) {
-        if (capabilities.contains("WEB")) {
+        int flags = WifiCapabilities.parse(capabilities);
+        if (WifiCapabilities.has(flags, WifiCapabilities.WEP)) {
             return WifiCapability.WIFI_CIPHER_WEP;
-        } else if (capabilities.contains("PSK")) {
+        } else if (WifiCapabilities.has(flags, WifiCapabilities.PSK | WifiCapabilities.SAE)) {
             return WifiCapability.WIFI_CIPHER_WPA;
-        } else if (capabilities.contains("WPS")) {
-            return WifiCapability.WIFI_CIPHER_NO_PASS;
         } else {
             return WifiCapability.WIFI_CIPHER_NO_PASS;
         }
     }
 
     /**
-     * wifi连接回调接口
+     * wifi连接回调接口，在主线程中回调
      */
     public interface WifiConnectCallback {
 
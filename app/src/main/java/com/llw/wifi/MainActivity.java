@@ -7,64 +7,65 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import android.Manifest;
 import android.annotation.SuppressLint;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
 import android.net.NetworkRequest;
-import android.net.wifi.ScanResult;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
 import android.net.wifi.WifiNetworkSpecifier;
 import android.os.Build;
 import android.os.Bundle;
 import android.provider.Settings;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.View;
 import android.widget.Toast;
 
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.llw.wifi.databinding.ActivityMainBinding;
 import com.llw.wifi.databinding.DialogConnectWifiBinding;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @SuppressLint("MissingPermission")
 public class MainActivity extends AppCompatActivity implements WifiAdapter.OnItemClickListener, EasyWifi.WifiConnectCallback {
 
     public static final String TAG = MainActivity.class.getSimpleName();
+    /**
+     * 性能测试使用的模拟网络数量，只在 benchmark 构建中生效
+     */
+    public static final String EXTRA_SYNTHETIC_NETWORKS = "synthetic_networks";
     private ActivityMainBinding binding;
-    private WifiManager wifiManager;//Wifi管理者
     private ActivityResultLauncher<Intent> openWifi;    //打开Wifi意图
     private ActivityResultLauncher<String[]> requestPermission;     //请求权限意图
-    private final List<ScanResult> wifiList = new ArrayList<>();    //Wifi结果列表
     private WifiAdapter wifiAdapter;    //Wifi适配器
     private EasyWifi easyWifi;
-    /**
-     * Wifi扫描广播接收器
-     */
-    private final BroadcastReceiver wifiScanReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context c, Intent intent) {
-            boolean success = intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, false);
-            Log.e(TAG, "onReceive: " + (success ? "成功" : "失败"));
-            //处理扫描结果
-            wifiList.clear();
-            for (ScanResult scanResult : wifiManager.getScanResults()) {
-                if (!scanResult.SSID.isEmpty()) {
-                    wifiList.add(scanResult);
-                }
-            }
-            sortByLevel(wifiList);
-            wifiAdapter.notifyDataSetChanged();
+    private ScanScheduler scanScheduler;    //扫描调度器
+    private ScanHistoryStore scanHistoryStore;    //扫描历史，进程内共用
+    private ScanSnapshotCache snapshotCache;    //最近一次扫描结果缓存，只在处理线程中使用
+    private final NetworkAggregator networkAggregator = new NetworkAggregator();    //网络聚合器，只在处理线程中使用
+    private final NetworkFilterEngine filterEngine = new NetworkFilterEngine();    //网络过滤，只在处理线程中使用
+    private WifiItemMapper itemMapper;    //显示模型转换，只在处理线程中使用
+    private final WifiItemViewPool viewPool = new WifiItemViewPool();    //预先加载的列表项视图
+    private final ExecutorService pipelineExecutor = Executors.newSingleThreadExecutor();    //扫描快照处理线程
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();    //扫描结果缓存写入线程
+    private final List<ConflatedStream.Subscription> subscriptions = new ArrayList<>();    //数据流订阅
+    private final Runnable pendingScan = () -> runOnUiThread(() -> {
+        if (!isDestroyed()) {
+            startScan();
         }
-    };
+    });    //等待Wifi打开后的扫描
+    private boolean wifiToggled;    //是否点击了开关按钮，状态稳定后提示
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,33 +75,127 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        //通过Wifi服务获取wifi管理者对象
-        wifiManager = (WifiManager) getSystemService(Context.WIFI_SERVICE);
-
+        //系统服务在第一次使用时才获取
         easyWifi = EasyWifi.initialize(this);
         easyWifi.setWifiConnectCallback(this);
+        //Wifi未开启时不发起扫描，读取缓存的开关状态
+        scanScheduler = new ScanScheduler(() -> easyWifi.getWifiStateTracker().isEnabled() && easyWifi.getBackend().startScan());
         //初始化视图
         initView();
-        //初始化扫描
-        initScan();
+        //先显示上一次的扫描结果
+        restoreLastScan();
+        //首帧绘制之后再订阅扫描结果和开关状态，注册广播
+        binding.getRoot().post(() -> {
+            if (!isDestroyed()) {
+                initScan();
+            }
+        });
+    }
+
+    /**
+     * 在处理线程中读取缓存的上一次扫描结果，新的扫描结果到达之前先显示，并标出每个网络的扫描时间
+     */
+    private void restoreLastScan() {
+        File directory = getFilesDir();
+        pipelineExecutor.execute(() -> {
+            itemMapper = new WifiItemMapper(easyWifi.getConfiguredNetworkIndex());
+            //页面重建时旧页面可能还在写入，使用同一个实例
+            scanHistoryStore = easyWifi.getScanHistoryStore();
+            snapshotCache = new ScanSnapshotCache(new File(directory, "last_scan.bin"), cacheExecutor);
+            snapshotCache.setErrorListener(e -> Log.e(TAG, "restoreLastScan: 保存扫描结果失败", e));
+            //提前读取已保存的凭据，点击时不需要读取文件
+            easyWifi.loadCredentials();
+            ScanSnapshot cached = null;
+            try {
+                cached = snapshotCache.read();
+            } catch (IOException e) {
+                Log.e(TAG, "restoreLastScan: 读取缓存的扫描结果失败", e);
+            }
+            if (cached != null) {
+                itemMapper.setSnapshot(cached);
+                filterEngine.setNetworks(networkAggregator.update(cached.getEntries()));
+            }
+            submitFiltered();
+        });
     }
 
     /**
      * 初始化扫描
      */
     private void initScan() {
-        IntentFilter intentFilter = new IntentFilter();
-        intentFilter.addAction(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
-        registerReceiver(wifiScanReceiver, intentFilter);
+        //Wifi开关变化时更新按钮
+        subscriptions.add(easyWifi.getWifiState().subscribe(this::runOnUiThread, this::onWifiStateChanged));
+        //性能测试时使用模拟的扫描结果
+        int synthetic = BuildConfig.SYNTHETIC_SCANS ? getIntent().getIntExtra(EXTRA_SYNTHETIC_NETWORKS, 0) : 0;
+        if (synthetic > 0) {
+            pipelineExecutor.execute(() -> {
+                List<WifiScanEntry> entries = ScanProcessor.process(new SyntheticScanSource(synthetic, 42).getScanResults());
+                filterEngine.setNetworks(networkAggregator.update(entries));
+                submitFiltered();
+            });
+            return;
+        }
+        //处理完成的快照按网络聚合后交给适配器差分刷新，处理较慢时只处理最新的快照
+        subscriptions.add(easyWifi.getScanResults().subscribe(pipelineExecutor, snapshot -> {
+            List<WifiScanEntry> entries = snapshot.getEntries();
+            ScanScheduler.Freshness freshness = scanScheduler.onScanResults(snapshot.isUpdated(), entries);
+            Log.d(TAG, "onScanProcessed: " + (freshness == ScanScheduler.Freshness.FRESH ? "新的扫描结果" : "缓存的扫描结果"));
+            //只记录新的扫描结果
+            if (freshness == ScanScheduler.Freshness.FRESH) {
+                try {
+                    scanHistoryStore.append(snapshot.getTimeMillis(), entries);
+                } catch (IOException e) {
+                    Log.e(TAG, "onScanProcessed: 保存扫描历史失败", e);
+                }
+            }
+            //在后台写入缓存，下次启动时先显示
+            snapshotCache.save(snapshot);
+            itemMapper.setSnapshot(snapshot);
+            List<WifiNetwork> networks = networkAggregator.update(entries);
+            //已连接时判断是否切换到信号更好的已知网络
+            if (freshness == ScanScheduler.Freshness.FRESH) {
+                RoamingSelector.Decision decision = easyWifi.roam(networks);
+                if (decision != null) {
+                    runOnUiThread(() -> showMsg("切换到信号更好的 " + decision.getNetwork().getSsid()));
+                }
+            }
+            filterEngine.setNetworks(networks);
+            submitFiltered();
+        }));
     }
 
     /**
-     * 根据Level排序
-     *
-     * @param list 扫描结果列表
+     * 把过滤后的网络交给适配器差分刷新，在处理线程中调用
      */
-    private void sortByLevel(List<ScanResult> list) {
-        Collections.sort(list, (lhs, rhs) -> rhs.level - lhs.level);
+    private void submitFiltered() {
+        List<WifiItem> items = itemMapper.map(filterEngine.getResults());
+        runOnUiThread(() -> {
+            wifiAdapter.submitList(items);
+            //列表为空时显示提示
+            binding.tvPlaceholder.setText("没有Wifi，点击扫描WIFI");
+            binding.tvPlaceholder.setVisibility(items.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+    }
+
+    /**
+     * 立即扫描一次，并开始自动扫描
+     */
+    private void startScan() {
+        //Wifi打开后自动扫描
+        WifiStateTracker tracker = easyWifi.getWifiStateTracker();
+        if (!tracker.isEnabled()) {
+            tracker.runWhenEnabled(pendingScan);
+            showMsg("Wifi未开启，开启后自动扫描");
+            return;
+        }
+        if (scanScheduler.requestScan()) {
+            showMsg("扫描Wifi中");
+        } else if (scanScheduler.getRemainingBudget() == 0) {
+            showMsg("扫描过于频繁，请" + (scanScheduler.millisUntilNextSlot() / 1000 + 1) + "秒后再试");
+        } else {
+            showMsg("开启扫描失败");
+        }
+        scanScheduler.start();
     }
 
     /**
@@ -109,18 +204,17 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
     private void initView() {
         //打开/关闭Wifi 按钮点击事件
         binding.btnOpenWifi.setOnClickListener(v -> {
+            wifiToggled = true;
             //Android10及以上版本
             if (isAndroidTarget(Build.VERSION_CODES.Q)) {
                 openWifi.launch(new Intent(Settings.Panel.ACTION_WIFI));
             } else {
-                wifiManager.setWifiEnabled(!wifiManager.isWifiEnabled());
-                checkWifiState();
+                //状态变化后由开关状态广播更新按钮
+                easyWifi.getWifiManager().setWifiEnabled(!easyWifi.getWifiStateTracker().isEnabled());
             }
         });
         //扫描Wifi 按钮点击事件
         binding.btnScanWifi.setOnClickListener(v -> {
-            //是否打开Wifi
-            if (wifiManager.getWifiState() != WifiManager.WIFI_STATE_ENABLED) return;
             //Android13及以上版本
             if (isAndroidTarget(Build.VERSION_CODES.TIRAMISU)) {
                 if (!hasPermission(Manifest.permission.NEARBY_WIFI_DEVICES) && !hasPermission(Manifest.permission.ACCESS_FINE_LOCATION)) {
@@ -134,23 +228,46 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
                 }
             }
             //扫描Wifi
-            showMsg(wifiManager.startScan() ? "扫描Wifi中" : "开启扫描失败");
+            startScan();
+        });
+        //输入关键字时过滤列表
+        binding.etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                NetworkFilter filter = NetworkFilter.ALL.withText(s.toString(), false);
+                pipelineExecutor.execute(() -> {
+                    filterEngine.setFilter(filter);
+                    submitFiltered();
+                });
+            }
         });
         //配置适配器
-        wifiAdapter = new WifiAdapter(wifiList);
+        wifiAdapter = new WifiAdapter();
         //Item点击事件
         wifiAdapter.setOnItemClickListener(this);
-        wifiAdapter.setWifiManager(wifiManager);
+        //第一次扫描结果到达之前在后台线程加载列表项视图
+        viewPool.prefetch(binding.rvWifi, WifiItemViewPool.DEFAULT_SIZE);
+        wifiAdapter.setViewPool(viewPool);
         binding.rvWifi.setLayoutManager(new LinearLayoutManager(this));
         binding.rvWifi.setAdapter(wifiAdapter);
     }
 
     /**
-     * 检查当前WIFI状态
+     * Wifi开关状态变化，更新按钮；点击开关后在状态稳定时提示
      */
-    public void checkWifiState() {
+    private void onWifiStateChanged(int state) {
         String msg;
-        switch (wifiManager.getWifiState()) {
+        switch (state) {
             case WifiManager.WIFI_STATE_DISABLING:
                 msg = "Wifi正在关闭";
                 break;
@@ -169,7 +286,10 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
                 msg = "没有获取到WiFi状态";
                 break;
         }
-        showMsg(msg);
+        if (wifiToggled) {
+            showMsg(msg);
+            wifiToggled = state != WifiManager.WIFI_STATE_ENABLED && state != WifiManager.WIFI_STATE_DISABLED;
+        }
     }
 
     /**
@@ -177,13 +297,15 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
      */
     private void registerIntent() {
         //打开Wifi开关
-        openWifi = registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> checkWifiState());
+        openWifi = registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
+            //面板中切换开关后由开关状态广播提示，不在这里查询状态
+        });
         //请求权限（Wifi、定位）
         requestPermission = registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(), result -> {
             if (Boolean.TRUE.equals(result.get(Manifest.permission.NEARBY_WIFI_DEVICES))
                     || Boolean.TRUE.equals(result.get(Manifest.permission.ACCESS_FINE_LOCATION))) {
                 //扫描Wifi
-                showMsg(wifiManager.startScan() ? "扫描Wifi中" : "开启扫描失败");
+                startScan();
             } else {
                 showMsg("扫描设备需要此权限");
             }
@@ -208,6 +330,14 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
         return checkSelfPermission(permission) == PackageManager.PERMISSION_GRANTED;
     }
 
+    /**
+     * 是否有扫描Wifi需要的权限
+     */
+    private boolean hasScanPermission() {
+        return hasPermission(Manifest.permission.ACCESS_FINE_LOCATION)
+                || (isAndroidTarget(Build.VERSION_CODES.TIRAMISU) && hasPermission(Manifest.permission.NEARBY_WIFI_DEVICES));
+    }
+
     /**
      * 提示文字
      *
@@ -224,30 +354,34 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
      */
     @Override
     public void onItemClick(int position) {
-        ScanResult scanResult = wifiList.get(position);
-        //获取Wifi扫描结果
-        String capabilities = scanResult.capabilities;
+        //连接信号最强的接入点
+        WifiScanEntry entry = wifiAdapter.getItem(position).getNetwork().getBestAccessPoint();
         //Wifi状态标识 true：加密，false：开放
-        boolean wifiStateFlag = capabilities.contains("WEP") || capabilities.contains("PSK") || capabilities.contains("EAP");
+        boolean wifiStateFlag = entry.getSecurity().isSecured();
 
         if (wifiStateFlag) {
             Log.d(TAG, "connectWifi: 加密连接");
-            showConnectWifiDialog(scanResult);
+            //连接成功过的网络直接使用已保存的密码
+            if (easyWifi.connectSaved(entry)) {
+                showMsg("使用已保存的密码连接");
+                return;
+            }
+            showConnectWifiDialog(entry);
         } else {
             Log.d(TAG, "connectWifi: 非加密连接");
-            easyWifi.connectWifi(scanResult,"");
+            easyWifi.connectWifi(entry, "");
         }
     }
 
     /**
      * 显示连接Wifi弹窗
      *
-     * @param scanResult 扫描结果
+     * @param entry 扫描结果
      */
-    private void showConnectWifiDialog(ScanResult scanResult) {
+    private void showConnectWifiDialog(WifiScanEntry entry) {
         BottomSheetDialog dialog = new BottomSheetDialog(this);
         DialogConnectWifiBinding binding = DialogConnectWifiBinding.inflate(LayoutInflater.from(this), null, false);
-        binding.materialToolbar.setTitle(scanResult.SSID);
+        binding.materialToolbar.setTitle(entry.getSsid());
         binding.btnCancel.setOnClickListener(v -> dialog.dismiss());
         binding.btnConnect.setOnClickListener(v -> {
             //没有找到相同配置
@@ -256,13 +390,50 @@ public class MainActivity extends AppCompatActivity implements WifiAdapter.OnIte
                 showMsg("请输入密码");
                 return;
             }
-            easyWifi.connectWifi(scanResult, password);
+            easyWifi.connectWifi(entry, password);
             dialog.dismiss();
         });
         dialog.setContentView(binding.getRoot());
         dialog.show();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        //界面可见时自动扫描
+        if (hasScanPermission()) {
+            scanScheduler.start();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        scanScheduler.stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        viewPool.release();
+        for (ConflatedStream.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        scanScheduler.release();
+        easyWifi.getWifiStateTracker().cancel(pendingScan);
+        //等待处理中的快照写完再同步到磁盘，存储由其他页面继续使用，不关闭
+        pipelineExecutor.execute(() -> {
+            try {
+                scanHistoryStore.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "onDestroy: ", e);
+            }
+            //处理完所有快照后再关闭，已提交的缓存写入会继续完成
+            cacheExecutor.shutdown();
+        });
+        pipelineExecutor.shutdown();
+    }
+
     @Override
     public void onSuccess(Network network) {
         showMsg("连接成功");
@@ -1,33 +1,56 @@
 package com.llw.wifi;
 
-import android.annotation.SuppressLint;
-import android.content.Context;
-import android.graphics.Color;
-import android.net.ConnectivityManager;
-import android.net.wifi.ScanResult;
-import android.net.wifi.WifiConfiguration;
-import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.gson.Gson;
 import com.llw.wifi.databinding.ItemWifiRvBinding;
 
 import java.util.List;
 
 /**
  * Wifi适配器
+ * <p>
+ * 显示内容在扫描处理线程中转换为 {@link WifiItem}，绑定时只设置文字和图片。
  */
 public class WifiAdapter extends RecyclerView.Adapter<WifiAdapter.ViewHolder> {
 
-    private final List<ScanResult> lists;
+    /**
+     * 局部刷新标识：只有信号图标等级发生变化
+     */
+    private static final Object PAYLOAD_LEVEL = new Object();
+
+    /**
+     * 以名称和加密类型作为唯一标识比较新旧网络
+     */
+    private static final DiffUtil.ItemCallback<WifiItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<WifiItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WifiItem oldItem, @NonNull WifiItem newItem) {
+            return oldItem.getKey().equals(newItem.getKey());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WifiItem oldItem, @NonNull WifiItem newItem) {
+            //未变化的网络沿用同一个显示模型
+            return oldItem == newItem || (oldItem.getLevel() == newItem.getLevel() && oldItem.sameAppearance(newItem));
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull WifiItem oldItem, @NonNull WifiItem newItem) {
+            //只有信号图标等级发生变化时局部刷新
+            return oldItem.sameAppearance(newItem) ? PAYLOAD_LEVEL : null;
+        }
+    };
+
+    /**
+     * 差分计算在后台线程执行，结果回到主线程后再刷新列表
+     */
+    private final AsyncListDiffer<WifiItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
     private OnItemClickListener listener;
 
@@ -35,81 +58,71 @@ public class WifiAdapter extends RecyclerView.Adapter<WifiAdapter.ViewHolder> {
         this.listener = listener;
     }
 
-    private WifiManager wifiManager;
+    private WifiItemViewPool viewPool;//预先加载的列表项视图
 
-    private ConnectivityManager connectivityManager;
+    public void setViewPool(WifiItemViewPool viewPool) {
+        this.viewPool = viewPool;
+    }
 
-    public void setWifiManager(WifiManager wifiManager) {
-        this.wifiManager = wifiManager;
+    /**
+     * 提交新的列表快照，提交后不要再修改该列表
+     *
+     * @param snapshot 显示模型列表
+     */
+    public void submitList(List<WifiItem> snapshot) {
+        differ.submitList(snapshot);
     }
 
-    public WifiAdapter(List<ScanResult> lists) {
-        this.lists = lists;
+    /**
+     * 获取当前展示的网络
+     *
+     * @param position 位置
+     */
+    public WifiItem getItem(int position) {
+        return differ.getCurrentList().get(position);
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        ItemWifiRvBinding binding = ItemWifiRvBinding.inflate(LayoutInflater.from(parent.getContext()), parent, false);
+        //优先使用预先加载的视图
+        View view = viewPool == null ? null : viewPool.obtain();
+        ItemWifiRvBinding binding = view != null ? ItemWifiRvBinding.bind(view)
+                : ItemWifiRvBinding.inflate(LayoutInflater.from(parent.getContext()), parent, false);
         ViewHolder viewHolder = new ViewHolder(binding);
         //添加视图点击事件
         binding.getRoot().setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onItemClick(viewHolder.getAdapterPosition());
+            int position = viewHolder.getAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onItemClick(position);
             }
         });
-        connectivityManager = (ConnectivityManager) parent.getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
         return viewHolder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        //Wifi名称
-        String ssid = lists.get(position).SSID;
-        holder.binding.tvWifiName.setText(ssid);
-        //Wifi功能
-        String capabilities = lists.get(position).capabilities;
-        //Wifi状态标识 true：加密，false：开放
-        boolean wifiStateFlag = capabilities.contains("WEP") || capabilities.contains("PSK") || capabilities.contains("EAP");
-        //Wifi状态描述
-        String wifiState = wifiStateFlag ? "加密" : "开放";
-        holder.binding.tvWifiState.setText(wifiState);
-        //信号强度
-        int imgLevel;
-        int level = lists.get(position).level;
-        if (level <= 0 && level >= -50) {
-            imgLevel = 5;
-        } else if (level < -50 && level >= -70) {
-            imgLevel = 4;
-        } else if (level < -70 && level >= -80) {
-            imgLevel = 3;
-        } else if (level < -80 && level >= -100) {
-            imgLevel = 2;
-        } else {
-            imgLevel = 1;
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_LEVEL)) {
+            //只刷新信号强度图标
+            holder.binding.ivSignal.setImageLevel(getItem(position).getLevel());
+            return;
         }
-        //根据是否加密设置不同的图片资源
-        holder.binding.ivSignal.setImageResource(wifiStateFlag ? R.drawable.wifi_lock_level : R.drawable.wifi_level);
-        //设置图片等级
-        holder.binding.ivSignal.setImageLevel(imgLevel);
+        super.onBindViewHolder(holder, position, payloads);
     }
 
-    @SuppressLint("MissingPermission")
-    private WifiConfiguration isExist(String SSID) {
-        List<WifiConfiguration> existingConfigs = wifiManager.getConfiguredNetworks();
-        for (WifiConfiguration existingConfig : existingConfigs) {
-            if (existingConfig.SSID.equals("\"" + SSID + "\"")) {
-                return existingConfig;
-            } else if (existingConfig.SSID.equals(SSID)) {
-                return existingConfig;
-            }
-        }
-        return null;
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        WifiItem item = getItem(position);
+        holder.binding.tvWifiName.setText(item.getLabel());
+        holder.binding.tvWifiState.setText(item.getStateText());
+        //根据是否加密设置不同的图片资源，图片等级使用带滞回的平滑信号等级
+        holder.binding.ivSignal.setImageResource(item.getIconRes());
+        holder.binding.ivSignal.setImageLevel(item.getLevel());
     }
 
     @Override
     public int getItemCount() {
-        return lists.size();
+        return differ.getCurrentList().size();
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
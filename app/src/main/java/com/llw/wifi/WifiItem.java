@@ -0,0 +1,111 @@
+package com.llw.wifi;
+
+import androidx.annotation.DrawableRes;
+
+/**
+ * 列表项的显示模型，在扫描处理线程中创建，绑定时不再做计算
+ */
+public final class WifiItem {
+
+    private final WifiNetwork network;
+
+    private final String label;//Wifi名称
+
+    private final String stateText;//状态描述，如 "加密，已保存"
+
+    @DrawableRes
+    private final int iconRes;//信号图标
+
+    private final int level;//信号图标等级
+
+    private final boolean saved;//是否已保存
+
+    private final String ageText;//距最后一次扫描到的时间，如 "5分钟前"，不足1分钟时为空
+
+    WifiItem(WifiNetwork network, String label, String stateText, @DrawableRes int iconRes, int level, boolean saved, String ageText) {
+        this.network = network;
+        this.label = label;
+        this.stateText = stateText;
+        this.iconRes = iconRes;
+        this.level = level;
+        this.saved = saved;
+        this.ageText = ageText;
+    }
+
+    /**
+     * 创建显示模型
+     *
+     * @param network 网络
+     * @param saved   是否已保存
+     * @param ageText 距最后一次扫描到的时间，见 {@link #formatAge(long)}
+     */
+    public static WifiItem of(WifiNetwork network, boolean saved, String ageText) {
+        boolean secured = network.getSecurity().isSecured();
+        String stateText = secured ? "加密" : "开放";
+        if (saved) {
+            stateText += "，已保存";
+        }
+        if (!ageText.isEmpty()) {
+            stateText += "，" + ageText;
+        }
+        return new WifiItem(network, network.getSsid(), stateText,
+                secured ? R.drawable.wifi_lock_level : R.drawable.wifi_level, network.getSignalBucket(), saved, ageText);
+    }
+
+    /**
+     * 时间描述，只精确到分钟，避免每次刷新都重新绑定
+     *
+     * @param ageMillis 距最后一次扫描到的毫秒数
+     * @return 不足1分钟时返回空字符串
+     */
+    public static String formatAge(long ageMillis) {
+        long minutes = ageMillis / 60_000;
+        if (minutes < 1) {
+            return "";
+        } else if (minutes < 60) {
+            return minutes + "分钟前";
+        } else if (minutes < 24 * 60) {
+            return minutes / 60 + "小时前";
+        }
+        return minutes / (24 * 60) + "天前";
+    }
+
+    public WifiNetwork getNetwork() {
+        return network;
+    }
+
+    public String getKey() {
+        return network.getKey();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getStateText() {
+        return stateText;
+    }
+
+    public int getIconRes() {
+        return iconRes;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isSaved() {
+        return saved;
+    }
+
+    public String getAgeText() {
+        return ageText;
+    }
+
+    /**
+     * 除信号图标等级以外的显示内容是否相同
+     */
+    public boolean sameAppearance(WifiItem other) {
+        return iconRes == other.iconRes && label.equals(other.label) && stateText.equals(other.stateText);
+    }
+}
@@ -0,0 +1,82 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把网络列表转换为显示模型
+ * <p>
+ * 聚合器对没有变化的网络沿用同一个对象，转换时对应的显示模型也沿用上一次的对象，
+ * 差分时可以直接按引用判断内容相同。非线程安全，需要在扫描处理线程中使用。
+ */
+public class WifiItemMapper {
+
+    private final ConfiguredNetworkIndex configuredNetworkIndex;//已保存的Wifi配置索引，可以为null
+
+    private Map<WifiNetwork, WifiItem> previous = new IdentityHashMap<>();
+
+    private final Map<String, Long> seenMillis = new HashMap<>();//BSSID -> 最后一次扫描到的时间
+
+    private boolean showAge;//是否显示扫描时间
+
+    public WifiItemMapper(ConfiguredNetworkIndex configuredNetworkIndex) {
+        this.configuredNetworkIndex = configuredNetworkIndex;
+    }
+
+    /**
+     * 设置之后转换的网络所属的快照，为null时不显示扫描时间
+     * <p>
+     * 聚合器沿用的网络中可能是之前快照的接入点，扫描时间按BSSID从快照中查找。
+     */
+    public void setSnapshot(ScanSnapshot snapshot) {
+        seenMillis.clear();
+        showAge = snapshot != null;
+        if (snapshot != null) {
+            for (WifiScanEntry entry : snapshot.getEntries()) {
+                seenMillis.put(entry.getBssid(), snapshot.getSeenMillis(entry));
+            }
+        }
+    }
+
+    /**
+     * 转换
+     *
+     * @param networks 网络列表
+     * @return 不可修改的显示模型列表
+     */
+    public List<WifiItem> map(List<WifiNetwork> networks) {
+        Map<WifiNetwork, WifiItem> current = new IdentityHashMap<>(networks.size() * 2);
+        List<WifiItem> items = new ArrayList<>(networks.size());
+        long now = System.currentTimeMillis();
+        for (WifiNetwork network : networks) {
+            boolean saved = configuredNetworkIndex != null && configuredNetworkIndex.contains(network.getSsid());
+            String ageText = showAge ? WifiItem.formatAge(now - seenMillisOf(network, now)) : "";
+            WifiItem item = previous.get(network);
+            if (item == null || item.isSaved() != saved || !item.getAgeText().equals(ageText)) {
+                item = WifiItem.of(network, saved, ageText);
+            }
+            current.put(network, item);
+            items.add(item);
+        }
+        previous = current;
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * 网络中任一接入点最后一次被扫描到的时间
+     */
+    private long seenMillisOf(WifiNetwork network, long now) {
+        long seen = Long.MIN_VALUE;
+        for (WifiScanEntry entry : network.getAccessPoints()) {
+            Long time = seenMillis.get(entry.getBssid());
+            if (time != null) {
+                seen = Math.max(seen, time);
+            }
+        }
+        return seen == Long.MIN_VALUE ? now : seen;
+    }
+}
@@ -0,0 +1,69 @@
+package com.llw.wifi;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+
+import java.util.ArrayDeque;
+
+/**
+ * 预先加载的列表项视图
+ * <p>
+ * 在第一次扫描结果到达之前，用 AsyncLayoutInflater 在后台线程加载一屏左右的列表项视图，
+ * 创建 ViewHolder 时优先使用，避免第一次刷新列表时在主线程集中加载布局。只在主线程中使用。
+ */
+public class WifiItemViewPool {
+
+    /**
+     * 默认预先加载的数量，约为一屏的列表项
+     */
+    public static final int DEFAULT_SIZE = 12;
+
+    private final ArrayDeque<View> views = new ArrayDeque<>();
+
+    private int requested;//已请求但还没有加载完成的数量
+
+    private boolean released;
+
+    /**
+     * 预先加载视图
+     *
+     * @param parent 列表，只用于生成布局参数，视图不会添加到列表中
+     * @param count  数量
+     */
+    public void prefetch(@NonNull ViewGroup parent, int count) {
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(parent.getContext());
+        for (int i = views.size() + requested; i < count; i++) {
+            requested++;
+            inflater.inflate(R.layout.item_wifi_rv, parent, (view, resid, p) -> {
+                requested--;
+                if (!released) {
+                    views.add(view);
+                }
+            });
+        }
+    }
+
+    /**
+     * 取出一个预先加载的视图，没有时返回null
+     */
+    @Nullable
+    public View obtain() {
+        return views.poll();
+    }
+
+    public int size() {
+        return views.size();
+    }
+
+    /**
+     * 丢弃剩余的视图，之后加载完成的视图也不再保留
+     */
+    public void release() {
+        released = true;
+        views.clear();
+    }
+}
@@ -0,0 +1,61 @@
+package com.llw.wifi;
+
+import android.annotation.SuppressLint;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从WifiManager读取扫描结果
+ */
+public class WifiScanSource implements ScanSource {
+
+    private final WifiManager wifiManager;//Wifi管理者
+
+    public WifiScanSource(WifiManager wifiManager) {
+        this.wifiManager = wifiManager;
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public List<WifiScanEntry> getScanResults() {
+        List<ScanResult> scanResults = wifiManager.getScanResults();
+        List<WifiScanEntry> entries = new ArrayList<>(scanResults.size());
+        for (ScanResult scanResult : scanResults) {
+            entries.add(toEntry(scanResult));
+        }
+        return entries;
+    }
+
+    /**
+     * 扫描结果转换为平台无关的快照
+     *
+     * @param scanResult 扫描结果
+     */
+    public static WifiScanEntry toEntry(ScanResult scanResult) {
+        return new WifiScanEntry(scanResult.SSID, scanResult.BSSID, scanResult.capabilities,
+                scanResult.frequency, scanResult.level, scanResult.timestamp,
+                toChannelWidth(scanResult.channelWidth), scanResult.centerFreq0);
+    }
+
+    /**
+     * 信道宽度转换为 MHz，80+80MHz 只计算 centerFreq0 所在的80MHz
+     *
+     * @param channelWidth ScanResult.CHANNEL_WIDTH_*
+     */
+    public static int toChannelWidth(int channelWidth) {
+        switch (channelWidth) {
+            case ScanResult.CHANNEL_WIDTH_40MHZ:
+                return 40;
+            case ScanResult.CHANNEL_WIDTH_80MHZ:
+            case ScanResult.CHANNEL_WIDTH_80MHZ_PLUS_MHZ:
+                return 80;
+            case ScanResult.CHANNEL_WIDTH_160MHZ:
+                return 160;
+            default:
+                return 20;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.llw.wifi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 信道占用和拥堵分析
+ * <p>
+ * 按频段分别用以信道号为下标的数组记录每个20MHz信道上的接入点数量和拥堵值。
+ * 拥堵值为所有接入点与该信道重叠的带宽乘以信号权重之和，信号越强权重越大，
+ * 宽信道的接入点按 centerFrequency 和信道宽度计算覆盖的每个信道。
+ * 每次扫描只对新出现、消失或变化的接入点增减对应信道的数值，不重新计算整张表。
+ * 非线程安全，需要在同一个线程中调用。
+ */
+public class ChannelAnalyzer {
+
+    /**
+     * 信号权重上限，信号强度不低于 -30dBm 时取最大值
+     */
+    public static final int MAX_WEIGHT = 70;
+
+    private static final int CHANNEL_MHZ = 20;
+
+    private static final Band[] BANDS = {
+            //2.4GHz 的14信道不符合5MHz间隔，单独换算
+            new Band(WifiBand.BAND_2_4_GHZ, 2407, new int[][]{{1, 13}, {14, 14}}, 1),
+            //包含需要雷达检测的52~144信道
+            new Band(WifiBand.BAND_5_GHZ, 5000, new int[][]{{36, 64}, {100, 144}, {149, 177}}, 4),
+            new Band(WifiBand.BAND_6_GHZ, 5950, new int[][]{{1, 233}}, 4)
+    };
+
+    private static final int[] CHANNELS_2_4_GHZ = {1, 6, 11};//互不重叠的信道
+
+    private final Map<String, AccessPoint> accessPoints = new HashMap<>();//BSSID -> 接入点
+
+    private final int[][] counts = new int[BANDS.length][];//主信道为该信道的接入点数量
+
+    private final int[][] congestion = new int[BANDS.length][];//重叠带宽 × 信号权重之和
+
+    private int generation;
+
+    public ChannelAnalyzer() {
+        for (int i = 0; i < BANDS.length; i++) {
+            counts[i] = new int[BANDS[i].maxChannel + 1];
+            congestion[i] = new int[BANDS[i].maxChannel + 1];
+        }
+    }
+
+    /**
+     * 使用一次扫描的完整结果更新，没有出现的接入点会被移除
+     *
+     * @param entries 扫描结果
+     */
+    public void update(List<WifiScanEntry> entries) {
+        generation++;
+        for (WifiScanEntry entry : entries) {
+            int bandIndex = bandIndexOf(entry.getFrequency());
+            if (bandIndex < 0) {
+                continue;
+            }
+            Band band = BANDS[bandIndex];
+            int channel = band.channelOf(entry.getFrequency());
+            if (channel < 1 || channel > band.maxChannel) {
+                continue;
+            }
+            int half = entry.getChannelWidth() / 2;
+            int center = entry.getCenterFrequency();
+            int weight = weightOf(entry.getSmoothedLevel());
+            AccessPoint ap = accessPoints.get(entry.getBssid());
+            if (ap == null) {
+                ap = new AccessPoint();
+                accessPoints.put(entry.getBssid(), ap);
+            } else if (ap.band == bandIndex && ap.channel == channel && ap.low == center - half
+                    && ap.high == center + half && ap.weight == weight) {
+                ap.generation = generation;
+                continue;
+            } else {
+                apply(ap, -1);
+            }
+            ap.band = bandIndex;
+            ap.channel = channel;
+            ap.low = center - half;
+            ap.high = center + half;
+            ap.weight = weight;
+            ap.generation = generation;
+            apply(ap, 1);
+        }
+        Iterator<AccessPoint> iterator = accessPoints.values().iterator();
+        while (iterator.hasNext()) {
+            AccessPoint ap = iterator.next();
+            if (ap.generation != generation) {
+                apply(ap, -1);
+                iterator.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        accessPoints.clear();
+        for (int i = 0; i < BANDS.length; i++) {
+            Arrays.fill(counts[i], 0);
+            Arrays.fill(congestion[i], 0);
+        }
+    }
+
+    /**
+     * 当前记录的接入点数量
+     */
+    public int getAccessPointCount() {
+        return accessPoints.size();
+    }
+
+    /**
+     * 主信道为该信道的接入点数量
+     *
+     * @param band    频段，见 {@link WifiBand}
+     * @param channel 信道号
+     */
+    public int getOccupancy(int band, int channel) {
+        int index = indexOf(band);
+        return isChannel(index, channel) ? counts[index][channel] : 0;
+    }
+
+    /**
+     * 拥堵值，相当于多少个满信号、完全重叠的接入点
+     *
+     * @param band    频段，见 {@link WifiBand}
+     * @param channel 信道号
+     */
+    public float getCongestion(int band, int channel) {
+        int index = indexOf(band);
+        return isChannel(index, channel) ? congestion[index][channel] / (float) (CHANNEL_MHZ * MAX_WEIGHT) : 0;
+    }
+
+    /**
+     * 推荐的信道
+     * <p>
+     * 宽信道按标准划分的信道块比较块内所有20MHz信道的拥堵值之和；
+     * 2.4GHz 只比较1、6、11信道，忽略信道宽度。拥堵值相同时选择接入点较少、信道号较小的。
+     *
+     * @param band  频段，见 {@link WifiBand}
+     * @param width 信道宽度 MHz，20、40、80或160
+     * @return 信道块中的第一个信道，无法推荐时返回-1
+     */
+    public int getBestChannel(int band, int width) {
+        int index = indexOf(band);
+        if (index < 0 || width < CHANNEL_MHZ || width > 160 || Integer.bitCount(width / CHANNEL_MHZ) != 1) {
+            return -1;
+        }
+        int best = -1;
+        long bestCongestion = Long.MAX_VALUE;
+        long bestCount = Long.MAX_VALUE;
+        if (index == 0) {
+            for (int channel : CHANNELS_2_4_GHZ) {
+                int value = congestion[0][channel];
+                if (value < bestCongestion || value == bestCongestion && counts[0][channel] < bestCount) {
+                    best = channel;
+                    bestCongestion = value;
+                    bestCount = counts[0][channel];
+                }
+            }
+            return best;
+        }
+        Band table = BANDS[index];
+        int blockChannels = width / CHANNEL_MHZ;
+        for (int[] segment : table.segments) {
+            int channels = (segment[1] - segment[0]) / table.step + 1;
+            for (int start = 0; start + blockChannels <= channels; start += blockChannels) {
+                long value = 0;
+                long count = 0;
+                for (int i = 0; i < blockChannels; i++) {
+                    int channel = segment[0] + (start + i) * table.step;
+                    value += congestion[index][channel];
+                    count += counts[index][channel];
+                }
+                if (value < bestCongestion || value == bestCongestion && count < bestCount) {
+                    best = segment[0] + start * table.step;
+                    bestCongestion = value;
+                    bestCount = count;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 频率对应的信道号
+     *
+     * @param frequency 频率 MHz
+     * @return 无法识别时返回-1
+     */
+    public static int channelOf(int frequency) {
+        int index = bandIndexOf(frequency);
+        return index < 0 ? -1 : BANDS[index].channelOf(frequency);
+    }
+
+    /**
+     * 信道号对应的频率
+     *
+     * @param band    频段，见 {@link WifiBand}
+     * @param channel 信道号
+     * @return 无法识别时返回-1
+     */
+    public static int frequencyOf(int band, int channel) {
+        int index = indexOf(band);
+        if (!isChannel(index, channel)) {
+            return -1;
+        }
+        return index == 0 && channel == 14 ? 2484 : BANDS[index].baseFrequency + channel * 5;
+    }
+
+    /**
+     * 宽信道的中心频率，按标准划分的信道块计算
+     *
+     * @param frequency 主信道频率 MHz
+     * @param width     信道宽度 MHz
+     * @return 无法计算时返回主信道频率
+     */
+    public static int centerFrequencyOf(int frequency, int width) {
+        int index = bandIndexOf(frequency);
+        if (index <= 0 || width <= CHANNEL_MHZ) {
+            return frequency;
+        }
+        Band band = BANDS[index];
+        int channel = band.channelOf(frequency);
+        int blockChannels = width / CHANNEL_MHZ;
+        for (int[] segment : band.segments) {
+            if (channel >= segment[0] && channel <= segment[1]) {
+                int position = (channel - segment[0]) / band.step;
+                int first = segment[0] + position / blockChannels * blockChannels * band.step;
+                return band.baseFrequency + first * 5 + (width - CHANNEL_MHZ) / 2;
+            }
+        }
+        return frequency;
+    }
+
+    /**
+     * 信号强度转换为权重，-100dBm 为1，-30dBm 及以上为 {@link #MAX_WEIGHT}
+     */
+    static int weightOf(int level) {
+        return Math.max(1, Math.min(MAX_WEIGHT, level + 100));
+    }
+
+    /**
+     * 增加或减去接入点在覆盖的每个信道上的数值
+     */
+    private void apply(AccessPoint ap, int sign) {
+        Band band = BANDS[ap.band];
+        counts[ap.band][ap.channel] += sign;
+        int[] values = congestion[ap.band];
+        int first = Math.max(1, (ap.low - CHANNEL_MHZ / 2 - band.baseFrequency) / 5);
+        int last = Math.min(band.maxChannel, (ap.high + CHANNEL_MHZ / 2 - band.baseFrequency) / 5 + 1);
+        for (int channel = first; channel <= last; channel++) {
+            if (!band.valid[channel]) {
+                continue;
+            }
+            int frequency = ap.band == 0 && channel == 14 ? 2484 : band.baseFrequency + channel * 5;
+            int overlap = Math.min(ap.high, frequency + CHANNEL_MHZ / 2) - Math.max(ap.low, frequency - CHANNEL_MHZ / 2);
+            if (overlap > 0) {
+                values[channel] += sign * overlap * ap.weight;
+            }
+        }
+    }
+
+    private static int bandIndexOf(int frequency) {
+        return indexOf(WifiBand.of(frequency));
+    }
+
+    private static int indexOf(int band) {
+        switch (band) {
+            case WifiBand.BAND_2_4_GHZ:
+                return 0;
+            case WifiBand.BAND_5_GHZ:
+                return 1;
+            case WifiBand.BAND_6_GHZ:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isChannel(int index, int channel) {
+        return index >= 0 && channel >= 0 && channel <= BANDS[index].maxChannel && BANDS[index].valid[channel];
+    }
+
+    /**
+     * 频段的信道划分
+     */
+    private static final class Band {
+
+        final int band;
+
+        final int baseFrequency;//信道0对应的频率
+
+        final int[][] segments;//连续的信道范围，宽信道块不跨越范围
+
+        final int step;//相邻20MHz信道的信道号间隔
+
+        final int maxChannel;
+
+        final boolean[] valid;//信道号是否为20MHz信道
+
+        Band(int band, int baseFrequency, int[][] segments, int step) {
+            this.band = band;
+            this.baseFrequency = baseFrequency;
+            this.segments = segments;
+            this.step = step;
+            maxChannel = segments[segments.length - 1][1];
+            valid = new boolean[maxChannel + 1];
+            for (int[] segment : segments) {
+                for (int channel = segment[0]; channel <= segment[1]; channel += step) {
+                    valid[channel] = true;
+                }
+            }
+        }
+
+        int channelOf(int frequency) {
+            if (band == WifiBand.BAND_2_4_GHZ && frequency == 2484) {
+                return 14;
+            }
+            return (frequency - baseFrequency) / 5;
+        }
+    }
+
+    /**
+     * 接入点上一次计入的数值
+     */
+    private static final class AccessPoint {
+
+        int band;//频段下标
+
+        int channel;//主信道
+
+        int low;//覆盖的频率范围 MHz
+
+        int high;
+
+        int weight;
+
+        int generation;
+    }
+}
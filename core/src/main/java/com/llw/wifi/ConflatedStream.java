@@ -0,0 +1,216 @@
+package com.llw.wifi;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 合并的数据流
+ * <p>
+ * 保存最新的值，可以有多个订阅者，每个订阅者在自己的线程中接收。
+ * 订阅者处理较慢时不会排队，处理完成后直接拿到最新的值，中间的值被跳过。
+ * 订阅时立即收到当前的值。接收线程已关闭时视为取消订阅。
+ *
+ * @param <T> 值的类型，不能为null
+ */
+public class ConflatedStream<T> {
+
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile T value;
+
+    private ActiveListener activeListener;
+
+    private final Object activeLock = new Object();//串行通知订阅状态
+
+    private int activeGeneration;//订阅状态每次变化时加1
+
+    private int notifiedGeneration;//已通知的状态对应的次数，只在 activeLock 中使用
+
+    private boolean notifiedActive;//已通知的订阅状态，只在 activeLock 中使用
+
+    public ConflatedStream() {
+    }
+
+    /**
+     * @param initial 初始值，可以为null，表示还没有值
+     */
+    public ConflatedStream(T initial) {
+        value = initial;
+    }
+
+    /**
+     * 设置订阅状态监听，用于在有订阅者时才开始获取数据
+     */
+    public synchronized void setActiveListener(ActiveListener activeListener) {
+        this.activeListener = activeListener;
+    }
+
+    /**
+     * 发布新的值，可以在任意线程调用
+     */
+    public void publish(T value) {
+        this.value = Objects.requireNonNull(value, "value");
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer();
+        }
+    }
+
+    /**
+     * 当前的值，还没有值时返回null
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * 订阅
+     *
+     * @param executor 接收值的线程，如主线程，需要保证任务串行执行
+     * @param observer 观察者
+     * @return 订阅，不再需要时关闭
+     */
+    public Subscription subscribe(Executor executor, Observer<? super T> observer) {
+        Subscriber subscriber = new Subscriber(executor, observer);
+        boolean changed;
+        synchronized (this) {
+            subscribers.add(subscriber);
+            changed = subscribers.size() == 1;
+            if (changed) {
+                activeGeneration++;
+            }
+        }
+        if (changed) {
+            notifyActive();
+        }
+        if (value != null) {
+            subscriber.offer();
+        }
+        return subscriber;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        synchronized (this) {
+            if (!subscribers.remove(subscriber) || !subscribers.isEmpty()) {
+                return;
+            }
+            activeGeneration++;
+        }
+        notifyActive();
+    }
+
+    /**
+     * 通知最新的订阅状态
+     * <p>
+     * 订阅和取消可能在不同线程中交错，依次通知可能乱序。这里在 activeLock 中读取最新的状态，
+     * 已经被之后的变化通知过时跳过，保证监听收到的状态交替出现，最后一次与订阅者数量一致。
+     */
+    private void notifyActive() {
+        synchronized (activeLock) {
+            int generation;
+            boolean active;
+            ActiveListener listener;
+            synchronized (this) {
+                generation = activeGeneration;
+                active = !subscribers.isEmpty();
+                listener = activeListener;
+            }
+            if (generation == notifiedGeneration) {
+                return;
+            }
+            notifiedGeneration = generation;
+            if (active == notifiedActive) {
+                return;
+            }
+            notifiedActive = active;
+            if (listener != null) {
+                listener.onActiveChanged(active);
+            }
+        }
+    }
+
+    /**
+     * 单个订阅者，同一时间最多只有一次待执行的分发
+     */
+    private final class Subscriber implements Runnable, Subscription {
+
+        private final Executor executor;
+
+        private final Observer<? super T> observer;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private T delivered;//上一次分发的值，只在分发线程中使用
+
+        Subscriber(Executor executor, Observer<? super T> observer) {
+            this.executor = executor;
+            this.observer = observer;
+        }
+
+        void offer() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    //接收线程已关闭，不再分发
+                    scheduled.set(false);
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            //先清除标记再读取，之后发布的值会再次分发
+            scheduled.set(false);
+            T current = value;
+            if (closed || current == delivered) {
+                return;
+            }
+            delivered = current;
+            observer.onChanged(current);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            unsubscribe(this);
+        }
+    }
+
+    /**
+     * 观察者
+     */
+    public interface Observer<T> {
+
+        void onChanged(T value);
+    }
+
+    /**
+     * 订阅，关闭后不再接收值
+     */
+    public interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * 订阅状态监听
+     */
+    public interface ActiveListener {
+
+        /**
+         * @param active true：有了第一个订阅者，false：最后一个订阅者已取消
+         */
+        void onActiveChanged(boolean active);
+    }
+}
@@ -0,0 +1,293 @@
+package com.llw.wifi;
+
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wifi连接耗时统计
+ * <p>
+ * 按连接方式和阶段分别记录从发起请求到各阶段的耗时，用于比较不同连接方式的耗时分布。
+ */
+public class ConnectionMetrics {
+
+    /**
+     * 连接方式
+     */
+    public enum Path {
+        /**
+         * WifiNetworkSpecifier，Android 10及以上
+         */
+        SPECIFIER,
+        /**
+         * WifiNetworkSuggestion，Android 10及以上
+         */
+        SUGGESTION,
+        /**
+         * WifiConfiguration，Android 10以下
+         */
+        LEGACY
+    }
+
+    /**
+     * 连接阶段，耗时均从发起请求开始计算
+     */
+    public enum Phase {
+        /**
+         * 网络配置构建完成
+         */
+        BUILT,
+        /**
+         * 请求已提交给系统
+         */
+        SUBMITTED,
+        /**
+         * 网络可用
+         */
+        AVAILABLE,
+        /**
+         * 首次收到网络能力变化
+         */
+        CAPABILITIES_CHANGED,
+        /**
+         * 网络通过验证
+         */
+        VALIDATED
+    }
+
+    private static final Path[] PATHS = Path.values();
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PATHS.length * PHASES.length];
+
+    private final AtomicLongArray successes = new AtomicLongArray(PATHS.length);
+
+    private final AtomicLongArray failures = new AtomicLongArray(PATHS.length);
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ConnectionMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 开始一次连接，记录发起请求的时间
+     *
+     * @param path 连接方式
+     * @param ssid 名称
+     */
+    public Attempt begin(Path path, String ssid) {
+        return new Attempt(path, ssid, System.nanoTime());
+    }
+
+    /**
+     * 记录连接阶段，每个阶段只记录第一次
+     *
+     * @param attempt 连接
+     * @param phase   阶段
+     */
+    public void mark(Attempt attempt, Phase phase) {
+        long micros = attempt.mark(phase, System.nanoTime());
+        if (micros < 0) {
+            return;
+        }
+        histogram(attempt.path, phase).record(micros);
+        for (Listener listener : listeners) {
+            listener.onPhase(attempt, phase, micros);
+        }
+    }
+
+    /**
+     * 连接结束
+     *
+     * @param attempt 连接
+     * @param success 是否成功
+     */
+    public void finish(Attempt attempt, boolean success) {
+        if (!attempt.finish()) {
+            return;
+        }
+        (success ? successes : failures).incrementAndGet(attempt.path.ordinal());
+        for (Listener listener : listeners) {
+            listener.onFinished(attempt, success);
+        }
+    }
+
+    /**
+     * 连接被取消，如被新的连接替代或主动断开，计入失败，监听可以通过 {@link Attempt#isCancelled()} 区分
+     */
+    public void cancel(Attempt attempt) {
+        if (!attempt.cancel()) {
+            return;
+        }
+        failures.incrementAndGet(attempt.path.ordinal());
+        for (Listener listener : listeners) {
+            listener.onFinished(attempt, false);
+        }
+    }
+
+    /**
+     * 丢弃一次没有实际发起的连接，不计入成功或失败，也不通知监听
+     */
+    public void discard(Attempt attempt) {
+        attempt.finish();
+    }
+
+    /**
+     * 获取某种连接方式某个阶段的耗时直方图
+     */
+    public LatencyHistogram histogram(Path path, Phase phase) {
+        return histograms[path.ordinal() * PHASES.length + phase.ordinal()];
+    }
+
+    public long getSuccessCount(Path path) {
+        return successes.get(path.ordinal());
+    }
+
+    public long getFailureCount(Path path) {
+        return failures.get(path.ordinal());
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (int i = 0; i < PATHS.length; i++) {
+            successes.set(i, 0);
+            failures.set(i, 0);
+        }
+    }
+
+    /**
+     * 输出各连接方式的耗时统计，单位毫秒
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Path path : PATHS) {
+            long success = getSuccessCount(path);
+            long failure = getFailureCount(path);
+            if (success + failure == 0 && histogram(path, Phase.BUILT).getCount() == 0) {
+                continue;
+            }
+            builder.append(path).append(": success=").append(success).append(" failure=").append(failure).append('\n');
+            for (Phase phase : PHASES) {
+                LatencyHistogram histogram = histogram(path, phase);
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                builder.append(String.format(Locale.US, "  %-20s n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                        phase, histogram.getCount(),
+                        histogram.getMean() / 1000.0,
+                        histogram.getPercentile(50) / 1000.0,
+                        histogram.getPercentile(90) / 1000.0,
+                        histogram.getPercentile(99) / 1000.0,
+                        histogram.getMax() / 1000.0));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 一次连接的各阶段时间
+     */
+    public static final class Attempt {
+
+        private final Path path;
+
+        private final String ssid;
+
+        private final long startNanos;
+
+        private final long[] phaseNanos = new long[PHASES.length];
+
+        private boolean finished;
+
+        private boolean cancelled;
+
+        Attempt(Path path, String ssid, long startNanos) {
+            this.path = path;
+            this.ssid = ssid;
+            this.startNanos = startNanos;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getSsid() {
+            return ssid;
+        }
+
+        /**
+         * 从发起请求到某个阶段的耗时
+         *
+         * @return 耗时 微秒，没有到达该阶段时返回-1
+         */
+        public synchronized long getMicros(Phase phase) {
+            long nanos = phaseNanos[phase.ordinal()];
+            return nanos == 0 ? -1 : (nanos - startNanos) / 1000;
+        }
+
+        private synchronized long mark(Phase phase, long now) {
+            if (phaseNanos[phase.ordinal()] != 0) {
+                return -1;
+            }
+            //保证与未记录的0区分
+            phaseNanos[phase.ordinal()] = Math.max(now, startNanos + 1);
+            return (phaseNanos[phase.ordinal()] - startNanos) / 1000;
+        }
+
+        /**
+         * 是否被取消，而不是连接失败
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized boolean cancel() {
+            if (finished) {
+                return false;
+            }
+            finished = true;
+            cancelled = true;
+            return true;
+        }
+
+        private synchronized boolean finish() {
+            if (finished) {
+                return false;
+            }
+            finished = true;
+            return true;
+        }
+    }
+
+    /**
+     * 连接耗时监听
+     */
+    public interface Listener {
+
+        /**
+         * 到达连接阶段
+         *
+         * @param micros 从发起请求开始的耗时 微秒
+         */
+        void onPhase(Attempt attempt, Phase phase, long micros);
+
+        /**
+         * 连接结束
+         */
+        void onFinished(Attempt attempt, boolean success);
+    }
+}
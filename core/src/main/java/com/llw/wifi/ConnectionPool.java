@@ -0,0 +1,367 @@
+package com.llw.wifi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.SocketFactory;
+
+/**
+ * 绑定到一个网络的长连接池
+ * <p>
+ * 通过网络的 SocketFactory 创建连接，按 host:port 保存空闲连接，下次请求同一地址时复用，省去TCP握手。
+ * 每个地址最多保留 maxIdlePerRoute 个空闲连接，空闲超过 keepAliveMillis 或已被服务端关闭的连接不再复用。
+ * 网络断开时调用 {@link #evictAll()} 或 {@link #close()}，使用中的连接归还时也会被关闭。
+ * <p>
+ * 连接池不解析应用层协议，调用方读完整个响应后才能 {@link Connection#release()}，否则应调用 {@link Connection#close()}。
+ */
+public class ConnectionPool implements Closeable {
+
+    /**
+     * 默认每个地址保留的空闲连接数量
+     */
+    public static final int DEFAULT_MAX_IDLE_PER_ROUTE = 4;
+
+    /**
+     * 默认的空闲连接保留时间
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30_000;
+
+    private static final int CHECK_TIMEOUT_MILLIS = 1;//检查空闲连接时的读取超时
+
+    private final SocketFactory socketFactory;
+
+    private final Resolver resolver;
+
+    private final int maxIdlePerRoute;
+
+    private final long keepAliveNanos;
+
+    private final Map<String, ArrayDeque<Connection>> idle = new HashMap<>();//空闲连接，最近归还的在队首
+
+    private int generation;//每次清空时加1，之前取出的连接归还时关闭
+
+    private boolean closed;
+
+    private long connectCount;//新建的连接数量
+
+    private long reuseCount;//复用的次数
+
+    public ConnectionPool(SocketFactory socketFactory) {
+        this(socketFactory, InetAddress::getAllByName, DEFAULT_MAX_IDLE_PER_ROUTE, DEFAULT_KEEP_ALIVE_MILLIS);
+    }
+
+    /**
+     * @param socketFactory   网络的 SocketFactory
+     * @param resolver        通过网络解析域名
+     * @param maxIdlePerRoute 每个地址保留的空闲连接数量，为0时不复用
+     * @param keepAliveMillis 空闲连接保留时间
+     */
+    public ConnectionPool(SocketFactory socketFactory, Resolver resolver, int maxIdlePerRoute, long keepAliveMillis) {
+        if (maxIdlePerRoute < 0 || keepAliveMillis < 0) {
+            throw new IllegalArgumentException("maxIdlePerRoute and keepAliveMillis must not be negative");
+        }
+        this.socketFactory = socketFactory;
+        this.resolver = resolver;
+        this.maxIdlePerRoute = maxIdlePerRoute;
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMillis);
+    }
+
+    /**
+     * 取出一个到该地址的连接，没有可用的空闲连接时新建
+     *
+     * @param host                 域名或IP
+     * @param port                 端口
+     * @param connectTimeoutMillis 新建连接的超时时间，0表示不限
+     * @throws IOException 连接池已关闭、解析失败或连接失败
+     */
+    public Connection acquire(String host, int port, int connectTimeoutMillis) throws IOException {
+        String route = host + ":" + port;
+        int current;
+        while (true) {
+            Connection connection;
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("connection pool closed");
+                }
+                current = generation;
+                ArrayDeque<Connection> connections = idle.get(route);
+                connection = connections == null ? null : connections.pollFirst();
+                if (connection == null) {
+                    break;
+                }
+                if (connections.isEmpty()) {
+                    idle.remove(route);
+                }
+            }
+            //在锁外检查，最多阻塞 CHECK_TIMEOUT_MILLIS
+            if (System.nanoTime() - connection.idleSince <= keepAliveNanos && isHealthy(connection.socket)) {
+                synchronized (this) {
+                    reuseCount++;
+                }
+                //换一个对象返回，之前的持有者再次归还或关闭时不影响新的使用者
+                return new Connection(this, route, connection.socket, current, true);
+            }
+            closeQuietly(connection.socket);
+        }
+        InetAddress[] addresses = resolver.lookup(host);
+        if (addresses.length == 0) {
+            throw new UnknownHostException("no address for " + host);
+        }
+        Socket socket = socketFactory.createSocket();
+        try {
+            socket.connect(new InetSocketAddress(addresses[0], port), connectTimeoutMillis);
+            socket.setKeepAlive(true);
+            socket.setTcpNoDelay(true);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+        synchronized (this) {
+            connectCount++;
+        }
+        return new Connection(this, route, socket, current, false);
+    }
+
+    /**
+     * 归还连接，连接池已清空或该地址的空闲连接已满时关闭
+     */
+    private void recycle(Connection connection) {
+        synchronized (this) {
+            if (!closed && connection.generation == generation && !connection.socket.isClosed()) {
+                ArrayDeque<Connection> connections = idle.get(connection.route);
+                if (connections == null) {
+                    connections = new ArrayDeque<>();
+                    idle.put(connection.route, connections);
+                }
+                if (connections.size() < maxIdlePerRoute) {
+                    connection.idleSince = System.nanoTime();
+                    connections.addFirst(connection);
+                    return;
+                }
+                if (connections.isEmpty()) {
+                    idle.remove(connection.route);
+                }
+            }
+        }
+        closeQuietly(connection.socket);
+    }
+
+    /**
+     * 关闭所有空闲连接，使用中的连接归还时关闭；之后仍可以取出新的连接
+     */
+    public void evictAll() {
+        List<Connection> evicted = new ArrayList<>();
+        synchronized (this) {
+            generation++;
+            for (ArrayDeque<Connection> connections : idle.values()) {
+                evicted.addAll(connections);
+            }
+            idle.clear();
+        }
+        for (Connection connection : evicted) {
+            closeQuietly(connection.socket);
+        }
+    }
+
+    /**
+     * 关闭超过保留时间的空闲连接
+     *
+     * @return 关闭的数量
+     */
+    public int evictExpired() {
+        List<Connection> evicted = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            Iterator<ArrayDeque<Connection>> routes = idle.values().iterator();
+            while (routes.hasNext()) {
+                ArrayDeque<Connection> connections = routes.next();
+                //队尾是最早归还的
+                while (!connections.isEmpty() && now - connections.peekLast().idleSince > keepAliveNanos) {
+                    evicted.add(connections.pollLast());
+                }
+                if (connections.isEmpty()) {
+                    routes.remove();
+                }
+            }
+        }
+        for (Connection connection : evicted) {
+            closeQuietly(connection.socket);
+        }
+        return evicted.size();
+    }
+
+    /**
+     * 关闭连接池，之后不能再取出连接
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        evictAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 当前空闲连接数量
+     */
+    public synchronized int getIdleCount() {
+        int count = 0;
+        for (ArrayDeque<Connection> connections : idle.values()) {
+            count += connections.size();
+        }
+        return count;
+    }
+
+    /**
+     * 累计新建的连接数量
+     */
+    public synchronized long getConnectCount() {
+        return connectCount;
+    }
+
+    /**
+     * 累计复用空闲连接的次数
+     */
+    public synchronized long getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * 空闲连接是否仍可用：服务端关闭时读到-1，有未读的数据说明上一次响应没有读完，都不能复用
+     */
+    static boolean isHealthy(Socket socket) {
+        if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        try {
+            InputStream in = socket.getInputStream();
+            if (in.available() > 0) {
+                return false;
+            }
+            int timeout = socket.getSoTimeout();
+            socket.setSoTimeout(CHECK_TIMEOUT_MILLIS);
+            try {
+                in.read();
+                return false;
+            } catch (SocketTimeoutException e) {
+                return true;
+            } finally {
+                socket.setSoTimeout(timeout);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 解析域名
+     */
+    public interface Resolver {
+
+        InetAddress[] lookup(String host) throws UnknownHostException;
+    }
+
+    /**
+     * 从连接池取出的连接，使用完后 {@link #release()} 归还或 {@link #close()} 关闭，只有第一次调用生效
+     */
+    public static final class Connection implements Closeable {
+
+        private final ConnectionPool pool;
+
+        private final String route;//host:port
+
+        private final Socket socket;
+
+        private final int generation;//取出时连接池的清空次数
+
+        private long idleSince;//归还时间 纳秒
+
+        private final boolean reused;//是否复用的空闲连接
+
+        private boolean released;
+
+        Connection(ConnectionPool pool, String route, Socket socket, int generation, boolean reused) {
+            this.pool = pool;
+            this.route = route;
+            this.socket = socket;
+            this.generation = generation;
+            this.reused = reused;
+        }
+
+        public Socket getSocket() {
+            return socket;
+        }
+
+        public InputStream getInputStream() throws IOException {
+            return socket.getInputStream();
+        }
+
+        public OutputStream getOutputStream() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        /**
+         * 是否复用了之前的连接，复用的连接可能在发送请求后才发现已被服务端关闭，幂等请求可以重试一次
+         */
+        public boolean isReused() {
+            return reused;
+        }
+
+        /**
+         * 归还到连接池，之后不能再使用
+         */
+        public void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            pool.recycle(this);
+        }
+
+        /**
+         * 关闭连接，不再复用
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            closeQuietly(socket);
+        }
+
+        @Override
+        public String toString() {
+            return route + (reused ? " (reused)" : "");
+        }
+    }
+}
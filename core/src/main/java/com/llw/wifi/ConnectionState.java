@@ -0,0 +1,23 @@
+package com.llw.wifi;
+
+/**
+ * Wifi连接状态
+ */
+public enum ConnectionState {
+    /**
+     * 没有连接请求
+     */
+    IDLE,
+    /**
+     * 正在连接
+     */
+    CONNECTING,
+    /**
+     * 已连接
+     */
+    CONNECTED,
+    /**
+     * 连接失败或超时
+     */
+    FAILED
+}
@@ -0,0 +1,310 @@
+package com.llw.wifi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * 已连接过的网络的凭据
+ * <p>
+ * 按名称和加密类型索引在内存中，第一次访问时才读取文件。文件内容使用 AES-GCM 加密，
+ * 密钥由 {@link KeyProvider} 提供，Android 上保存在系统密钥库中。
+ * 修改后在后台批量写入，连续的修改只写入一次；先写临时文件再重命名替换。
+ * 文件无法解密时（如密钥被清除）视为没有凭据，下次写入时覆盖。
+ */
+public class CredentialVault {
+
+    private static final int MAGIC = 0x57435631;//WCV1
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private final File file;
+
+    private final KeyProvider keyProvider;
+
+    private final Executor executor;//执行批量写入
+
+    private final Map<String, WifiCredential> credentials = new LinkedHashMap<>();//网络标识 -> 凭据
+
+    private final SecureRandom random = new SecureRandom();
+
+    private boolean loaded;
+
+    private boolean writeScheduled;//已提交写入但还没有开始
+
+    private long version;//修改次数
+
+    private final Object writeLock = new Object();
+
+    private long writtenVersion = -1;//已写入文件的版本，只在持有 writeLock 时访问
+
+    private volatile ErrorListener errorListener;
+
+    /**
+     * @param file        存储文件，所在目录不存在时自动创建
+     * @param keyProvider 加密密钥
+     * @param executor    执行批量写入
+     */
+    public CredentialVault(File file, KeyProvider keyProvider, Executor executor) {
+        this.file = file;
+        this.keyProvider = keyProvider;
+        this.executor = executor;
+    }
+
+    /**
+     * 设置读取或后台写入失败的监听
+     */
+    public void setErrorListener(ErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * 读取文件，第一次访问时会自动读取，可以提前在后台线程调用
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            byte[] data = readFile();
+            credentials.putAll(decode(decrypt(data)));
+        } catch (IOException | GeneralSecurityException e) {
+            credentials.clear();
+            notifyError(e);
+        }
+    }
+
+    /**
+     * 查找凭据
+     *
+     * @param ssid     名称
+     * @param security 加密类型
+     * @return 没有时返回null
+     */
+    public synchronized WifiCredential get(String ssid, WifiSecurity security) {
+        load();
+        return credentials.get(NetworkAggregator.keyOf(ssid, security));
+    }
+
+    /**
+     * 保存凭据，名称和加密类型相同时替换
+     */
+    public synchronized void put(WifiCredential credential) {
+        load();
+        WifiCredential previous = credentials.put(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()), credential);
+        if (!credential.equals(previous)) {
+            version++;
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * 删除凭据
+     *
+     * @return 是否存在
+     */
+    public synchronized boolean remove(String ssid, WifiSecurity security) {
+        load();
+        if (credentials.remove(NetworkAggregator.keyOf(ssid, security)) == null) {
+            return false;
+        }
+        version++;
+        scheduleWrite();
+        return true;
+    }
+
+    /**
+     * 所有凭据，按保存顺序
+     */
+    public synchronized List<WifiCredential> getAll() {
+        load();
+        return Collections.unmodifiableList(new ArrayList<>(credentials.values()));
+    }
+
+    public synchronized int size() {
+        load();
+        return credentials.size();
+    }
+
+    /**
+     * 立即写入
+     */
+    public void flush() throws IOException, GeneralSecurityException {
+        byte[] data;
+        long snapshotVersion;
+        synchronized (this) {
+            load();
+            writeScheduled = false;
+            snapshotVersion = version;
+            data = encrypt(encode(credentials.values()));
+        }
+        write(data, snapshotVersion);
+    }
+
+    private void scheduleWrite() {
+        if (writeScheduled) {
+            return;
+        }
+        writeScheduled = true;
+        executor.execute(() -> {
+            try {
+                flush();
+            } catch (IOException | GeneralSecurityException e) {
+                notifyError(e);
+            }
+        });
+    }
+
+    /**
+     * 同时只有一个写入，避免临时文件被交替写入；较旧的版本不覆盖较新的版本。写入时不阻塞读取
+     */
+    private void write(byte[] data, long snapshotVersion) throws IOException {
+        synchronized (writeLock) {
+            if (snapshotVersion <= writtenVersion) {
+                return;
+            }
+            writeFile(data);
+            writtenVersion = snapshotVersion;
+        }
+    }
+
+    private void writeFile(byte[] data) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录 " + directory);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        //同一文件系统内重命名是原子的
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("无法替换凭据文件 " + file);
+        }
+    }
+
+    private byte[] readFile() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("凭据文件过大 " + file);
+            }
+            byte[] data = new byte[(int) length];
+            raf.readFully(data);
+            return data;
+        }
+    }
+
+    /**
+     * 标识(4) IV(12) 密文和认证标签，标识同时作为附加认证数据
+     */
+    private byte[] encrypt(byte[] plain) throws IOException, GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, keyProvider.getKey(), new GCMParameterSpec(TAG_BITS, iv));
+        byte[] header = ByteBuffer.allocate(4).putInt(MAGIC).array();
+        cipher.updateAAD(header);
+        byte[] encrypted = cipher.doFinal(plain);
+        return ByteBuffer.allocate(header.length + IV_LENGTH + encrypted.length)
+                .put(header).put(iv).put(encrypted).array();
+    }
+
+    private byte[] decrypt(byte[] data) throws IOException, GeneralSecurityException {
+        if (data.length < 4 + IV_LENGTH + TAG_BITS / 8 || ByteBuffer.wrap(data).getInt() != MAGIC) {
+            throw new IOException("凭据文件格式错误");
+        }
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, keyProvider.getKey(), new GCMParameterSpec(TAG_BITS, data, 4, IV_LENGTH));
+        cipher.updateAAD(data, 0, 4);
+        return cipher.doFinal(data, 4 + IV_LENGTH, data.length - 4 - IV_LENGTH);
+    }
+
+    private static byte[] encode(Iterable<WifiCredential> credentials) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<WifiCredential> list = new ArrayList<>();
+        credentials.forEach(list::add);
+        out.writeInt(list.size());
+        for (WifiCredential credential : list) {
+            out.writeUTF(credential.getSsid());
+            out.writeUTF(credential.getSecurity().name());
+            out.writeUTF(credential.getPassphrase());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, WifiCredential> decode(byte[] plain) throws IOException {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+            int count = in.readInt();
+            Map<String, WifiCredential> result = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                WifiCredential credential = new WifiCredential(in.readUTF(), WifiSecurity.valueOf(in.readUTF()), in.readUTF());
+                result.put(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()), credential);
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("凭据文件内容错误", e);
+        } finally {
+            //明文不再保留
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    private void notifyError(Exception e) {
+        ErrorListener listener = errorListener;
+        if (listener != null) {
+            listener.onError(e);
+        }
+    }
+
+    /**
+     * 加密密钥来源
+     */
+    public interface KeyProvider {
+
+        /**
+         * 获取 AES 密钥，不存在时创建，之后每次返回同一个密钥
+         */
+        SecretKey getKey() throws GeneralSecurityException, IOException;
+    }
+
+    /**
+     * 读取或后台写入失败回调
+     */
+    public interface ErrorListener {
+
+        void onError(Exception e);
+    }
+}
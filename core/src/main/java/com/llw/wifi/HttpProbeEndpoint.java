@@ -0,0 +1,100 @@
+package com.llw.wifi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP测速地址
+ * <p>
+ * 通过网络的 SocketFactory 发送一次 GET 请求，首字节耗时包含建立连接的时间，
+ * 下载速率按首字节之后读到的字节数计算，最多读取 maxBytes。只接受 2xx 响应，
+ * 认证页面的重定向会被当作测速失败。
+ */
+public class HttpProbeEndpoint implements ProbeEndpoint {
+
+    /**
+     * 默认最多下载的字节数
+     */
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+    private final String host;
+
+    private final int port;
+
+    private final String path;
+
+    private final int maxBytes;
+
+    public HttpProbeEndpoint(String host, int port, String path) {
+        this(host, port, path, DEFAULT_MAX_BYTES);
+    }
+
+    public HttpProbeEndpoint(String host, int port, String path, int maxBytes) {
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Measurement measure(ProbeEngine.Link link, int timeoutMillis) throws IOException {
+        long start = System.nanoTime();
+        InetAddress[] addresses = link.lookup(host);
+        if (addresses.length == 0) {
+            throw new IOException("no address for " + host);
+        }
+        try (Socket socket = link.getSocketFactory().createSocket()) {
+            socket.connect(new InetSocketAddress(addresses[0], port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + path + " HTTP/1.1\r\n"
+                    + "Host: " + host + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            int first = in.read();
+            if (first < 0) {
+                throw new IOException("empty response");
+            }
+            long firstByte = System.nanoTime();
+            byte[] buffer = new byte[8192];
+            buffer[0] = (byte) first;
+            int length = 1;
+            long bytes = 1;
+            int read;
+            //读取状态行
+            while (length < 16 && (read = in.read(buffer, length, 16 - length)) > 0) {
+                length += read;
+                bytes += read;
+            }
+            checkStatus(new String(buffer, 0, length, StandardCharsets.US_ASCII));
+            while (bytes < maxBytes && (read = in.read(buffer, 0, (int) Math.min(buffer.length, maxBytes - bytes))) > 0) {
+                bytes += read;
+            }
+            long end = System.nanoTime();
+            return new Measurement(TimeUnit.NANOSECONDS.toMillis(firstByte - start), bytes,
+                    TimeUnit.NANOSECONDS.toMillis(end - firstByte));
+        }
+    }
+
+    /**
+     * 检查状态行，如 "HTTP/1.1 204 No"
+     */
+    static void checkStatus(String head) throws IOException {
+        int space = head.indexOf(' ');
+        if (!head.startsWith("HTTP/") || space < 0 || space + 1 >= head.length() || head.charAt(space + 1) != '2') {
+            throw new IOException("unexpected response: " + head.trim());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "http://" + host + ":" + port + path;
+    }
+}
@@ -0,0 +1,291 @@
+package com.llw.wifi;
+
+/**
+ * 已连接网络的链路质量记录
+ * <p>
+ * 链路带宽、信号强度和验证状态的采样保存在固定大小的基本类型环形数组中，写满后覆盖最早的采样。
+ * 记录采样和计算分位数都不分配对象，可以在网络回调中频繁调用。
+ * 已验证的网络失去验证、信号降到 {@link #WEAK_RSSI} 以下或下行带宽比上一次采样减少一半以上时记为一次掉线事件，
+ * 网络断开通过 {@link #recordLost(long)} 单独记录。通过 WifiNetworkSpecifier 连接的网络不会被验证，只能通过后两种规则和断开判断。
+ */
+public class LinkQualityMonitor {
+
+    /**
+     * 默认保留的采样数量
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * 信号强度未知，与 NetworkCapabilities.SIGNAL_STRENGTH_UNSPECIFIED 相同
+     */
+    public static final int UNKNOWN_RSSI = Integer.MIN_VALUE;
+
+    /**
+     * 信号从不低于该值降到该值以下时记为掉线事件
+     */
+    public static final int WEAK_RSSI = -80;
+
+    static final int MIN_DROP_KBPS = 1_000;//上一次下行带宽低于该值时不判断带宽掉线
+
+    /**
+     * 掉线原因
+     */
+    public enum DropReason {
+        /**
+         * 之前已验证的网络不再能访问互联网
+         */
+        VALIDATION_LOST,
+        /**
+         * 信号变弱
+         */
+        WEAK_SIGNAL,
+        /**
+         * 下行带宽减少一半以上
+         */
+        BANDWIDTH,
+        /**
+         * 网络断开
+         */
+        LOST
+    }
+
+    private final long[] times;//采样时间 毫秒
+
+    private final int[] downstream;//下行带宽 kbps，未知时为0
+
+    private final int[] upstream;//上行带宽 kbps，未知时为0
+
+    private final int[] rssi;
+
+    private final boolean[] validated;
+
+    private final int[] scratch;//计算分位数时复制带宽
+
+    private int head;//下一个写入位置
+
+    private int size;
+
+    private long sampleCount;//累计采样数量，包括已覆盖的
+
+    private int dropCount;
+
+    private long lastDropMillis = -1;
+
+    private volatile Listener listener;
+
+    public LinkQualityMonitor() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 保留的采样数量
+     */
+    public LinkQualityMonitor(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        times = new long[capacity];
+        downstream = new int[capacity];
+        upstream = new int[capacity];
+        rssi = new int[capacity];
+        validated = new boolean[capacity];
+        scratch = new int[capacity];
+    }
+
+    /**
+     * 设置掉线事件监听，在记录采样的线程中回调
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 记录一次采样
+     *
+     * @param timeMillis     采样时间
+     * @param downstreamKbps 下行带宽，未知时为0
+     * @param upstreamKbps   上行带宽，未知时为0
+     * @param rssi           信号强度，未知时为 {@link #UNKNOWN_RSSI}
+     * @param validated      是否已验证可以访问互联网
+     */
+    public void record(long timeMillis, int downstreamKbps, int upstreamKbps, int rssi, boolean validated) {
+        DropReason reason = null;
+        synchronized (this) {
+            if (size > 0) {
+                int last = (head - 1 + times.length) % times.length;
+                if (this.validated[last] && !validated) {
+                    reason = DropReason.VALIDATION_LOST;
+                } else if (this.rssi[last] != UNKNOWN_RSSI && rssi != UNKNOWN_RSSI
+                        && this.rssi[last] >= WEAK_RSSI && rssi < WEAK_RSSI) {
+                    reason = DropReason.WEAK_SIGNAL;
+                } else if (downstream[last] >= MIN_DROP_KBPS && downstreamKbps > 0 && downstreamKbps * 2 < downstream[last]) {
+                    reason = DropReason.BANDWIDTH;
+                }
+            }
+            times[head] = timeMillis;
+            downstream[head] = Math.max(0, downstreamKbps);
+            upstream[head] = Math.max(0, upstreamKbps);
+            this.rssi[head] = rssi;
+            this.validated[head] = validated;
+            head = (head + 1) % times.length;
+            size = Math.min(size + 1, times.length);
+            sampleCount++;
+            if (reason != null) {
+                dropCount++;
+                lastDropMillis = timeMillis;
+            }
+        }
+        Listener listener = this.listener;
+        if (reason != null && listener != null) {
+            listener.onDrop(reason, timeMillis);
+        }
+    }
+
+    /**
+     * 记录网络断开，计为一次 {@link DropReason#LOST} 掉线事件，不添加采样
+     *
+     * @param timeMillis 断开时间
+     */
+    public void recordLost(long timeMillis) {
+        synchronized (this) {
+            dropCount++;
+            lastDropMillis = timeMillis;
+        }
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onDrop(DropReason.LOST, timeMillis);
+        }
+    }
+
+    /**
+     * 清空采样和统计，用于连接到新的网络
+     */
+    public synchronized void reset() {
+        head = 0;
+        size = 0;
+        sampleCount = 0;
+        dropCount = 0;
+        lastDropMillis = -1;
+    }
+
+    /**
+     * 当前保留的采样数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 累计采样数量，包括已被覆盖的
+     */
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized int getDropCount() {
+        return dropCount;
+    }
+
+    /**
+     * 最近一次掉线事件的时间，没有时返回-1
+     */
+    public synchronized long getLastDropMillis() {
+        return lastDropMillis;
+    }
+
+    /**
+     * 最近一次采样的信号强度，没有采样时返回 {@link #UNKNOWN_RSSI}
+     */
+    public synchronized int getLatestRssi() {
+        return size == 0 ? UNKNOWN_RSSI : rssi[(head - 1 + times.length) % times.length];
+    }
+
+    /**
+     * 最近一次采样是否已验证
+     */
+    public synchronized boolean isValidated() {
+        return size > 0 && validated[(head - 1 + times.length) % times.length];
+    }
+
+    /**
+     * 保留的采样中下行带宽的分位数，忽略未知的采样
+     *
+     * @param percent 百分位，1~100
+     * @return kbps，没有已知的采样时返回-1
+     */
+    public synchronized int getDownstreamPercentile(int percent) {
+        return percentile(downstream, percent);
+    }
+
+    /**
+     * 保留的采样中上行带宽的分位数，忽略未知的采样
+     *
+     * @param percent 百分位，1~100
+     * @return kbps，没有已知的采样时返回-1
+     */
+    public synchronized int getUpstreamPercentile(int percent) {
+        return percentile(upstream, percent);
+    }
+
+    /**
+     * 按最近排名法计算，在复用的数组中堆排序；Arrays.sort 遇到部分有序的数据时会分配合并用的数组
+     */
+    private int percentile(int[] values, int percent) {
+        if (percent < 1 || percent > 100) {
+            throw new IllegalArgumentException("percent must be in 1..100");
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (values[i] > 0) {
+                scratch[count++] = values[i];
+            }
+        }
+        if (count == 0) {
+            return -1;
+        }
+        heapSort(scratch, count);
+        return scratch[(count * percent + 99) / 100 - 1];
+    }
+
+    /**
+     * 原地升序排序前 count 个元素
+     */
+    static void heapSort(int[] values, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(values, i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            int top = values[0];
+            values[0] = values[end];
+            values[end] = top;
+            siftDown(values, 0, end);
+        }
+    }
+
+    private static void siftDown(int[] values, int index, int count) {
+        int value = values[index];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= count) {
+                break;
+            }
+            if (child + 1 < count && values[child + 1] > values[child]) {
+                child++;
+            }
+            if (values[child] <= value) {
+                break;
+            }
+            values[index] = values[child];
+            index = child;
+        }
+        values[index] = value;
+    }
+
+    /**
+     * 掉线事件监听
+     */
+    public interface Listener {
+
+        void onDrop(DropReason reason, long timeMillis);
+    }
+}
@@ -0,0 +1,62 @@
+package com.llw.wifi;
+
+/**
+ * MAC地址与long互相转换，便于用基本类型存储和索引BSSID
+ */
+public final class MacAddresses {
+
+    /**
+     * 无法解析的地址
+     */
+    public static final long INVALID = -1;
+
+    private MacAddresses() {
+    }
+
+    /**
+     * 解析形如 02:00:00:aa:bb:cc 的地址
+     *
+     * @param mac 地址
+     * @return 48位地址，格式错误时返回 {@link #INVALID}
+     */
+    public static long toLong(String mac) {
+        if (mac == null || mac.length() != 17) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = mac.charAt(i);
+            if (i % 3 == 2) {
+                if (c != ':' && c != '-') {
+                    return INVALID;
+                }
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                return INVALID;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * 格式化为小写的冒号分隔地址
+     *
+     * @param value 48位地址
+     */
+    public static String toString(long value) {
+        char[] chars = new char[17];
+        for (int i = 5; i >= 0; i--) {
+            int b = (int) (value >>> (i * 8)) & 0xff;
+            int offset = (5 - i) * 3;
+            chars[offset] = Character.forDigit(b >>> 4, 16);
+            chars[offset + 1] = Character.forDigit(b & 0xf, 16);
+            if (i > 0) {
+                chars[offset + 2] = ':';
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,219 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网络聚合器
+ * <p>
+ * 将名称和加密类型相同的接入点聚合为一个 {@link WifiNetwork}。每次扫描只重建发生变化的网络，
+ * 未变化的网络沿用上一次的对象。非线程安全，需要在同一个线程中调用。
+ */
+public class NetworkAggregator {
+
+    /**
+     * 按信号强度从强到弱排序，强度相同时按名称排序
+     */
+    static final Comparator<WifiNetwork> LEVEL_COMPARATOR = (lhs, rhs) -> {
+        int result = Integer.compare(rhs.getLevel(), lhs.getLevel());
+        return result != 0 ? result : lhs.getSsid().compareTo(rhs.getSsid());
+    };
+
+    private final Map<String, Member> members = new HashMap<>();//BSSID -> 接入点
+
+    private final Map<String, Group> groups = new HashMap<>();//聚合标识 -> 网络
+
+    private final List<Group> dirtyGroups = new ArrayList<>();
+
+    private List<WifiNetwork> networks = Collections.emptyList();
+
+    private int generation;
+
+    /**
+     * 合并一次完整的扫描结果，本次扫描中没有出现的接入点会被移除
+     *
+     * @param scan 扫描结果
+     * @return 按信号强度排序的网络列表，不可修改
+     */
+    public List<WifiNetwork> update(List<WifiScanEntry> scan) {
+        int generation = ++this.generation;
+        for (WifiScanEntry entry : scan) {
+            if (entry.getSsid().isEmpty()) {
+                continue;
+            }
+            Member member = members.get(entry.getBssid());
+            if (member == null) {
+                member = new Member(entry);
+                members.put(entry.getBssid(), member);
+                join(member, groupOf(entry));
+            } else if (member.generation == generation) {
+                //同一次扫描中重复的BSSID只保留信号最强的结果
+                if (entry.getLevel() <= member.entry.getLevel()) {
+                    continue;
+                }
+                replace(member, entry);
+            } else {
+                replace(member, entry);
+            }
+            member.generation = generation;
+        }
+        //移除本次扫描没有出现的接入点
+        Iterator<Member> iterator = members.values().iterator();
+        while (iterator.hasNext()) {
+            Member member = iterator.next();
+            if (member.generation != generation) {
+                leave(member);
+                iterator.remove();
+            }
+        }
+        if (!dirtyGroups.isEmpty()) {
+            for (Group group : dirtyGroups) {
+                group.dirty = false;
+                if (group.members.isEmpty()) {
+                    groups.remove(group.key);
+                } else {
+                    group.rebuild();
+                }
+            }
+            dirtyGroups.clear();
+            List<WifiNetwork> list = new ArrayList<>(groups.size());
+            for (Group group : groups.values()) {
+                list.add(group.network);
+            }
+            list.sort(LEVEL_COMPARATOR);
+            networks = Collections.unmodifiableList(list);
+        }
+        return networks;
+    }
+
+    /**
+     * 当前的网络列表
+     */
+    public List<WifiNetwork> getNetworks() {
+        return networks;
+    }
+
+    /**
+     * 当前记录的接入点数量
+     */
+    public int getAccessPointCount() {
+        return members.size();
+    }
+
+    public void clear() {
+        members.clear();
+        groups.clear();
+        dirtyGroups.clear();
+        networks = Collections.emptyList();
+    }
+
+    /**
+     * 更新接入点，只有名称、加密类型、信号强度或频率变化时才需要重建所属网络
+     */
+    private void replace(Member member, WifiScanEntry entry) {
+        WifiScanEntry previous = member.entry;
+        member.entry = entry;
+        if (!previous.getSsid().equals(entry.getSsid()) || previous.getSecurity() != entry.getSecurity()) {
+            Group group = groupOf(entry);
+            if (group != member.group) {
+                leave(member);
+                join(member, group);
+                return;
+            }
+        }
+        if (previous.getSmoothedLevel() != entry.getSmoothedLevel()
+                || previous.getSignalBucket() != entry.getSignalBucket()
+                || previous.getFrequency() != entry.getFrequency()) {
+            markDirty(member.group);
+        }
+    }
+
+    private void join(Member member, Group group) {
+        member.group = group;
+        group.members.add(member);
+        markDirty(group);
+    }
+
+    private void leave(Member member) {
+        member.group.members.remove(member);
+        markDirty(member.group);
+    }
+
+    private void markDirty(Group group) {
+        if (!group.dirty) {
+            group.dirty = true;
+            dirtyGroups.add(group);
+        }
+    }
+
+    private Group groupOf(WifiScanEntry entry) {
+        WifiSecurity security = entry.getSecurity();
+        String key = keyOf(entry.getSsid(), security);
+        Group group = groups.get(key);
+        if (group == null) {
+            group = new Group(key, entry.getSsid(), security);
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    /**
+     * 生成聚合标识
+     *
+     * @param ssid     名称
+     * @param security 加密类型
+     */
+    public static String keyOf(String ssid, WifiSecurity security) {
+        return security.name() + ':' + ssid;
+    }
+
+    private static final class Member {
+
+        WifiScanEntry entry;
+
+        Group group;
+
+        int generation;
+
+        Member(WifiScanEntry entry) {
+            this.entry = entry;
+        }
+    }
+
+    private static final class Group {
+
+        final String key;
+
+        final String ssid;
+
+        final WifiSecurity security;
+
+        final List<Member> members = new ArrayList<>(2);
+
+        WifiNetwork network;
+
+        boolean dirty;
+
+        Group(String key, String ssid, WifiSecurity security) {
+            this.key = key;
+            this.ssid = ssid;
+            this.security = security;
+        }
+
+        void rebuild() {
+            List<WifiScanEntry> accessPoints = new ArrayList<>(members.size());
+            int bands = 0;
+            for (Member member : members) {
+                accessPoints.add(member.entry);
+                bands |= WifiBand.of(member.entry.getFrequency());
+            }
+            accessPoints.sort(ScanProcessor.LEVEL_COMPARATOR);
+            network = new WifiNetwork(key, ssid, security, Collections.unmodifiableList(accessPoints), bands);
+        }
+    }
+}
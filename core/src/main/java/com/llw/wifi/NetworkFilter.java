@@ -0,0 +1,129 @@
+package com.llw.wifi;
+
+import java.util.Locale;
+
+/**
+ * 网络过滤条件，不可变
+ * <p>
+ * 名称匹配不区分大小写，可以只匹配开头或匹配任意位置；加密方式和频段为空时不限制。
+ */
+public final class NetworkFilter {
+
+    /**
+     * 不过滤
+     */
+    public static final NetworkFilter ALL = new NetworkFilter("", false, 0, 0, Integer.MIN_VALUE);
+
+    private final String text;//小写的名称关键字
+
+    private final boolean prefixOnly;//是否只匹配名称开头
+
+    private final int securityMask;//按 WifiSecurity 序号的位掩码，0为不限制
+
+    private final int bandMask;//WifiBand 位掩码，0为不限制
+
+    private final int minLevel;//最低信号强度 dBm
+
+    private NetworkFilter(String text, boolean prefixOnly, int securityMask, int bandMask, int minLevel) {
+        this.text = text;
+        this.prefixOnly = prefixOnly;
+        this.securityMask = securityMask;
+        this.bandMask = bandMask;
+        this.minLevel = minLevel;
+    }
+
+    /**
+     * @param text       名称关键字
+     * @param prefixOnly 是否只匹配名称开头
+     */
+    public NetworkFilter withText(String text, boolean prefixOnly) {
+        return new NetworkFilter(text == null ? "" : text.trim().toLowerCase(Locale.ROOT), prefixOnly, securityMask, bandMask, minLevel);
+    }
+
+    /**
+     * @param securities 允许的加密方式，为空时不限制
+     */
+    public NetworkFilter withSecurities(WifiSecurity... securities) {
+        int mask = 0;
+        for (WifiSecurity security : securities) {
+            mask |= 1 << security.ordinal();
+        }
+        return new NetworkFilter(text, prefixOnly, mask, bandMask, minLevel);
+    }
+
+    /**
+     * @param bandMask 允许的频段，WifiBand 位掩码，0为不限制
+     */
+    public NetworkFilter withBands(int bandMask) {
+        return new NetworkFilter(text, prefixOnly, securityMask, bandMask, minLevel);
+    }
+
+    /**
+     * @param minLevel 最低信号强度 dBm，按平滑后的强度比较
+     */
+    public NetworkFilter withMinLevel(int minLevel) {
+        return new NetworkFilter(text, prefixOnly, securityMask, bandMask, minLevel);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isPrefixOnly() {
+        return prefixOnly;
+    }
+
+    public int getBandMask() {
+        return bandMask;
+    }
+
+    public int getMinLevel() {
+        return minLevel;
+    }
+
+    public boolean allows(WifiSecurity security) {
+        return securityMask == 0 || (securityMask & (1 << security.ordinal())) != 0;
+    }
+
+    /**
+     * 除名称以外的条件是否满足
+     */
+    boolean matchesAttributes(WifiNetwork network) {
+        return network.getLevel() >= minLevel
+                && allows(network.getSecurity())
+                && (bandMask == 0 || (network.getBands() & bandMask) != 0);
+    }
+
+    /**
+     * 逐个比较名称，用于没有索引的场景
+     */
+    public boolean matches(WifiNetwork network) {
+        if (!matchesAttributes(network)) {
+            return false;
+        }
+        if (text.isEmpty()) {
+            return true;
+        }
+        String ssid = network.getSsid().toLowerCase(Locale.ROOT);
+        return prefixOnly ? ssid.startsWith(text) : ssid.contains(text);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NetworkFilter)) return false;
+        NetworkFilter that = (NetworkFilter) o;
+        return prefixOnly == that.prefixOnly && securityMask == that.securityMask && bandMask == that.bandMask
+                && minLevel == that.minLevel && text.equals(that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = text.hashCode();
+        result = 31 * result + (prefixOnly ? 1 : 0);
+        result = 31 * result + securityMask;
+        result = 31 * result + bandMask;
+        result = 31 * result + minLevel;
+        return result;
+    }
+}
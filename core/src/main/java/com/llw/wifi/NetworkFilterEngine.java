@@ -0,0 +1,348 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 网络过滤
+ * <p>
+ * 名称在字典中只保存一份小写形式，字典的所有后缀按字典序排列成索引，
+ * 关键字匹配时二分查找以关键字开头的后缀区间，不需要逐个比较名称。
+ * 新的扫描结果只把新出现的名称合并进索引；输入关键字时在上一次的区间内继续查找。
+ * 消失的名称过多时重建字典和索引。
+ * <p>
+ * 非线程安全，需要在同一个线程中使用。
+ */
+public class NetworkFilterEngine {
+
+    /**
+     * 失效的名称数量超过此值且多于有效名称时重建索引
+     */
+    static final int COMPACT_THRESHOLD = 1024;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();//原始名称 -> 名称序号
+
+    private String[] names = new String[64];//名称序号 -> 小写名称
+
+    private int[] nameSeen = new int[64];//名称最近一次出现的快照代数
+
+    private int nameCount;
+
+    private long[] suffixes = new long[0];//后缀索引，高32位为名称序号，低32位为起始位置
+
+    private int suffixIndexed;//已经加入索引的名称数量
+
+    private int indexVersion;
+
+    private List<WifiNetwork> networks = Collections.emptyList();
+
+    private int[] networkNames = new int[0];//网络 -> 名称序号
+
+    private int[] nextSameName = new int[0];//相同名称的下一个网络，-1结束
+
+    private int[] nameHead = new int[64];//名称 -> 第一个网络
+
+    private int generation;
+
+    private NetworkFilter filter = NetworkFilter.ALL;
+
+    private List<WifiNetwork> results = Collections.emptyList();
+
+    private boolean dirty;
+
+    private String lastText = "";//上一次查找的关键字
+
+    private int lastFrom;
+
+    private int lastTo;
+
+    private int lastVersion = -1;
+
+    /**
+     * 更新网络列表，结果保持列表的顺序
+     *
+     * @param networks 聚合后的网络列表
+     */
+    public void setNetworks(List<WifiNetwork> networks) {
+        generation++;
+        this.networks = networks;
+        int size = networks.size();
+        if (networkNames.length < size) {
+            networkNames = new int[Math.max(size, networkNames.length * 2)];
+            nextSameName = new int[networkNames.length];
+        }
+        for (int i = 0; i < size; i++) {
+            networkNames[i] = intern(networks.get(i).getSsid());
+        }
+        int live = live();
+        if (nameCount - live > COMPACT_THRESHOLD && nameCount - live > live) {
+            compact(size, live);
+        }
+        if (nameHead.length < nameCount) {
+            nameHead = new int[names.length];
+        }
+        Arrays.fill(nameHead, 0, nameCount, -1);
+        //倒序插入，链表按列表顺序排列
+        for (int i = size - 1; i >= 0; i--) {
+            int id = networkNames[i];
+            nextSameName[i] = nameHead[id];
+            nameHead[id] = i;
+        }
+        mergeNewNames();
+        dirty = true;
+    }
+
+    /**
+     * 更新过滤条件
+     */
+    public void setFilter(NetworkFilter filter) {
+        if (!filter.equals(this.filter)) {
+            this.filter = filter;
+            dirty = true;
+        }
+    }
+
+    public NetworkFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * 过滤后的网络，条件和列表都没有变化时返回同一个对象
+     */
+    public List<WifiNetwork> getResults() {
+        if (dirty) {
+            results = compute();
+            dirty = false;
+        }
+        return results;
+    }
+
+    /**
+     * 字典中的名称数量，包含已经消失但还没有清理的
+     */
+    public int getNameCount() {
+        return nameCount;
+    }
+
+    private List<WifiNetwork> compute() {
+        List<WifiNetwork> list = new ArrayList<>();
+        String text = filter.getText();
+        if (text.isEmpty()) {
+            for (WifiNetwork network : networks) {
+                if (filter.matchesAttributes(network)) {
+                    list.add(network);
+                }
+            }
+            return Collections.unmodifiableList(list);
+        }
+        int from = 0;
+        int to = suffixes.length;
+        //关键字是上一次的延续时，只在上一次的区间内查找
+        if (lastVersion == indexVersion && text.startsWith(lastText)) {
+            from = lastFrom;
+            to = lastTo;
+        }
+        int start = bound(text, from, to, false);
+        int end = bound(text, start, to, true);
+        lastText = text;
+        lastFrom = start;
+        lastTo = end;
+        lastVersion = indexVersion;
+        BitSet hits = new BitSet(networks.size());
+        boolean prefixOnly = filter.isPrefixOnly();
+        for (int i = start; i < end; i++) {
+            long suffix = suffixes[i];
+            if (prefixOnly && (int) suffix != 0) {
+                continue;
+            }
+            int id = (int) (suffix >>> 32);
+            if (nameSeen[id] != generation) {
+                continue;
+            }
+            for (int n = nameHead[id]; n >= 0; n = nextSameName[n]) {
+                hits.set(n);
+            }
+        }
+        for (int n = hits.nextSetBit(0); n >= 0; n = hits.nextSetBit(n + 1)) {
+            WifiNetwork network = networks.get(n);
+            if (filter.matchesAttributes(network)) {
+                list.add(network);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 二分查找
+     *
+     * @param upper false：第一个不小于关键字的后缀，true：第一个不以关键字开头且大于关键字的后缀
+     */
+    private int bound(String text, int from, int to, boolean upper) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePrefix(suffixes[mid], text);
+            if (upper ? cmp <= 0 : cmp < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 比较后缀与关键字，后缀以关键字开头时返回0
+     */
+    private int comparePrefix(long suffix, String text) {
+        String name = names[(int) (suffix >>> 32)];
+        int offset = (int) suffix;
+        int length = Math.min(name.length() - offset, text.length());
+        for (int i = 0; i < length; i++) {
+            int diff = name.charAt(offset + i) - text.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return name.length() - offset >= text.length() ? 0 : -1;
+    }
+
+    private int compareSuffix(long a, long b) {
+        String lhs = names[(int) (a >>> 32)];
+        String rhs = names[(int) (b >>> 32)];
+        int lo = (int) a;
+        int ro = (int) b;
+        int length = Math.min(lhs.length() - lo, rhs.length() - ro);
+        for (int i = 0; i < length; i++) {
+            int diff = lhs.charAt(lo + i) - rhs.charAt(ro + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (lhs.length() - lo) - (rhs.length() - ro);
+    }
+
+    private int intern(String ssid) {
+        Integer id = nameIds.get(ssid);
+        if (id == null) {
+            if (nameCount == names.length) {
+                names = Arrays.copyOf(names, nameCount * 2);
+                nameSeen = Arrays.copyOf(nameSeen, nameCount * 2);
+            }
+            id = nameCount++;
+            names[id] = ssid.toLowerCase(Locale.ROOT);
+            nameIds.put(ssid, id);
+        }
+        nameSeen[id] = generation;
+        return id;
+    }
+
+    private int live() {
+        int count = 0;
+        for (int i = 0; i < nameCount; i++) {
+            if (nameSeen[i] == generation) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 新出现的名称的后缀排序后与已有索引归并
+     */
+    private void mergeNewNames() {
+        if (suffixIndexed == nameCount) {
+            return;
+        }
+        int count = 0;
+        for (int id = suffixIndexed; id < nameCount; id++) {
+            count += Math.max(1, names[id].length());
+        }
+        long[] added = new long[count];
+        int k = 0;
+        for (int id = suffixIndexed; id < nameCount; id++) {
+            int length = Math.max(1, names[id].length());
+            for (int offset = 0; offset < length; offset++) {
+                added[k++] = ((long) id << 32) | offset;
+            }
+        }
+        sort(added, new long[added.length], 0, added.length);
+        long[] merged = new long[suffixes.length + added.length];
+        int i = 0;
+        int j = 0;
+        k = 0;
+        while (i < suffixes.length && j < added.length) {
+            merged[k++] = compareSuffix(suffixes[i], added[j]) <= 0 ? suffixes[i++] : added[j++];
+        }
+        while (i < suffixes.length) {
+            merged[k++] = suffixes[i++];
+        }
+        while (j < added.length) {
+            merged[k++] = added[j++];
+        }
+        suffixes = merged;
+        suffixIndexed = nameCount;
+        indexVersion++;
+    }
+
+    /**
+     * 归并排序
+     */
+    private void sort(long[] a, long[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(a, buffer, from, mid);
+        sort(a, buffer, mid, to);
+        if (compareSuffix(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compareSuffix(buffer[i], buffer[j]) <= 0)) {
+                a[k] = buffer[i++];
+            } else {
+                a[k] = buffer[j++];
+            }
+        }
+    }
+
+    /**
+     * 只保留当前列表中的名称，重新建立索引
+     */
+    private void compact(int size, int live) {
+        Map<Integer, Integer> remap = new HashMap<>();
+        String[] compacted = new String[Math.max(64, Integer.highestOneBit(live) * 2)];
+        int count = 0;
+        nameIds.clear();
+        for (int i = 0; i < size; i++) {
+            int id = networkNames[i];
+            Integer newId = remap.get(id);
+            if (newId == null) {
+                newId = count;
+                compacted[count++] = names[id];
+                remap.put(id, newId);
+                nameIds.put(networks.get(i).getSsid(), newId);
+            }
+            networkNames[i] = newId;
+        }
+        names = compacted;
+        nameSeen = new int[compacted.length];
+        Arrays.fill(nameSeen, 0, count, generation);
+        nameCount = count;
+        nameHead = new int[compacted.length];
+        suffixes = new long[0];
+        suffixIndexed = 0;
+        indexVersion++;
+    }
+}
@@ -0,0 +1,56 @@
+package com.llw.wifi;
+
+import java.io.IOException;
+
+/**
+ * 探测使用的测速地址
+ * <p>
+ * 通过连接上的网络访问地址，测量首字节耗时和下载速率。测试时可以替换为本地服务。
+ */
+public interface ProbeEndpoint {
+
+    /**
+     * 测速，在探测线程中调用，线程被中断时应尽快结束
+     *
+     * @param link          连接上的网络
+     * @param timeoutMillis 剩余的超时时间
+     */
+    Measurement measure(ProbeEngine.Link link, int timeoutMillis) throws IOException;
+
+    /**
+     * 测速结果
+     */
+    final class Measurement {
+
+        private final long latencyMillis;//首字节耗时
+
+        private final long bytes;//下载的字节数
+
+        private final long transferMillis;//下载耗时
+
+        public Measurement(long latencyMillis, long bytes, long transferMillis) {
+            this.latencyMillis = latencyMillis;
+            this.bytes = bytes;
+            this.transferMillis = transferMillis;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getTransferMillis() {
+            return transferMillis;
+        }
+
+        /**
+         * 下载速率，耗时不足1毫秒时按1毫秒计算
+         */
+        public long getThroughputKbps() {
+            return bytes * 8 / Math.max(1, transferMillis);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.llw.wifi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.SocketFactory;
+
+/**
+ * 网络探测
+ * <p>
+ * 连接候选网络，记录连接耗时、系统是否验证了互联网访问，再通过 {@link ProbeEndpoint} 测速，
+ * 全部完成后用 {@link ProbeRanker} 排序。探测在固定数量的线程中并行执行，等待的任务数量有上限；
+ * 每个网络的探测从开始执行时计算超时，超时或取消时关闭连接并中断探测线程。
+ */
+public class ProbeEngine {
+
+    /**
+     * 默认同时探测的网络数量
+     */
+    public static final int DEFAULT_PARALLELISM = 2;
+
+    /**
+     * 默认单个网络的探测超时 毫秒
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 20_000;
+
+    /**
+     * 等待探测的网络数量上限，超出的网络直接返回 {@link ProbeResult.Status#REJECTED}
+     */
+    static final int MAX_PENDING = 32;
+
+    private final Connector connector;
+
+    private final ProbeEndpoint endpoint;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledThreadPoolExecutor watchdog;//超时检查
+
+    public ProbeEngine(Connector connector, ProbeEndpoint endpoint) {
+        this(connector, endpoint, DEFAULT_PARALLELISM, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public ProbeEngine(Connector connector, ProbeEndpoint endpoint, int parallelism, long timeoutMillis) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1");
+        }
+        this.connector = connector;
+        this.endpoint = endpoint;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING), r -> {
+            Thread thread = new Thread(r, "wifi-probe-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        //空闲时不保留线程
+        executor.allowCoreThreadTimeOut(true);
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "wifi-probe-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //正常完成的探测取消超时检查后立即移除
+        watchdog.setRemoveOnCancelPolicy(true);
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * 探测候选网络
+     *
+     * @param candidates 候选网络的凭据
+     * @param listener   结果监听，在探测线程中回调，可以为null
+     * @return 本次探测，可以等待结果或取消
+     */
+    public Session probe(List<WifiCredential> candidates, Listener listener) {
+        Session session = new Session(candidates.size(), listener);
+        if (candidates.isEmpty()) {
+            session.complete();
+            return session;
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            session.tasks.add(new ProbeTask(session, i, candidates.get(i)));
+        }
+        for (ProbeTask task : session.tasks) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.abort(ProbeResult.Status.REJECTED);
+            }
+        }
+        return session;
+    }
+
+    /**
+     * 取消所有探测并释放线程，之后不能再使用
+     */
+    public void release() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 探测单个网络，连接和测速共用超时时间
+     */
+    private ProbeResult probe(ProbeTask task) {
+        String ssid = task.credential.getSsid();
+        long start = System.nanoTime();
+        Link link;
+        try {
+            link = connector.connect(task.credential, timeoutMillis);
+        } catch (IOException e) {
+            return ProbeResult.failed(ssid, ProbeResult.Status.CONNECT_FAILED);
+        } catch (InterruptedException e) {
+            //已经被超时或取消处理
+            return ProbeResult.failed(ssid, ProbeResult.Status.CANCELLED);
+        }
+        try {
+            if (!task.attach(link)) {
+                return ProbeResult.failed(ssid, ProbeResult.Status.CANCELLED);
+            }
+            long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            boolean validated = link.isValidated();
+            long remaining = Math.max(1, timeoutMillis - connectMillis);
+            try {
+                ProbeEndpoint.Measurement measurement = endpoint.measure(link, (int) Math.min(Integer.MAX_VALUE, remaining));
+                return new ProbeResult(ssid, ProbeResult.Status.OK, connectMillis, validated,
+                        measurement.getLatencyMillis(), measurement.getThroughputKbps());
+            } catch (IOException e) {
+                return new ProbeResult(ssid, ProbeResult.Status.ENDPOINT_FAILED, connectMillis, validated, -1, 0);
+            }
+        } finally {
+            closeQuietly(link);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 单个网络的探测任务，正常完成、超时和取消只会有一个生效
+     */
+    private final class ProbeTask implements Runnable {
+
+        final Session session;
+
+        final int index;
+
+        final WifiCredential credential;
+
+        private Thread runner;//正在执行的线程
+
+        private Link link;//当前的连接
+
+        private boolean finished;
+
+        private ScheduledFuture<?> timeout;
+
+        ProbeTask(Session session, int index, WifiCredential credential) {
+            this.session = session;
+            this.index = index;
+            this.credential = credential;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                runner = Thread.currentThread();
+                try {
+                    timeout = watchdog.schedule(() -> abort(ProbeResult.Status.TIMEOUT), timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    //已经释放
+                    runner = null;
+                    finished = true;
+                }
+            }
+            if (timeout == null) {
+                session.onResult(index, ProbeResult.failed(credential.getSsid(), ProbeResult.Status.CANCELLED));
+                return;
+            }
+            ProbeResult result = probe(this);
+            synchronized (this) {
+                if (finished) {
+                    //超时或取消时发出的中断不能影响线程池中的下一个任务
+                    Thread.interrupted();
+                    return;
+                }
+                finished = true;
+                runner = null;
+                link = null;
+            }
+            timeout.cancel(false);
+            session.onResult(index, result);
+        }
+
+        /**
+         * 记录当前的连接，已经结束时返回false
+         */
+        synchronized boolean attach(Link link) {
+            if (finished) {
+                return false;
+            }
+            this.link = link;
+            return true;
+        }
+
+        /**
+         * 超时或取消，关闭连接并中断探测线程
+         */
+        void abort(ProbeResult.Status status) {
+            Link current;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                current = link;
+                //在锁内中断，探测线程结束时能清除中断状态
+                if (runner != null) {
+                    runner.interrupt();
+                }
+                runner = null;
+                link = null;
+            }
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            executor.remove(this);
+            closeQuietly(current);
+            session.onResult(index, ProbeResult.failed(credential.getSsid(), status));
+        }
+    }
+
+    /**
+     * 一次探测
+     */
+    public static final class Session {
+
+        private final List<ProbeTask> tasks = new ArrayList<>();
+
+        private final ProbeResult[] results;
+
+        private final AtomicInteger remaining;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final Listener listener;
+
+        private volatile List<ProbeResult> ranked;
+
+        Session(int count, Listener listener) {
+            results = new ProbeResult[count];
+            remaining = new AtomicInteger(count);
+            this.listener = listener;
+        }
+
+        void onResult(int index, ProbeResult result) {
+            results[index] = result;
+            if (listener != null) {
+                listener.onProbed(result);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        void complete() {
+            ranked = ProbeRanker.rank(Arrays.asList(results));
+            done.countDown();
+            if (listener != null) {
+                listener.onRanked(ranked);
+            }
+        }
+
+        /**
+         * 取消还没有完成的探测，已取消的网络结果为 {@link ProbeResult.Status#CANCELLED}
+         */
+        public void cancel() {
+            for (ProbeTask task : tasks) {
+                task.abort(ProbeResult.Status.CANCELLED);
+            }
+        }
+
+        public boolean isDone() {
+            return ranked != null;
+        }
+
+        /**
+         * 排序后的结果，还没有完成时返回空列表
+         */
+        public List<ProbeResult> getRanked() {
+            List<ProbeResult> ranked = this.ranked;
+            return ranked == null ? Collections.emptyList() : ranked;
+        }
+
+        /**
+         * 等待全部网络探测完成
+         *
+         * @return 排序后的结果，超时返回null
+         */
+        public List<ProbeResult> await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit) ? ranked : null;
+        }
+    }
+
+    /**
+     * 连接候选网络
+     */
+    public interface Connector {
+
+        /**
+         * 连接网络，在探测线程中调用，连接成功后返回，线程被中断时应放弃连接
+         *
+         * @param credential    凭据
+         * @param timeoutMillis 超时时间
+         * @throws IOException 连接失败或超时
+         */
+        Link connect(WifiCredential credential, long timeoutMillis) throws IOException, InterruptedException;
+    }
+
+    /**
+     * 连接上的网络，关闭后释放，可能被关闭多次
+     */
+    public interface Link extends Closeable {
+
+        /**
+         * 通过此网络创建连接的 SocketFactory
+         */
+        SocketFactory getSocketFactory();
+
+        /**
+         * 通过此网络解析域名
+         */
+        default InetAddress[] lookup(String host) throws UnknownHostException {
+            return InetAddress.getAllByName(host);
+        }
+
+        /**
+         * 系统是否验证了互联网访问
+         */
+        boolean isValidated();
+    }
+
+    /**
+     * 探测结果监听
+     */
+    public interface Listener {
+
+        /**
+         * 单个网络探测完成
+         */
+        void onProbed(ProbeResult result);
+
+        /**
+         * 全部网络探测完成
+         *
+         * @param ranked 排序后的结果
+         */
+        void onRanked(List<ProbeResult> ranked);
+    }
+}
@@ -0,0 +1,88 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 探测结果排序
+ * <p>
+ * 测速成功的网络按得分从高到低排列：速率每翻一倍加 {@link #THROUGHPUT_WEIGHT} 分，
+ * 首字节耗时和连接耗时按比例扣分，系统未验证互联网访问的网络（如需要认证的热点）排在已验证的之后。
+ * 只连接成功的网络按连接耗时排在其后，连接失败的排在最后。
+ */
+public final class ProbeRanker {
+
+    /**
+     * 速率每翻一倍的得分
+     */
+    static final double THROUGHPUT_WEIGHT = 10;
+
+    /**
+     * 首字节耗时每多少毫秒扣1分
+     */
+    static final double LATENCY_MILLIS_PER_POINT = 10;
+
+    /**
+     * 连接耗时每多少毫秒扣1分
+     */
+    static final double CONNECT_MILLIS_PER_POINT = 200;
+
+    /**
+     * 未验证互联网访问的扣分，保证排在已验证的网络之后
+     */
+    static final double UNVALIDATED_PENALTY = 1000;
+
+    /**
+     * 排序规则：状态、得分、连接耗时、名称
+     */
+    public static final Comparator<ProbeResult> COMPARATOR = Comparator
+            .comparingInt((ProbeResult result) -> statusRank(result.getStatus()))
+            .thenComparing(Comparator.comparingDouble(ProbeRanker::score).reversed())
+            .thenComparingLong(result -> result.getConnectMillis() < 0 ? Long.MAX_VALUE : result.getConnectMillis())
+            .thenComparing(ProbeResult::getSsid);
+
+    private ProbeRanker() {
+    }
+
+    /**
+     * 计算得分，测速未成功时为负无穷
+     *
+     * @param result 探测结果
+     */
+    public static double score(ProbeResult result) {
+        if (!result.isSuccess()) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double score = THROUGHPUT_WEIGHT * Math.log(1 + result.getThroughputKbps()) / Math.log(2)
+                - result.getLatencyMillis() / LATENCY_MILLIS_PER_POINT
+                - result.getConnectMillis() / CONNECT_MILLIS_PER_POINT;
+        if (!result.isValidated()) {
+            score -= UNVALIDATED_PENALTY;
+        }
+        return score;
+    }
+
+    /**
+     * 排序，返回新的不可修改列表
+     *
+     * @param results 探测结果
+     */
+    public static List<ProbeResult> rank(List<ProbeResult> results) {
+        List<ProbeResult> ranked = new ArrayList<>(results);
+        ranked.sort(COMPARATOR);
+        return Collections.unmodifiableList(ranked);
+    }
+
+    private static int statusRank(ProbeResult.Status status) {
+        switch (status) {
+            case OK:
+                return 0;
+            case ENDPOINT_FAILED:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.llw.wifi;
+
+/**
+ * 单个网络的探测结果
+ */
+public final class ProbeResult {
+
+    /**
+     * 探测状态
+     */
+    public enum Status {
+        /**
+         * 连接成功，测速完成
+         */
+        OK,
+        /**
+         * 连接成功，但访问测速地址失败
+         */
+        ENDPOINT_FAILED,
+        /**
+         * 连接失败
+         */
+        CONNECT_FAILED,
+        /**
+         * 超过探测超时
+         */
+        TIMEOUT,
+        /**
+         * 被取消
+         */
+        CANCELLED,
+        /**
+         * 等待探测的网络过多，没有执行
+         */
+        REJECTED
+    }
+
+    private final String ssid;
+
+    private final Status status;
+
+    private final long connectMillis;//连接耗时，没有连接成功时为-1
+
+    private final boolean validated;//系统是否验证了互联网访问
+
+    private final long latencyMillis;//测速地址的首字节耗时，没有测速时为-1
+
+    private final long throughputKbps;//下载速率
+
+    public ProbeResult(String ssid, Status status, long connectMillis, boolean validated, long latencyMillis, long throughputKbps) {
+        this.ssid = ssid;
+        this.status = status;
+        this.connectMillis = connectMillis;
+        this.validated = validated;
+        this.latencyMillis = latencyMillis;
+        this.throughputKbps = throughputKbps;
+    }
+
+    /**
+     * 没有连接成功的结果
+     *
+     * @param ssid   名称
+     * @param status 状态
+     */
+    public static ProbeResult failed(String ssid, Status status) {
+        return new ProbeResult(ssid, status, -1, false, -1, 0);
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.OK;
+    }
+
+    public long getConnectMillis() {
+        return connectMillis;
+    }
+
+    public boolean isValidated() {
+        return validated;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getThroughputKbps() {
+        return throughputKbps;
+    }
+
+    @Override
+    public String toString() {
+        return "ProbeResult{" + ssid + ", " + status
+                + ", connect=" + connectMillis + "ms"
+                + ", validated=" + validated
+                + ", latency=" + latencyMillis + "ms"
+                + ", throughput=" + throughputKbps + "kbps}";
+    }
+}
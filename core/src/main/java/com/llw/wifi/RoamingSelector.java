@@ -0,0 +1,297 @@
+package com.llw.wifi;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已连接时选择是否切换到更好的已知网络
+ * <p>
+ * 每个网络的得分为信号最强接入点的平滑信号强度，加上频段、加密方式和历史连接成功率的加分，单位约为 dBm。
+ * 只有候选网络比当前网络高出迟滞值、连续多次扫描都是同一个候选网络、并且连接后已经停留了最短时间才切换；
+ * 当前网络消失或信号过弱时不需要迟滞。连接失败的网络在一段时间内不再作为候选。
+ * 时间由调用者传入，相同的输入总是得到相同的结果。
+ */
+public class RoamingSelector {
+
+    /**
+     * 默认迟滞值
+     */
+    public static final int DEFAULT_HYSTERESIS = 8;
+
+    /**
+     * 默认连接后最短停留时间
+     */
+    public static final long DEFAULT_MIN_DWELL_MILLIS = 60_000;
+
+    /**
+     * 默认需要连续确认的扫描次数
+     */
+    public static final int DEFAULT_CONFIRM_SCANS = 2;
+
+    /**
+     * 连接失败后不再作为候选的时间
+     */
+    public static final long FAILURE_BACKOFF_MILLIS = 5 * 60_000;
+
+    /**
+     * 当前网络信号低于该值时不需要迟滞
+     */
+    public static final int WEAK_LEVEL = -82;
+
+    static final int BAND_LEVEL = -70;//高频段只在信号不低于该值时加分
+
+    static final int BAND_5_GHZ_BONUS = 5;
+
+    static final int BAND_6_GHZ_BONUS = 8;
+
+    static final int SUCCESS_WEIGHT = 6;//成功率加分的最大值
+
+    private final Map<String, WifiCredential> knownNetworks = new LinkedHashMap<>();//网络标识 -> 凭据
+
+    private final Map<String, History> histories = new HashMap<>();//网络标识 -> 连接记录
+
+    private int hysteresis = DEFAULT_HYSTERESIS;
+
+    private long minDwellMillis = DEFAULT_MIN_DWELL_MILLIS;
+
+    private int confirmScans = DEFAULT_CONFIRM_SCANS;
+
+    private String currentSsid;//当前连接的网络，未连接时为null
+
+    private long dwellStartMillis;//连接或发起切换的时间
+
+    private String pendingKey;//等待确认的候选网络
+
+    private int pendingCount;
+
+    public synchronized void setHysteresis(int hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+
+    public synchronized void setMinDwellMillis(long minDwellMillis) {
+        this.minDwellMillis = minDwellMillis;
+    }
+
+    public synchronized void setConfirmScans(int confirmScans) {
+        this.confirmScans = Math.max(1, confirmScans);
+    }
+
+    /**
+     * 替换已知网络，只会切换到有凭据的网络
+     */
+    public synchronized void setKnownNetworks(Collection<WifiCredential> credentials) {
+        knownNetworks.clear();
+        for (WifiCredential credential : credentials) {
+            addKnownNetwork(credential);
+        }
+    }
+
+    public synchronized void addKnownNetwork(WifiCredential credential) {
+        knownNetworks.put(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()), credential);
+    }
+
+    public synchronized void removeKnownNetwork(WifiCredential credential) {
+        knownNetworks.remove(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()));
+    }
+
+    /**
+     * 已连接到网络，开始计算停留时间
+     */
+    public synchronized void onConnected(String ssid, long nowMillis) {
+        currentSsid = ssid;
+        dwellStartMillis = nowMillis;
+        pendingKey = null;
+        pendingCount = 0;
+    }
+
+    public synchronized void onDisconnected() {
+        currentSsid = null;
+        pendingKey = null;
+        pendingCount = 0;
+    }
+
+    /**
+     * 记录连接结果，用于计算成功率
+     *
+     * @param ssid      名称
+     * @param security  加密类型
+     * @param success   是否成功
+     * @param nowMillis 当前时间
+     */
+    public synchronized void onConnectionResult(String ssid, WifiSecurity security, boolean success, long nowMillis) {
+        String key = NetworkAggregator.keyOf(ssid, security);
+        History history = histories.get(key);
+        if (history == null) {
+            history = new History();
+            histories.put(key, history);
+        }
+        if (success) {
+            history.successes++;
+        } else {
+            history.failures++;
+            history.lastFailureMillis = nowMillis;
+        }
+    }
+
+    /**
+     * 根据一次扫描的网络列表判断是否切换
+     *
+     * @param networks  网络列表
+     * @param nowMillis 扫描时间
+     * @return 需要切换时返回切换的目标，之后重新开始计算停留时间；不需要切换时返回null
+     */
+    public synchronized Decision evaluate(List<WifiNetwork> networks, long nowMillis) {
+        if (currentSsid == null || nowMillis - dwellStartMillis < minDwellMillis) {
+            pendingKey = null;
+            pendingCount = 0;
+            return null;
+        }
+        WifiNetwork current = null;
+        WifiNetwork best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (WifiNetwork network : networks) {
+            if (network.getSsid().equals(currentSsid)) {
+                if (current == null || network.getLevel() > current.getLevel()) {
+                    current = network;
+                }
+                continue;
+            }
+            if (!knownNetworks.containsKey(network.getKey()) || isBackingOff(network.getKey(), nowMillis)) {
+                continue;
+            }
+            int score = score(network);
+            //得分相同时按标识排序，保证结果与列表顺序无关
+            if (best == null || score > bestScore || score == bestScore && network.getKey().compareTo(best.getKey()) < 0) {
+                best = network;
+                bestScore = score;
+            }
+        }
+        int currentScore = current == null ? Integer.MIN_VALUE : score(current);
+        boolean weak = current == null || current.getLevel() < WEAK_LEVEL;
+        if (best == null || !weak && bestScore < currentScore + hysteresis || weak && bestScore <= currentScore) {
+            pendingKey = null;
+            pendingCount = 0;
+            return null;
+        }
+        if (best.getKey().equals(pendingKey)) {
+            pendingCount++;
+        } else {
+            pendingKey = best.getKey();
+            pendingCount = 1;
+        }
+        if (pendingCount < confirmScans) {
+            return null;
+        }
+        pendingKey = null;
+        pendingCount = 0;
+        //切换期间不再重复发起
+        dwellStartMillis = nowMillis;
+        return new Decision(best, knownNetworks.get(best.getKey()), bestScore, currentScore);
+    }
+
+    /**
+     * 网络得分
+     */
+    public synchronized int score(WifiNetwork network) {
+        int best = Integer.MIN_VALUE;
+        for (WifiScanEntry entry : network.getAccessPoints()) {
+            int level = entry.getSmoothedLevel();
+            int score = level;
+            if (level >= BAND_LEVEL) {
+                int band = WifiBand.of(entry.getFrequency());
+                if (band == WifiBand.BAND_6_GHZ) {
+                    score += BAND_6_GHZ_BONUS;
+                } else if (band == WifiBand.BAND_5_GHZ) {
+                    score += BAND_5_GHZ_BONUS;
+                }
+            }
+            best = Math.max(best, score);
+        }
+        return best + securityBonus(network.getSecurity()) + successBonus(network.getKey());
+    }
+
+    private boolean isBackingOff(String key, long nowMillis) {
+        History history = histories.get(key);
+        return history != null && history.failures > 0 && nowMillis - history.lastFailureMillis < FAILURE_BACKOFF_MILLIS;
+    }
+
+    /**
+     * 成功率的加分，没有记录时为0，按 (成功+1)/(总数+2) 平滑
+     */
+    private int successBonus(String key) {
+        History history = histories.get(key);
+        if (history == null) {
+            return 0;
+        }
+        double rate = (history.successes + 1.0) / (history.successes + history.failures + 2.0);
+        return (int) Math.round((rate - 0.5) * 2 * SUCCESS_WEIGHT);
+    }
+
+    static int securityBonus(WifiSecurity security) {
+        switch (security) {
+            case SAE:
+                return 3;
+            case PSK:
+            case EAP:
+            case OWE:
+                return 1;
+            default:
+                //开放和WEP网络
+                return -5;
+        }
+    }
+
+    /**
+     * 切换决定
+     */
+    public static final class Decision {
+
+        private final WifiNetwork network;//目标网络
+
+        private final WifiCredential credential;//目标网络的凭据
+
+        private final int score;
+
+        private final int currentScore;//当前网络的得分，当前网络消失时为 Integer.MIN_VALUE
+
+        Decision(WifiNetwork network, WifiCredential credential, int score, int currentScore) {
+            this.network = network;
+            this.credential = credential;
+            this.score = score;
+            this.currentScore = currentScore;
+        }
+
+        public WifiNetwork getNetwork() {
+            return network;
+        }
+
+        public WifiCredential getCredential() {
+            return credential;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getCurrentScore() {
+            return currentScore;
+        }
+
+        @Override
+        public String toString() {
+            return "Decision{" + network.getSsid() + ", " + score + " > " + currentScore + "}";
+        }
+    }
+
+    private static final class History {
+
+        int successes;
+
+        int failures;
+
+        long lastFailureMillis;
+    }
+}
@@ -0,0 +1,301 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按BSSID跟踪信号强度
+ * <p>
+ * 对每个接入点的信号强度做指数加权平均，计算变化趋势，并为信号图标等级加上滞回，
+ * 避免单次波动导致图标跳变和列表重排。数据存放在以BSSID为键的开放寻址基本类型数组中，
+ * 超过容量时淘汰最久未出现的接入点。非线程安全，需要在同一个线程中调用。
+ */
+public class RssiTracker {
+
+    public static final int TREND_FALLING = -1;
+
+    public static final int TREND_STABLE = 0;
+
+    public static final int TREND_RISING = 1;
+
+    /**
+     * 默认最多跟踪的接入点数量
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    /**
+     * 默认超过此时间未出现的接入点会被移除 毫秒
+     */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * 平滑系数，越大越跟随最新的读数
+     */
+    static final float ALPHA = 0.3f;
+
+    /**
+     * 图标等级的滞回量 dBm
+     */
+    static final int HYSTERESIS = 3;
+
+    /**
+     * 趋势判定阈值 dBm/次
+     */
+    static final float TREND_THRESHOLD = 1.0f;
+
+    private static final long EMPTY = -1;
+
+    private final int maxEntries;
+
+    private final long maxAgeMillis;
+
+    private final int mask;
+
+    private final long[] keys;
+
+    private final float[] levels;//平滑后的信号强度
+
+    private final float[] trends;//信号强度变化的平滑值
+
+    private final byte[] buckets;//图标等级
+
+    private final long[] lastSeen;//最后出现的时间
+
+    private int size;
+
+    public RssiTracker() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * @param maxEntries   最多跟踪的接入点数量
+     * @param maxAgeMillis 超过此时间未出现的接入点会被移除
+     */
+    public RssiTracker(int maxEntries, long maxAgeMillis) {
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+        //负载因子不超过0.5
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+        mask = capacity - 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        levels = new float[capacity];
+        trends = new float[capacity];
+        buckets = new byte[capacity];
+        lastSeen = new long[capacity];
+    }
+
+    /**
+     * 记录一次读数
+     *
+     * @param bssid      接入点，见 {@link MacAddresses#toLong(String)}
+     * @param level      信号强度 dBm
+     * @param timeMillis 读数时间
+     */
+    public void update(long bssid, int level, long timeMillis) {
+        track(bssid, level, timeMillis);
+    }
+
+    /**
+     * 记录一次扫描的所有读数，并移除过期的接入点
+     *
+     * @param scan       扫描结果，BSSID不能重复
+     * @param timeMillis 扫描时间
+     * @return 带平滑信号强度和图标等级的扫描结果
+     */
+    public List<WifiScanEntry> update(List<WifiScanEntry> scan, long timeMillis) {
+        evictOlderThan(timeMillis - maxAgeMillis);
+        List<WifiScanEntry> result = new ArrayList<>(scan.size());
+        for (WifiScanEntry entry : scan) {
+            int slot = track(MacAddresses.toLong(entry.getBssid()), entry.getLevel(), timeMillis);
+            result.add(slot < 0 ? entry : entry.withSignal(Math.round(levels[slot]), buckets[slot]));
+        }
+        return result;
+    }
+
+    private int track(long bssid, int level, long timeMillis) {
+        if (bssid == EMPTY) {
+            return -1;
+        }
+        int slot = find(bssid);
+        if (slot < 0) {
+            if (size >= maxEntries) {
+                evictOldest();
+            }
+            slot = insert(bssid);
+            levels[slot] = level;
+            trends[slot] = 0;
+            buckets[slot] = (byte) bucketOf(level);
+        } else {
+            float previous = levels[slot];
+            float smoothed = previous + ALPHA * (level - previous);
+            levels[slot] = smoothed;
+            trends[slot] = trends[slot] + ALPHA * ((smoothed - previous) - trends[slot]);
+            buckets[slot] = (byte) stableBucket(buckets[slot], smoothed);
+        }
+        lastSeen[slot] = timeMillis;
+        return slot;
+    }
+
+    /**
+     * 平滑后的信号强度
+     *
+     * @return 没有记录时返回 {@link Float#NaN}
+     */
+    public float getSmoothedLevel(long bssid) {
+        int slot = find(bssid);
+        return slot < 0 ? Float.NaN : levels[slot];
+    }
+
+    /**
+     * 信号变化趋势
+     *
+     * @return {@link #TREND_RISING}、{@link #TREND_FALLING} 或 {@link #TREND_STABLE}
+     */
+    public int getTrend(long bssid) {
+        int slot = find(bssid);
+        if (slot < 0) {
+            return TREND_STABLE;
+        }
+        float trend = trends[slot];
+        return trend >= TREND_THRESHOLD ? TREND_RISING : trend <= -TREND_THRESHOLD ? TREND_FALLING : TREND_STABLE;
+    }
+
+    /**
+     * 带滞回的图标等级
+     *
+     * @return 1~5，没有记录时返回0
+     */
+    public int getBucket(long bssid) {
+        int slot = find(bssid);
+        return slot < 0 ? 0 : buckets[slot];
+    }
+
+    public boolean contains(long bssid) {
+        return find(bssid) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * 移除指定时间之前没有出现过的接入点
+     */
+    public void evictOlderThan(long timeMillis) {
+        for (int slot = 0; slot <= mask; ) {
+            if (keys[slot] != EMPTY && lastSeen[slot] < timeMillis) {
+                //删除后后面的元素可能移到当前位置，需要重新检查
+                remove(slot);
+            } else {
+                slot++;
+            }
+        }
+    }
+
+    /**
+     * 信号强度对应的图标等级
+     *
+     * @param level 信号强度 dBm
+     * @return 1~5
+     */
+    public static int bucketOf(int level) {
+        if (level >= -50) {
+            return 5;
+        } else if (level >= -70) {
+            return 4;
+        } else if (level >= -80) {
+            return 3;
+        } else if (level >= -100) {
+            return 2;
+        } else {
+            return 1;
+        }
+    }
+
+    /**
+     * 超过边界滞回量后才切换等级
+     */
+    static int stableBucket(int current, float level) {
+        int candidate = bucketOf(Math.round(level));
+        if (candidate > current) {
+            return Math.max(current, bucketOf(Math.round(level - HYSTERESIS)));
+        } else if (candidate < current) {
+            return Math.min(current, bucketOf(Math.round(level + HYSTERESIS)));
+        }
+        return current;
+    }
+
+    /**
+     * 淘汰最久未出现的接入点，同一次扫描的接入点时间相同，会一起被淘汰
+     */
+    private void evictOldest() {
+        long oldest = Long.MAX_VALUE;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys[slot] != EMPTY && lastSeen[slot] < oldest) {
+                oldest = lastSeen[slot];
+            }
+        }
+        evictOlderThan(oldest + 1);
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int insert(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    /**
+     * 线性探测的删除，将后续同一探测链上的元素前移
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            //home 不在 (hole, next] 区间内时，元素可以移动到空位
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                levels[hole] = levels[next];
+                trends[hole] = trends[next];
+                buckets[hole] = buckets[next];
+                lastSeen[hole] = lastSeen[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
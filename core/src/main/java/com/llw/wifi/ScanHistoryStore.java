@@ -0,0 +1,475 @@
+package com.llw.wifi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扫描历史存储
+ * <p>
+ * 只追加的二进制日志，每个接入点一条24字节的定长记录：
+ * 扫描时间(8) BSSID(6) 名称ID(4) 频率(2) 信号强度(1) 保留(1) 加密能力位标志(2)。
+ * 名称单独存放在字典文件中，每个名称只保存一次。读取时将日志文件映射到内存顺序遍历。
+ * 文件通过 {@link RandomAccessFile} 打开，不依赖 Android 8.0 才有的 java.nio.file。
+ * <p>
+ * 记录数量超过上限时压缩：只保留最近的一半记录（不拆开同一次扫描），字典只保留仍被使用的名称。
+ * 压缩先写临时文件，再依次替换日志和字典，中途退出时在下次打开时完成或放弃。
+ */
+public class ScanHistoryStore implements Closeable {
+
+    /**
+     * 单条记录长度
+     */
+    public static final int RECORD_SIZE = 24;
+
+    /**
+     * 默认的记录数量上限，约4.8MB
+     */
+    public static final long DEFAULT_MAX_RECORDS = 200_000;
+
+    private static final int MAGIC = 0x57534831;//WSH1
+
+    private static final int HEADER_SIZE = 8;
+
+    static final String LOG_FILE = "scans.log";
+
+    static final String DICTIONARY_FILE = "ssids.dict";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+
+    private final long maxRecords;
+
+    private FileChannel logChannel;
+
+    private FileChannel dictionaryChannel;
+
+    private final List<String> ssids = new ArrayList<>();//名称ID -> 名称
+
+    private final Map<String, Integer> ssidIds = new HashMap<>();//名称 -> 名称ID
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE * 256).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long recordCount;
+
+    /**
+     * @param directory 存储目录，不存在时自动创建
+     */
+    public ScanHistoryStore(File directory) {
+        this(directory, DEFAULT_MAX_RECORDS);
+    }
+
+    /**
+     * @param directory  存储目录，不存在时自动创建
+     * @param maxRecords 记录数量上限，超过时压缩到一半
+     */
+    public ScanHistoryStore(File directory, long maxRecords) {
+        if (maxRecords < 2) {
+            throw new IllegalArgumentException("maxRecords must be at least 2");
+        }
+        this.directory = directory;
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * 打开存储，丢弃上次异常退出时写了一半的记录。首次读写时会自动打开
+     */
+    public synchronized void open() throws IOException {
+        if (logChannel != null) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录 " + directory);
+        }
+        recoverCompaction();
+        //关闭通道时同时关闭 RandomAccessFile
+        dictionaryChannel = new RandomAccessFile(new File(directory, DICTIONARY_FILE), "rw").getChannel();
+        loadDictionary();
+        logChannel = new RandomAccessFile(new File(directory, LOG_FILE), "rw").getChannel();
+        long size = logChannel.size();
+        if (size < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(RECORD_SIZE).flip();
+            logChannel.truncate(0);
+            writeFully(logChannel, header, 0);
+            size = HEADER_SIZE;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            logChannel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != RECORD_SIZE) {
+                throw new IOException("扫描历史文件格式错误");
+            }
+        }
+        recordCount = (size - HEADER_SIZE) / RECORD_SIZE;
+        logChannel.truncate(HEADER_SIZE + recordCount * RECORD_SIZE);
+    }
+
+    /**
+     * 追加一次扫描的结果
+     *
+     * @param timeMillis 扫描时间
+     * @param scan       扫描结果
+     */
+    public synchronized void append(long timeMillis, List<WifiScanEntry> scan) throws IOException {
+        open();
+        if (scan.isEmpty()) {
+            return;
+        }
+        if (recordCount + scan.size() > maxRecords) {
+            compact();
+        }
+        int size = scan.size() * RECORD_SIZE;
+        if (writeBuffer.capacity() < size) {
+            writeBuffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer buffer = writeBuffer;
+        buffer.clear();
+        int count = 0;
+        for (WifiScanEntry entry : scan) {
+            long bssid = MacAddresses.toLong(entry.getBssid());
+            if (bssid == MacAddresses.INVALID) {
+                continue;
+            }
+            //先写字典，保证日志中的名称ID都能找到
+            int ssidId = intern(entry.getSsid());
+            buffer.putLong(timeMillis);
+            buffer.putShort((short) (bssid >>> 32));
+            buffer.putInt((int) bssid);
+            buffer.putInt(ssidId);
+            buffer.putShort((short) entry.getFrequency());
+            buffer.put((byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, entry.getLevel())));
+            buffer.put((byte) 0);
+            buffer.putShort((short) entry.getCapabilityFlags());
+            count++;
+        }
+        buffer.flip();
+        writeFully(logChannel, buffer, HEADER_SIZE + recordCount * RECORD_SIZE);
+        recordCount += count;
+    }
+
+    /**
+     * 将已写入的数据同步到磁盘
+     */
+    public synchronized void flush() throws IOException {
+        if (logChannel != null) {
+            dictionaryChannel.force(false);
+            logChannel.force(false);
+        }
+    }
+
+    public synchronized long getRecordCount() throws IOException {
+        open();
+        return recordCount;
+    }
+
+    /**
+     * 已保存的不同名称数量
+     */
+    public synchronized int getSsidCount() throws IOException {
+        open();
+        return ssids.size();
+    }
+
+    /**
+     * 按写入顺序遍历所有记录
+     */
+    public synchronized Cursor cursor() throws IOException {
+        open();
+        return cursor(0);
+    }
+
+    /**
+     * 从指定记录开始遍历
+     *
+     * @param fromRecord 起始记录序号
+     */
+    public synchronized Cursor cursor(long fromRecord) throws IOException {
+        open();
+        long start = Math.max(0, Math.min(fromRecord, recordCount));
+        long length = (recordCount - start) * RECORD_SIZE;
+        MappedByteBuffer buffer = logChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + start * RECORD_SIZE, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return new Cursor(buffer, new ArrayList<>(ssids));
+    }
+
+    /**
+     * 按扫描回放历史，相同扫描时间的记录属于同一次扫描
+     *
+     * @param visitor 每次扫描回调一次
+     */
+    public void replay(ScanVisitor visitor) throws IOException {
+        Cursor cursor = cursor();
+        List<WifiScanEntry> scan = new ArrayList<>();
+        long time = Long.MIN_VALUE;
+        while (cursor.next()) {
+            if (cursor.getTimeMillis() != time && !scan.isEmpty()) {
+                visitor.onScan(time, Collections.unmodifiableList(scan));
+                scan = new ArrayList<>();
+            }
+            time = cursor.getTimeMillis();
+            scan.add(cursor.toEntry());
+        }
+        if (!scan.isEmpty()) {
+            visitor.onScan(time, Collections.unmodifiableList(scan));
+        }
+    }
+
+    /**
+     * 读取最后一次扫描
+     *
+     * @return 没有历史时返回空列表
+     */
+    public synchronized List<WifiScanEntry> readLastScan() throws IOException {
+        open();
+        if (recordCount == 0) {
+            return Collections.emptyList();
+        }
+        //从末尾向前找到同一次扫描的第一条记录
+        long lastTime = readTime(recordCount - 1);
+        long first = recordCount - 1;
+        while (first > 0 && readTime(first - 1) == lastTime) {
+            first--;
+        }
+        Cursor cursor = cursor(first);
+        List<WifiScanEntry> scan = new ArrayList<>((int) (recordCount - first));
+        while (cursor.next()) {
+            scan.add(cursor.toEntry());
+        }
+        return Collections.unmodifiableList(scan);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (logChannel != null) {
+            logChannel.close();
+            dictionaryChannel.close();
+            logChannel = null;
+            dictionaryChannel = null;
+            ssids.clear();
+            ssidIds.clear();
+        }
+    }
+
+    /**
+     * 压缩到最近的一半记录，同一次扫描的记录不拆开，只保留仍被使用的名称
+     */
+    private void compact() throws IOException {
+        long first = recordCount - Math.min(recordCount, maxRecords / 2);
+        while (first > 0 && first < recordCount && readTime(first) == readTime(first - 1)) {
+            first++;
+        }
+        File logTemp = new File(directory, LOG_FILE + TEMP_SUFFIX);
+        File dictionaryTemp = new File(directory, DICTIONARY_FILE + TEMP_SUFFIX);
+        Cursor cursor = cursor(first);
+        List<String> keptSsids = new ArrayList<>();
+        Map<Integer, Integer> idMapping = new HashMap<>();//旧名称ID -> 新名称ID
+        try (RandomAccessFile log = new RandomAccessFile(logTemp, "rw");
+             RandomAccessFile dictionary = new RandomAccessFile(dictionaryTemp, "rw")) {
+            FileChannel logOut = log.getChannel();
+            FileChannel dictionaryOut = dictionary.getChannel();
+            logOut.truncate(0);
+            dictionaryOut.truncate(0);
+            ByteBuffer buffer = writeBuffer;
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(RECORD_SIZE);
+            long position = 0;
+            while (cursor.next()) {
+                Integer id = idMapping.get(cursor.getSsidId());
+                if (id == null) {
+                    id = keptSsids.size();
+                    String ssid = cursor.getSsid();
+                    keptSsids.add(ssid);
+                    idMapping.put(cursor.getSsidId(), id);
+                    writeFully(dictionaryOut, encodeName(ssid), dictionaryOut.size());
+                }
+                if (buffer.remaining() < RECORD_SIZE) {
+                    buffer.flip();
+                    int length = buffer.remaining();
+                    writeFully(logOut, buffer, position);
+                    position += length;
+                    buffer.clear();
+                }
+                cursor.copyTo(buffer, id);
+            }
+            buffer.flip();
+            writeFully(logOut, buffer, position);
+            logOut.force(false);
+            dictionaryOut.force(false);
+        }
+        close();
+        //先替换日志再替换字典，只剩字典的临时文件时说明日志已经替换
+        if (!logTemp.renameTo(new File(directory, LOG_FILE))
+                || !dictionaryTemp.renameTo(new File(directory, DICTIONARY_FILE))) {
+            throw new IOException("无法替换扫描历史文件 " + directory);
+        }
+        open();
+    }
+
+    /**
+     * 处理上次压缩中途退出留下的临时文件
+     */
+    private void recoverCompaction() throws IOException {
+        File logTemp = new File(directory, LOG_FILE + TEMP_SUFFIX);
+        File dictionaryTemp = new File(directory, DICTIONARY_FILE + TEMP_SUFFIX);
+        if (logTemp.exists()) {
+            //日志还没有替换，原来的日志和字典仍然对应
+            logTemp.delete();
+            dictionaryTemp.delete();
+        } else if (dictionaryTemp.exists() && !dictionaryTemp.renameTo(new File(directory, DICTIONARY_FILE))) {
+            throw new IOException("无法替换扫描历史文件 " + directory);
+        }
+    }
+
+    private long readTime(long record) throws IOException {
+        ByteBuffer time = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        logChannel.read(time, HEADER_SIZE + record * RECORD_SIZE);
+        return time.getLong(0);
+    }
+
+    private static ByteBuffer encodeName(String ssid) {
+        byte[] bytes = ssid.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) bytes.length).put(bytes).flip();
+        return buffer;
+    }
+
+    private int intern(String ssid) throws IOException {
+        Integer id = ssidIds.get(ssid);
+        if (id != null) {
+            return id;
+        }
+        writeFully(dictionaryChannel, encodeName(ssid), dictionaryChannel.size());
+        id = ssids.size();
+        ssids.add(ssid);
+        ssidIds.put(ssid, id);
+        return id;
+    }
+
+    private void loadDictionary() throws IOException {
+        ssids.clear();
+        ssidIds.clear();
+        long size = dictionaryChannel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer buffer = dictionaryChannel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.remaining() >= 2) {
+            int length = buffer.getShort() & 0xffff;
+            if (buffer.remaining() < length) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            String ssid = new String(bytes, StandardCharsets.UTF_8);
+            ssidIds.put(ssid, ssids.size());
+            ssids.add(ssid);
+        }
+        //丢弃写了一半的名称
+        dictionaryChannel.truncate(buffer.position());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * 记录游标，读取时不分配对象
+     */
+    public static final class Cursor {
+
+        private final ByteBuffer buffer;
+
+        private final List<String> ssids;
+
+        private int position = -RECORD_SIZE;
+
+        Cursor(ByteBuffer buffer, List<String> ssids) {
+            this.buffer = buffer;
+            this.ssids = ssids;
+        }
+
+        /**
+         * 移动到下一条记录
+         *
+         * @return 没有更多记录时返回false
+         */
+        public boolean next() {
+            if (position + 2L * RECORD_SIZE > buffer.limit()) {
+                return false;
+            }
+            position += RECORD_SIZE;
+            return true;
+        }
+
+        public long getTimeMillis() {
+            return buffer.getLong(position);
+        }
+
+        public long getBssid() {
+            return ((buffer.getShort(position + 8) & 0xffffL) << 32) | (buffer.getInt(position + 10) & 0xffffffffL);
+        }
+
+        public int getSsidId() {
+            return buffer.getInt(position + 14);
+        }
+
+        public String getSsid() {
+            int id = getSsidId();
+            return id >= 0 && id < ssids.size() ? ssids.get(id) : "";
+        }
+
+        public int getFrequency() {
+            return buffer.getShort(position + 18) & 0xffff;
+        }
+
+        public int getLevel() {
+            return buffer.get(position + 20);
+        }
+
+        public int getCapabilityFlags() {
+            return buffer.getShort(position + 22) & 0xffff;
+        }
+
+        /**
+         * 复制当前记录，名称ID替换为新的ID
+         */
+        void copyTo(ByteBuffer target, int ssidId) {
+            int start = target.position();
+            for (int i = 0; i < RECORD_SIZE; i++) {
+                target.put(buffer.get(position + i));
+            }
+            target.putInt(start + 14, ssidId);
+        }
+
+        /**
+         * 转换为扫描结果，加密能力描述由位标志还原
+         */
+        public WifiScanEntry toEntry() {
+            return new WifiScanEntry(getSsid(), MacAddresses.toString(getBssid()),
+                    WifiCapabilities.describe(getCapabilityFlags()), getFrequency(), getLevel(), getTimeMillis() * 1000);
+        }
+    }
+
+    /**
+     * 扫描回放回调
+     */
+    public interface ScanVisitor {
+
+        void onScan(long timeMillis, List<WifiScanEntry> scan);
+    }
+}
@@ -0,0 +1,147 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 扫描结果处理器
+ * <p>
+ * 在单个后台线程中完成过滤、去重和排序，处理完成后回调完整快照。
+ * 处理开始前收到的多次请求会合并为一次处理。
+ */
+public class ScanProcessor {
+
+    /**
+     * 按平滑后的信号强度从强到弱排序，强度相同时按名称排序
+     */
+    static final Comparator<WifiScanEntry> LEVEL_COMPARATOR = (lhs, rhs) -> {
+        int result = Integer.compare(rhs.getSmoothedLevel(), lhs.getSmoothedLevel());
+        return result != 0 ? result : lhs.getSsid().compareTo(rhs.getSsid());
+    };
+
+    private final ScanSource scanSource;
+
+    private final Executor executor;
+
+    private final ExecutorService ownedExecutor;
+
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    private volatile Callback callback;
+
+    private RssiTracker rssiTracker;//只在处理线程中使用
+
+    public ScanProcessor(ScanSource scanSource) {
+        this(scanSource, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "wifi-scan-processor");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @param scanSource 扫描结果来源
+     * @param executor   处理线程，需要保证任务串行执行
+     */
+    public ScanProcessor(ScanSource scanSource, Executor executor) {
+        this.scanSource = scanSource;
+        this.executor = executor;
+        this.ownedExecutor = executor instanceof ExecutorService ? (ExecutorService) executor : null;
+    }
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * 设置信号跟踪器，设置后按平滑后的信号强度排序。需要在第一次请求处理之前设置
+     */
+    public void setRssiTracker(RssiTracker rssiTracker) {
+        this.rssiTracker = rssiTracker;
+    }
+
+    /**
+     * 请求处理一次扫描结果，已有待处理的请求时直接合并
+     */
+    public void request() {
+        if (pending.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * 释放处理线程
+     */
+    public void release() {
+        callback = null;
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    private void drain() {
+        //先清除标记，处理期间到达的新请求会再安排一次处理
+        pending.set(false);
+        List<WifiScanEntry> snapshot = process(scanSource.getScanResults(), rssiTracker, System.currentTimeMillis());
+        Callback callback = this.callback;
+        if (callback != null) {
+            callback.onScanProcessed(snapshot);
+        }
+    }
+
+    /**
+     * 过滤隐藏网络，按BSSID去重保留信号最强的结果，并按信号强度排序
+     *
+     * @param results 原始扫描结果
+     * @return 不可修改的结果快照
+     */
+    public static List<WifiScanEntry> process(List<WifiScanEntry> results) {
+        return process(results, null, 0);
+    }
+
+    /**
+     * 过滤隐藏网络，按BSSID去重保留信号最强的结果，经过信号平滑后按信号强度排序
+     *
+     * @param results     原始扫描结果
+     * @param rssiTracker 信号跟踪器，为null时不平滑
+     * @param timeMillis  扫描时间
+     * @return 不可修改的结果快照
+     */
+    public static List<WifiScanEntry> process(List<WifiScanEntry> results, RssiTracker rssiTracker, long timeMillis) {
+        if (results == null || results.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, WifiScanEntry> unique = new HashMap<>(results.size() * 4 / 3 + 1);
+        for (WifiScanEntry entry : results) {
+            if (entry == null || entry.getSsid().isEmpty()) {
+                continue;
+            }
+            WifiScanEntry previous = unique.get(entry.getBssid());
+            if (previous == null || entry.getLevel() > previous.getLevel()) {
+                unique.put(entry.getBssid(), entry);
+            }
+        }
+        List<WifiScanEntry> list = new ArrayList<>(unique.values());
+        if (rssiTracker != null) {
+            list = rssiTracker.update(list, timeMillis);
+        }
+        list.sort(LEVEL_COMPARATOR);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 处理完成回调，在处理线程中调用
+     */
+    public interface Callback {
+
+        void onScanProcessed(List<WifiScanEntry> snapshot);
+    }
+}
@@ -0,0 +1,275 @@
+package com.llw.wifi;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 自适应扫描调度器
+ * <p>
+ * Android 9 及以上前台应用每2分钟最多扫描4次，超出后 startScan 仍会返回，但只能拿到缓存的结果。
+ * 调度器记录扫描预算，根据两次扫描之间结果的变化程度调整扫描间隔：变化大时缩短间隔，
+ * 变化小时逐步退避，并标记每次收到的结果是新扫描的还是缓存的。
+ * 系统或其他应用发起的扫描也会带来新的结果，同样用于调整间隔，并推迟下一次自动扫描。
+ */
+public class ScanScheduler {
+
+    /**
+     * 限流窗口内允许的扫描次数
+     */
+    public static final int THROTTLE_MAX_SCANS = 4;
+
+    /**
+     * 限流窗口 毫秒
+     */
+    public static final long THROTTLE_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * 最短扫描间隔，正好用完限流预算
+     */
+    public static final long MIN_INTERVAL_MILLIS = THROTTLE_WINDOW_MILLIS / THROTTLE_MAX_SCANS;
+
+    /**
+     * 最长扫描间隔
+     */
+    public static final long MAX_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(8);
+
+    /**
+     * 变化比例高于此值时恢复最短间隔
+     */
+    static final double HIGH_CHANGE_RATIO = 0.3;
+
+    /**
+     * 变化比例低于此值时延长间隔
+     */
+    static final double LOW_CHANGE_RATIO = 0.05;
+
+    /**
+     * 信号强度变化超过此值才算作变化 dBm
+     */
+    static final int LEVEL_CHANGE_THRESHOLD = 6;
+
+    private final ScanTrigger scanTrigger;
+
+    private final LongSupplier clock;
+
+    private final ScheduledExecutorService executor;
+
+    private final long[] scanTimes = new long[THROTTLE_MAX_SCANS];//最近几次扫描的时间，环形数组
+
+    private int scanCount;
+
+    private long interval = MIN_INTERVAL_MILLIS;
+
+    private boolean scanPending;//是否有已发起但还没有收到结果的扫描
+
+    private Map<String, Integer> lastLevels = new HashMap<>();//BSSID -> 信号强度
+
+    private ScheduledFuture<?> future;
+
+    private boolean started;
+
+    public ScanScheduler(ScanTrigger scanTrigger) {
+        this(scanTrigger, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()),
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "wifi-scan-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * @param scanTrigger 发起扫描
+     * @param clock       单调递增的时钟 毫秒
+     * @param executor    定时任务线程
+     */
+    public ScanScheduler(ScanTrigger scanTrigger, LongSupplier clock, ScheduledExecutorService executor) {
+        this.scanTrigger = scanTrigger;
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    /**
+     * 开始自动扫描
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        schedule(millisUntilNextSlot());
+    }
+
+    /**
+     * 停止自动扫描
+     */
+    public synchronized void stop() {
+        started = false;
+        cancel();
+    }
+
+    /**
+     * 停止并释放定时任务线程
+     */
+    public void release() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 立即扫描一次，预算用完时不会发起扫描
+     *
+     * @return 是否发起了扫描
+     */
+    public synchronized boolean requestScan() {
+        if (millisUntilNextSlot() > 0) {
+            return false;
+        }
+        boolean success = scanTrigger.startScan();
+        if (success) {
+            scanTimes[scanCount++ % THROTTLE_MAX_SCANS] = clock.getAsLong();
+            scanPending = true;
+        }
+        if (started) {
+            schedule(Math.max(interval, millisUntilNextSlot()));
+        }
+        return success;
+    }
+
+    /**
+     * 收到扫描结果
+     *
+     * @param updated  结果是否已更新，对应广播中的 EXTRA_RESULTS_UPDATED，不论是否由本应用发起
+     * @param snapshot 处理后的扫描结果
+     * @return 结果是新扫描的还是缓存的
+     */
+    public synchronized Freshness onScanResults(boolean updated, List<WifiScanEntry> snapshot) {
+        boolean requested = scanPending;
+        if (!updated) {
+            //本应用发起的扫描只拿到缓存的结果，说明被系统限制，延长间隔
+            if (requested) {
+                scanPending = false;
+                interval = Math.min(interval * 2, MAX_INTERVAL_MILLIS);
+            }
+            return Freshness.CACHED;
+        }
+        scanPending = false;
+        Map<String, Integer> levels = new HashMap<>(snapshot.size() * 4 / 3 + 1);
+        for (WifiScanEntry entry : snapshot) {
+            levels.put(entry.getBssid(), entry.getLevel());
+        }
+        double ratio = changeRatio(lastLevels, levels);
+        lastLevels = levels;
+        if (ratio >= HIGH_CHANGE_RATIO) {
+            interval = MIN_INTERVAL_MILLIS;
+        } else if (ratio <= LOW_CHANGE_RATIO) {
+            interval = Math.min(interval * 2, MAX_INTERVAL_MILLIS);
+        }
+        if (started) {
+            schedule(Math.max(interval, millisUntilNextSlot()));
+        }
+        return Freshness.FRESH;
+    }
+
+    /**
+     * 当前限流窗口内剩余的扫描次数
+     */
+    public synchronized int getRemainingBudget() {
+        long now = clock.getAsLong();
+        int used = 0;
+        for (int i = 0; i < Math.min(scanCount, THROTTLE_MAX_SCANS); i++) {
+            if (now - scanTimes[i] < THROTTLE_WINDOW_MILLIS) {
+                used++;
+            }
+        }
+        return THROTTLE_MAX_SCANS - used;
+    }
+
+    /**
+     * 距离下一次可以扫描的时间 毫秒，0表示现在就可以扫描
+     */
+    public synchronized long millisUntilNextSlot() {
+        if (scanCount < THROTTLE_MAX_SCANS) {
+            return 0;
+        }
+        //环形数组中最早的一次扫描滑出窗口后才有新的预算
+        long oldest = scanTimes[scanCount % THROTTLE_MAX_SCANS];
+        return Math.max(0, oldest + THROTTLE_WINDOW_MILLIS - clock.getAsLong());
+    }
+
+    /**
+     * 当前的自动扫描间隔 毫秒
+     */
+    public synchronized long getInterval() {
+        return interval;
+    }
+
+    private void schedule(long delay) {
+        cancel();
+        future = executor.schedule(this::onTick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancel() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    private synchronized void onTick() {
+        if (!started) {
+            return;
+        }
+        if (!requestScan()) {
+            //发起失败或预算用完，等到下一个可用时间再试
+            schedule(Math.max(MIN_INTERVAL_MILLIS, millisUntilNextSlot()));
+        }
+    }
+
+    /**
+     * 计算两次扫描之间发生变化的接入点比例，新增、消失和信号强度明显变化都算作变化
+     *
+     * @param previous 上一次的 BSSID -> 信号强度
+     * @param current  本次的 BSSID -> 信号强度
+     */
+    static double changeRatio(Map<String, Integer> previous, Map<String, Integer> current) {
+        if (previous.isEmpty() && current.isEmpty()) {
+            return 0;
+        }
+        int changed = 0;
+        int common = 0;
+        for (Map.Entry<String, Integer> entry : current.entrySet()) {
+            Integer level = previous.get(entry.getKey());
+            if (level == null) {
+                changed++;
+            } else {
+                common++;
+                if (Math.abs(level - entry.getValue()) >= LEVEL_CHANGE_THRESHOLD) {
+                    changed++;
+                }
+            }
+        }
+        int removed = previous.size() - common;
+        int union = current.size() + removed;
+        return (double) (changed + removed) / union;
+    }
+
+    /**
+     * 扫描结果的新旧
+     */
+    public enum Freshness {
+        /**
+         * 新扫描的结果，包括系统或其他应用发起的扫描
+         */
+        FRESH,
+        /**
+         * 扫描被限流或失败，结果是系统缓存的
+         */
+        CACHED
+    }
+}
@@ -0,0 +1,62 @@
+package com.llw.wifi;
+
+import java.util.List;
+
+/**
+ * 一次处理完成的扫描结果
+ */
+public final class ScanSnapshot {
+
+    private final List<WifiScanEntry> entries;//过滤、去重和排序后的结果
+
+    private final long timeMillis;//处理完成的时间
+
+    private final boolean updated;//系统是否完成了新的扫描，false时为缓存的结果
+
+    private final long clockMicros;//处理完成时扫描时间戳所用时钟的读数，0表示未知
+
+    public ScanSnapshot(List<WifiScanEntry> entries, long timeMillis, boolean updated) {
+        this(entries, timeMillis, updated, 0);
+    }
+
+    /**
+     * @param clockMicros 处理完成时扫描时间戳所用时钟的读数，用于计算每个接入点最后一次被扫描到的时间，
+     *                    Android 上为开机以来的微秒数
+     */
+    public ScanSnapshot(List<WifiScanEntry> entries, long timeMillis, boolean updated, long clockMicros) {
+        this.entries = entries;
+        this.timeMillis = timeMillis;
+        this.updated = updated;
+        this.clockMicros = clockMicros;
+    }
+
+    public List<WifiScanEntry> getEntries() {
+        return entries;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public boolean isUpdated() {
+        return updated;
+    }
+
+    public long getClockMicros() {
+        return clockMicros;
+    }
+
+    /**
+     * 接入点最后一次被扫描到的时间
+     *
+     * @param entry 快照中的扫描结果
+     * @return 时间戳无法换算时返回快照的时间
+     */
+    public long getSeenMillis(WifiScanEntry entry) {
+        long timestamp = entry.getTimestamp();
+        if (clockMicros <= 0 || timestamp <= 0 || timestamp > clockMicros) {
+            return timeMillis;
+        }
+        return timeMillis - (clockMicros - timestamp) / 1000;
+    }
+}
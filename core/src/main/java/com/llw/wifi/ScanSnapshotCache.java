@@ -0,0 +1,204 @@
+package com.llw.wifi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 最近一次扫描结果的缓存
+ * <p>
+ * 启动时先显示上一次的结果，不需要等待扫描广播。文件格式为：
+ * 文件头 标识(4) 数量(4) 快照时间(8)，之后每个接入点一条记录：
+ * BSSID(6) 频率(2) 信道宽度(2) 中心频率(2) 信号强度(1) 平滑后的信号强度(1) 信号图标等级(1) 保留(1)
+ * 加密能力位标志(2) 距快照时间的秒数(4) 名称长度(2) 名称(UTF-8)。标识不同的旧格式缓存直接丢弃。
+ * 先写临时文件再重命名替换，写入中途退出不会留下不完整的缓存；读取时将文件映射到内存。
+ */
+public class ScanSnapshotCache {
+
+    private static final int MAGIC = 0x57534332;//WSC2
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int RECORD_SIZE = 26;//不含名称
+
+    private final File file;
+
+    private final Executor executor;//写入线程
+
+    private final AtomicReference<ScanSnapshot> pending = new AtomicReference<>();//等待写入的快照
+
+    private volatile ErrorListener errorListener;
+
+    /**
+     * @param file     缓存文件，所在目录不存在时自动创建
+     * @param executor 执行 {@link #save(ScanSnapshot)} 的写入
+     */
+    public ScanSnapshotCache(File file, Executor executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /**
+     * 设置后台写入失败的监听
+     */
+    public void setErrorListener(ErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * 在后台写入，写入较慢时只写入最新的快照
+     */
+    public void save(ScanSnapshot snapshot) {
+        if (pending.getAndSet(snapshot) == null) {
+            executor.execute(() -> {
+                ScanSnapshot latest = pending.getAndSet(null);
+                try {
+                    write(latest);
+                } catch (IOException e) {
+                    ErrorListener listener = errorListener;
+                    if (listener != null) {
+                        listener.onError(e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 立即写入
+     */
+    public synchronized void write(ScanSnapshot snapshot) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录 " + directory);
+        }
+        List<WifiScanEntry> entries = snapshot.getEntries();
+        List<byte[]> names = new ArrayList<>(entries.size());
+        int size = HEADER_SIZE;
+        for (WifiScanEntry entry : entries) {
+            byte[] name = entry.getSsid().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += RECORD_SIZE + name.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(0);
+        buffer.putLong(snapshot.getTimeMillis());
+        int count = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            WifiScanEntry entry = entries.get(i);
+            long bssid = MacAddresses.toLong(entry.getBssid());
+            byte[] name = names.get(i);
+            if (bssid == MacAddresses.INVALID || name.length > 0xffff) {
+                continue;
+            }
+            long age = (snapshot.getTimeMillis() - snapshot.getSeenMillis(entry)) / 1000;
+            buffer.putShort((short) (bssid >>> 32));
+            buffer.putInt((int) bssid);
+            buffer.putShort((short) entry.getFrequency());
+            buffer.putShort((short) entry.getChannelWidth());
+            buffer.putShort((short) entry.getCenterFrequency());
+            buffer.put(toByte(entry.getLevel()));
+            buffer.put(toByte(entry.getSmoothedLevel()));
+            buffer.put((byte) entry.getSignalBucket());
+            buffer.put((byte) 0);
+            buffer.putShort((short) entry.getCapabilityFlags());
+            buffer.putInt((int) Math.min(Integer.MAX_VALUE, Math.max(0, age)));
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+            count++;
+        }
+        buffer.putInt(4, count);
+        buffer.flip();
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            //先落盘再替换，断电后不会得到空文件
+            out.getFD().sync();
+        }
+        //同一文件系统内重命名是原子的
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("无法替换缓存文件 " + file);
+        }
+    }
+
+    /**
+     * 读取缓存
+     * <p>
+     * 返回的快照中扫描结果的时间戳为最后一次被扫描到的时间（微秒），
+     * 通过 {@link ScanSnapshot#getSeenMillis(WifiScanEntry)} 换算。
+     *
+     * @return 没有缓存或格式错误时返回null
+     */
+    public ScanSnapshot read() throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                return null;
+            }
+            int count = buffer.getInt();
+            long timeMillis = buffer.getLong();
+            if (count < 0 || count > (size - HEADER_SIZE) / RECORD_SIZE) {
+                return null;
+            }
+            List<WifiScanEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long bssid = (buffer.getShort() & 0xffffL) << 32 | (buffer.getInt() & 0xffffffffL);
+                int frequency = buffer.getShort() & 0xffff;
+                int channelWidth = buffer.getShort() & 0xffff;
+                int centerFrequency = buffer.getShort() & 0xffff;
+                int level = buffer.get();
+                int smoothedLevel = buffer.get();
+                int signalBucket = buffer.get();
+                buffer.get();
+                int capabilityFlags = buffer.getShort() & 0xffff;
+                long seenMillis = timeMillis - (buffer.getInt() & 0xffffffffL) * 1000;
+                byte[] name = new byte[buffer.getShort() & 0xffff];
+                buffer.get(name);
+                WifiScanEntry entry = new WifiScanEntry(new String(name, StandardCharsets.UTF_8), MacAddresses.toString(bssid),
+                        WifiCapabilities.describe(capabilityFlags), frequency, level, seenMillis * 1000,
+                        channelWidth, centerFrequency);
+                entries.add(entry.withSignal(smoothedLevel, signalBucket));
+            }
+            //时间戳与快照时间使用同一个时钟
+            return new ScanSnapshot(Collections.unmodifiableList(entries), timeMillis, false, timeMillis * 1000);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static byte toByte(int level) {
+        return (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, level));
+    }
+
+    /**
+     * 后台写入失败回调，在写入线程中调用
+     */
+    public interface ErrorListener {
+
+        void onError(IOException e);
+    }
+}
@@ -0,0 +1,14 @@
+package com.llw.wifi;
+
+import java.util.List;
+
+/**
+ * 扫描结果来源
+ */
+public interface ScanSource {
+
+    /**
+     * 获取最近一次的扫描结果，可能在后台线程调用
+     */
+    List<WifiScanEntry> getScanResults();
+}
@@ -0,0 +1,14 @@
+package com.llw.wifi;
+
+/**
+ * 发起Wifi扫描
+ */
+public interface ScanTrigger {
+
+    /**
+     * 发起一次扫描
+     *
+     * @return 扫描是否成功发起
+     */
+    boolean startScan();
+}
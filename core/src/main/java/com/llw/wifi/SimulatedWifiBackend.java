@@ -0,0 +1,576 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * 模拟的Wifi系统接口，用于在普通 JVM 中进行高密度负载测试
+ * <p>
+ * 生成指定数量的接入点，每次扫描完成时信号强度随机游走并向初始值回归，少量接入点更换信道，
+ * 信号低于 {@link #VISIBLE_LEVEL} 的接入点不出现在扫描结果中。连接的成功率随信号减弱而降低，
+ * 耗时服从对数正态分布；已连接的接入点不可见时断开。
+ * <p>
+ * 使用虚拟时钟，只有调用 {@link #advance(long)} 时时间才会前进，扫描和连接结果在其中回调。
+ * 相同的种子和相同的调用顺序总是得到相同的结果。
+ */
+public class SimulatedWifiBackend implements WifiBackend {
+
+    /**
+     * 默认的扫描耗时
+     */
+    public static final long DEFAULT_SCAN_DURATION_MILLIS = 3_000;
+
+    /**
+     * 默认每次扫描信号强度变化的标准差 dB
+     */
+    public static final double DEFAULT_RSSI_STEP = 2;
+
+    /**
+     * 默认每次扫描每个接入点更换信道的概率
+     */
+    public static final double DEFAULT_CHANNEL_CHURN = 0.01;
+
+    /**
+     * 默认信号良好时的连接成功率
+     */
+    public static final double DEFAULT_SUCCESS_RATE = 0.9;
+
+    /**
+     * 默认连接耗时的中位数
+     */
+    public static final long DEFAULT_MEDIAN_LATENCY_MILLIS = 1_500;
+
+    /**
+     * 默认连接耗时的对数标准差
+     */
+    public static final double DEFAULT_LATENCY_SIGMA = 0.5;
+
+    /**
+     * 默认每个应用建议网络数量上限
+     */
+    public static final int DEFAULT_MAX_SUGGESTIONS = 50;
+
+    /**
+     * 信号低于该值时扫描不到
+     */
+    public static final int VISIBLE_LEVEL = -92;
+
+    static final int GOOD_LEVEL = -80;//信号不低于该值时连接成功率不降低
+
+    static final double REVERSION = 0.05;//每次扫描向初始信号强度回归的比例
+
+    //与 WifiManager.STATUS_NETWORK_SUGGESTIONS_* 相同
+    static final int STATUS_ERROR_ADD_EXCEEDS_MAX_PER_APP = 4;
+
+    static final int STATUS_ERROR_REMOVE_INVALID = 5;
+
+    private static final String[] CAPABILITIES = {
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+            "[RSN-SAE-CCMP][ESS]",
+            "[WPA2-EAP-CCMP][RSN-EAP-CCMP][ESS]",
+            "[RSN-OWE-CCMP][ESS]",
+            "[ESS]"
+    };
+
+    private static final int[] CHANNELS_2_4_GHZ = channels(new int[][]{{1, 13}}, 1);
+
+    private static final int[] CHANNELS_5_GHZ = channels(new int[][]{{36, 64}, {100, 144}, {149, 165}}, 4);
+
+    private static final int[] CHANNELS_6_GHZ = channels(new int[][]{{1, 233}}, 4);
+
+    private static final int[] WIDTHS_5_GHZ = {20, 40, 80, 80, 160};
+
+    private static final int[] WIDTHS_6_GHZ = {80, 160};
+
+    private final Random random;
+
+    private final List<AccessPoint> accessPoints;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();//按时间排序的待处理事件
+
+    private final List<SimulatedRequest> requests = new ArrayList<>();//连接中和已连接的请求
+
+    private final Map<String, WifiCredential> suggestions = new LinkedHashMap<>();//网络标识 -> 建议网络
+
+    private final List<String> configuredNetworks = new ArrayList<>();
+
+    private final SuggestionBatcher.Platform suggestionPlatform = new SuggestionPlatform();
+
+    private List<WifiScanEntry> scanResults = Collections.emptyList();//最近一次扫描结果
+
+    private ScanListener scanListener;
+
+    private long nowMillis;//虚拟时钟
+
+    private long sequence;//相同时间的事件按提交顺序处理
+
+    private boolean wifiEnabled = true;
+
+    private boolean scanning;
+
+    private int scanCount;
+
+    private long scanDurationMillis = DEFAULT_SCAN_DURATION_MILLIS;
+
+    private double rssiStep = DEFAULT_RSSI_STEP;
+
+    private double channelChurn = DEFAULT_CHANNEL_CHURN;
+
+    private double successRate = DEFAULT_SUCCESS_RATE;
+
+    private long medianLatencyMillis = DEFAULT_MEDIAN_LATENCY_MILLIS;
+
+    private double latencySigma = DEFAULT_LATENCY_SIGMA;
+
+    private int maxSuggestions = DEFAULT_MAX_SUGGESTIONS;
+
+    /**
+     * @param accessPoints 接入点数量，每个网络有1到4个接入点
+     * @param seed         随机种子
+     */
+    public SimulatedWifiBackend(int accessPoints, long seed) {
+        random = new Random(seed);
+        this.accessPoints = new ArrayList<>(accessPoints);
+        int network = 0;
+        while (this.accessPoints.size() < accessPoints) {
+            String ssid = "Sim-" + network++;
+            String capabilities = CAPABILITIES[random.nextInt(CAPABILITIES.length)];
+            int count = Math.min(1 + random.nextInt(4), accessPoints - this.accessPoints.size());
+            for (int i = 0; i < count; i++) {
+                AccessPoint ap = new AccessPoint(ssid, MacAddresses.toString(0x020000000000L + this.accessPoints.size()),
+                        capabilities, -35 - random.nextInt(56));
+                ap.changeChannel(random, randomBand(random));
+                this.accessPoints.add(ap);
+            }
+        }
+    }
+
+    public synchronized void setScanDurationMillis(long scanDurationMillis) {
+        this.scanDurationMillis = scanDurationMillis;
+    }
+
+    public synchronized void setRssiStep(double rssiStep) {
+        this.rssiStep = rssiStep;
+    }
+
+    public synchronized void setChannelChurn(double channelChurn) {
+        this.channelChurn = channelChurn;
+    }
+
+    /**
+     * 设置连接成功率和耗时分布
+     *
+     * @param successRate         信号良好时的成功率
+     * @param medianLatencyMillis 耗时中位数
+     * @param latencySigma        耗时的对数标准差，为0时耗时固定
+     */
+    public synchronized void setConnectDistribution(double successRate, long medianLatencyMillis, double latencySigma) {
+        this.successRate = successRate;
+        this.medianLatencyMillis = medianLatencyMillis;
+        this.latencySigma = latencySigma;
+    }
+
+    public synchronized void setMaxSuggestions(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    public synchronized void setConfiguredNetworks(Collection<String> ssids) {
+        configuredNetworks.clear();
+        configuredNetworks.addAll(ssids);
+    }
+
+    /**
+     * 开关Wifi，关闭时清空扫描结果，连接中的请求失败，已连接的请求断开
+     */
+    public void setWifiEnabled(boolean enabled) {
+        List<SimulatedRequest> pending = new ArrayList<>();
+        List<SimulatedRequest> lost = new ArrayList<>();
+        synchronized (this) {
+            wifiEnabled = enabled;
+            if (enabled) {
+                return;
+            }
+            scanning = false;
+            scanResults = Collections.emptyList();
+            for (SimulatedRequest request : requests) {
+                request.finished = true;
+                (request.connected ? lost : pending).add(request);
+            }
+            requests.clear();
+        }
+        pending.forEach(request -> request.callback.onUnavailable(request));
+        lost.forEach(request -> request.callback.onLost(request));
+    }
+
+    /**
+     * 虚拟时间前进，按时间顺序处理其间到期的扫描和连接事件，在调用线程中回调
+     */
+    public void advance(long millis) {
+        long target;
+        synchronized (this) {
+            target = nowMillis + millis;
+        }
+        while (true) {
+            Event event;
+            synchronized (this) {
+                event = events.peek();
+                if (event == null || event.timeMillis > target) {
+                    nowMillis = target;
+                    return;
+                }
+                events.poll();
+                nowMillis = event.timeMillis;
+            }
+            event.action.run();
+        }
+    }
+
+    /**
+     * 虚拟时钟 毫秒
+     */
+    public synchronized long getNowMillis() {
+        return nowMillis;
+    }
+
+    public int getAccessPointCount() {
+        return accessPoints.size();
+    }
+
+    /**
+     * 已完成的扫描次数
+     */
+    public synchronized int getScanCount() {
+        return scanCount;
+    }
+
+    @Override
+    public synchronized boolean isWifiEnabled() {
+        return wifiEnabled;
+    }
+
+    @Override
+    public synchronized void setScanListener(ScanListener listener) {
+        scanListener = listener;
+    }
+
+    /**
+     * 扫描进行中时合并为一次
+     */
+    @Override
+    public synchronized boolean startScan() {
+        if (!wifiEnabled) {
+            return false;
+        }
+        if (!scanning) {
+            scanning = true;
+            schedule(scanDurationMillis, this::completeScan);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized List<WifiScanEntry> getScanResults() {
+        return scanResults;
+    }
+
+    @Override
+    public synchronized List<String> getConfiguredNetworks() {
+        return new ArrayList<>(configuredNetworks);
+    }
+
+    /**
+     * 连接该网络信号最强的可见接入点，没有可见的接入点时超时失败
+     */
+    @Override
+    public synchronized Request requestNetwork(WifiCredential credential, long timeoutMillis, RequestCallback callback) {
+        SimulatedRequest request = new SimulatedRequest(callback);
+        requests.add(request);
+        AccessPoint target = null;
+        if (wifiEnabled) {
+            for (AccessPoint ap : accessPoints) {
+                if (ap.ssid.equals(credential.getSsid()) && ap.security == credential.getSecurity()
+                        && ap.level >= VISIBLE_LEVEL && (target == null || ap.level > target.level)) {
+                    target = ap;
+                }
+            }
+        }
+        //总是抽取相同数量的随机数，保证后续结果与本次是否找到接入点无关
+        long latency = Math.max(1, Math.round(medianLatencyMillis * Math.exp(latencySigma * random.nextGaussian())));
+        boolean success = random.nextDouble() < (target == null ? 0 : successProbability(target.level));
+        if (target == null) {
+            schedule(timeoutMillis, () -> fail(request));
+        } else if (!success || latency > timeoutMillis) {
+            schedule(Math.min(latency, timeoutMillis), () -> fail(request));
+        } else {
+            request.accessPoint = target;
+            schedule(latency, () -> connect(request));
+        }
+        return request;
+    }
+
+    @Override
+    public SuggestionBatcher.Platform getSuggestionPlatform() {
+        return suggestionPlatform;
+    }
+
+    @Override
+    public synchronized List<WifiCredential> getSuggestedNetworks() {
+        return new ArrayList<>(suggestions.values());
+    }
+
+    /**
+     * 信号良好时为设置的成功率，信号低于 {@link #GOOD_LEVEL} 后线性降低，在可见的临界值为0
+     */
+    double successProbability(double level) {
+        double factor = (level - VISIBLE_LEVEL) / (GOOD_LEVEL - VISIBLE_LEVEL);
+        return successRate * Math.max(0, Math.min(1, factor));
+    }
+
+    private void schedule(long delayMillis, Runnable action) {
+        events.add(new Event(nowMillis + Math.max(0, delayMillis), sequence++, action));
+    }
+
+    private void completeScan() {
+        ScanListener listener;
+        List<SimulatedRequest> lost = new ArrayList<>();
+        synchronized (this) {
+            if (!scanning) {
+                //扫描期间Wifi被关闭
+                return;
+            }
+            scanning = false;
+            scanCount++;
+            long timestamp = nowMillis * 1000;
+            List<WifiScanEntry> entries = new ArrayList<>(accessPoints.size());
+            for (AccessPoint ap : accessPoints) {
+                ap.move(random, rssiStep, channelChurn);
+                if (ap.level >= VISIBLE_LEVEL) {
+                    entries.add(ap.toEntry(timestamp));
+                }
+            }
+            scanResults = Collections.unmodifiableList(entries);
+            for (int i = requests.size() - 1; i >= 0; i--) {
+                SimulatedRequest request = requests.get(i);
+                if (request.connected && request.accessPoint.level < VISIBLE_LEVEL) {
+                    request.finished = true;
+                    requests.remove(i);
+                    lost.add(request);
+                }
+            }
+            listener = scanListener;
+        }
+        lost.forEach(request -> request.callback.onLost(request));
+        if (listener != null) {
+            listener.onScanResults(true);
+        }
+    }
+
+    private void connect(SimulatedRequest request) {
+        synchronized (this) {
+            if (request.finished) {
+                return;
+            }
+            request.connected = true;
+        }
+        request.callback.onAvailable(request);
+        request.callback.onCapabilitiesChanged(request, true);
+    }
+
+    private void fail(SimulatedRequest request) {
+        synchronized (this) {
+            if (request.finished) {
+                return;
+            }
+            request.finished = true;
+            requests.remove(request);
+        }
+        request.callback.onUnavailable(request);
+    }
+
+    private static int randomBand(Random random) {
+        int value = random.nextInt(20);
+        return value < 8 ? WifiBand.BAND_2_4_GHZ : value < 17 ? WifiBand.BAND_5_GHZ : WifiBand.BAND_6_GHZ;
+    }
+
+    private static int[] channels(int[][] segments, int step) {
+        List<Integer> list = new ArrayList<>();
+        for (int[] segment : segments) {
+            for (int channel = segment[0]; channel <= segment[1]; channel += step) {
+                list.add(channel);
+            }
+        }
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 建议网络，名称和加密方式相同时替换；超出上限或移除不存在的网络时整批失败
+     */
+    private final class SuggestionPlatform implements SuggestionBatcher.Platform {
+
+        @Override
+        public int getMaxSuggestions() {
+            synchronized (SimulatedWifiBackend.this) {
+                return maxSuggestions;
+            }
+        }
+
+        @Override
+        public int add(List<WifiCredential> credentials) {
+            synchronized (SimulatedWifiBackend.this) {
+                Map<String, WifiCredential> added = new LinkedHashMap<>(suggestions);
+                for (WifiCredential credential : credentials) {
+                    added.put(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()), credential);
+                }
+                if (added.size() > maxSuggestions) {
+                    return STATUS_ERROR_ADD_EXCEEDS_MAX_PER_APP;
+                }
+                suggestions.clear();
+                suggestions.putAll(added);
+                return SuggestionBatcher.STATUS_SUCCESS;
+            }
+        }
+
+        @Override
+        public int remove(List<WifiCredential> credentials) {
+            synchronized (SimulatedWifiBackend.this) {
+                //与系统相同，空列表移除全部
+                if (credentials.isEmpty()) {
+                    suggestions.clear();
+                    return SuggestionBatcher.STATUS_SUCCESS;
+                }
+                for (WifiCredential credential : credentials) {
+                    if (!suggestions.containsKey(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()))) {
+                        return STATUS_ERROR_REMOVE_INVALID;
+                    }
+                }
+                for (WifiCredential credential : credentials) {
+                    suggestions.remove(NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity()));
+                }
+                return SuggestionBatcher.STATUS_SUCCESS;
+            }
+        }
+    }
+
+    /**
+     * 模拟的接入点
+     */
+    private static final class AccessPoint {
+
+        final String ssid;
+
+        final String bssid;
+
+        final String capabilities;
+
+        final WifiSecurity security;
+
+        final int baseLevel;//初始信号强度，随机游走向该值回归
+
+        double level;
+
+        int band;
+
+        int frequency;
+
+        int width;
+
+        int centerFrequency;
+
+        AccessPoint(String ssid, String bssid, String capabilities, int baseLevel) {
+            this.ssid = ssid;
+            this.bssid = bssid;
+            this.capabilities = capabilities;
+            this.security = WifiSecurity.of(capabilities);
+            this.baseLevel = baseLevel;
+            this.level = baseLevel;
+        }
+
+        void move(Random random, double step, double churn) {
+            level += step * random.nextGaussian() + (baseLevel - level) * REVERSION;
+            level = Math.max(-100, Math.min(-20, level));
+            if (random.nextDouble() < churn) {
+                changeChannel(random, band);
+            }
+        }
+
+        void changeChannel(Random random, int band) {
+            this.band = band;
+            int[] channels;
+            if (band == WifiBand.BAND_2_4_GHZ) {
+                channels = CHANNELS_2_4_GHZ;
+                width = 20;
+            } else if (band == WifiBand.BAND_5_GHZ) {
+                channels = CHANNELS_5_GHZ;
+                width = WIDTHS_5_GHZ[random.nextInt(WIDTHS_5_GHZ.length)];
+            } else {
+                channels = CHANNELS_6_GHZ;
+                width = WIDTHS_6_GHZ[random.nextInt(WIDTHS_6_GHZ.length)];
+            }
+            frequency = ChannelAnalyzer.frequencyOf(band, channels[random.nextInt(channels.length)]);
+            centerFrequency = ChannelAnalyzer.centerFrequencyOf(frequency, width);
+        }
+
+        WifiScanEntry toEntry(long timestamp) {
+            return new WifiScanEntry(ssid, bssid, capabilities, frequency, (int) Math.round(level), timestamp,
+                    width, centerFrequency);
+        }
+    }
+
+    /**
+     * 模拟的网络请求
+     */
+    private final class SimulatedRequest implements Request {
+
+        final RequestCallback callback;
+
+        AccessPoint accessPoint;//连接的接入点
+
+        boolean connected;
+
+        boolean finished;//已失败、断开或释放，不再回调
+
+        SimulatedRequest(RequestCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void release() {
+            synchronized (SimulatedWifiBackend.this) {
+                finished = true;
+                requests.remove(this);
+            }
+        }
+    }
+
+    private static final class Event implements Comparable<Event> {
+
+        final long timeMillis;
+
+        final long sequence;
+
+        final Runnable action;
+
+        Event(long timeMillis, long sequence, Runnable action) {
+            this.timeMillis = timeMillis;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            int result = Long.compare(timeMillis, o.timeMillis);
+            return result != 0 ? result : Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量提交建议网络
+ * <p>
+ * 记录已经提交的建议网络，每次提交时与之比较：凭据相同的不重复提交，密码变化的先移除旧的再添加，
+ * 超出每个应用建议网络数量上限的不提交。移除和添加按 {@link #DEFAULT_CHUNK_SIZE} 分批调用系统接口，
+ * 某一批失败时逐个重试，得到每个网络各自的结果。名称和加密方式相同的网络视为同一个建议网络。
+ */
+public class SuggestionBatcher {
+
+    /**
+     * 系统接口成功的返回值，与 WifiManager.STATUS_NETWORK_SUGGESTIONS_SUCCESS 相同
+     */
+    public static final int STATUS_SUCCESS = 0;
+
+    /**
+     * 默认每批提交的数量，避免单次跨进程调用的数据过大
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 50;
+
+    /**
+     * 单个网络的提交结果
+     */
+    public enum Status {
+        /**
+         * 新添加
+         */
+        ADDED,
+        /**
+         * 密码变化，已重新添加
+         */
+        UPDATED,
+        /**
+         * 已经提交过相同的凭据，没有重复提交
+         */
+        UNCHANGED,
+        /**
+         * 不在本次列表中，已移除
+         */
+        REMOVED,
+        /**
+         * 本次列表中重复的网络，只提交第一个
+         */
+        DUPLICATE,
+        /**
+         * 建议网络不支持的加密方式
+         */
+        UNSUPPORTED,
+        /**
+         * 超出每个应用建议网络数量上限
+         */
+        EXCEEDS_LIMIT,
+        /**
+         * 系统接口返回失败
+         */
+        FAILED
+    }
+
+    private final Platform platform;
+
+    private final int chunkSize;
+
+    private final Map<String, WifiCredential> suggested = new LinkedHashMap<>();//已提交的建议网络
+
+    public SuggestionBatcher(Platform platform) {
+        this(platform, DEFAULT_CHUNK_SIZE);
+    }
+
+    public SuggestionBatcher(Platform platform, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize < 1");
+        }
+        this.platform = platform;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 恢复已经提交的建议网络，如应用重启后从系统读取的列表
+     *
+     * @param credentials 已提交的凭据
+     */
+    public synchronized void restore(Collection<WifiCredential> credentials) {
+        suggested.clear();
+        for (WifiCredential credential : credentials) {
+            suggested.put(keyOf(credential), credential);
+        }
+    }
+
+    /**
+     * 已提交的建议网络
+     */
+    public synchronized List<WifiCredential> getSuggested() {
+        return Collections.unmodifiableList(new ArrayList<>(suggested.values()));
+    }
+
+    /**
+     * 批量提交建议网络
+     *
+     * @param credentials   要提交的凭据
+     * @param removeMissing 是否移除不在列表中的已提交网络
+     * @return 每个网络的结果，顺序与列表相同，移除的网络排在最后
+     */
+    public synchronized List<Result> submit(List<WifiCredential> credentials, boolean removeMissing) {
+        Result[] results = new Result[credentials.size()];
+        boolean[] updates = new boolean[results.length];//是否替换已提交的凭据
+        Map<String, Integer> requested = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();//需要添加的网络在列表中的位置
+        List<WifiCredential> removals = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            WifiCredential credential = credentials.get(i);
+            if (!isSupported(credential.getSecurity())) {
+                results[i] = new Result(credential, Status.UNSUPPORTED);
+                continue;
+            }
+            String key = keyOf(credential);
+            if (requested.putIfAbsent(key, i) != null) {
+                results[i] = new Result(credential, Status.DUPLICATE);
+                continue;
+            }
+            WifiCredential existing = suggested.get(key);
+            if (credential.equals(existing)) {
+                results[i] = new Result(credential, Status.UNCHANGED);
+            } else {
+                if (existing != null) {
+                    removals.add(existing);
+                    updates[i] = true;
+                }
+                pending.add(i);
+            }
+        }
+        List<Result> removed = new ArrayList<>();
+        if (removeMissing) {
+            for (Map.Entry<String, WifiCredential> entry : suggested.entrySet()) {
+                if (!requested.containsKey(entry.getKey())) {
+                    removals.add(entry.getValue());
+                }
+            }
+        }
+        //先移除，腾出数量
+        for (int from = 0; from < removals.size(); from += chunkSize) {
+            List<WifiCredential> chunk = removals.subList(from, Math.min(removals.size(), from + chunkSize));
+            int code = platform.remove(chunk);
+            for (WifiCredential credential : chunk) {
+                String key = keyOf(credential);
+                Integer index = requested.get(key);
+                if (code == STATUS_SUCCESS) {
+                    suggested.remove(key);
+                    if (index == null) {
+                        removed.add(new Result(credential, Status.REMOVED));
+                    }
+                } else if (index != null) {
+                    //旧的凭据没有移除，不能添加新的
+                    results[index] = new Result(credentials.get(index), Status.FAILED, code);
+                    pending.remove(index);
+                } else {
+                    removed.add(new Result(credential, Status.FAILED, code));
+                }
+            }
+        }
+        //超出数量上限的不提交
+        int capacity = Math.max(0, platform.getMaxSuggestions() - suggested.size());
+        List<WifiCredential> additions = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int index : pending) {
+            if (additions.size() < capacity) {
+                additions.add(credentials.get(index));
+                indexes.add(index);
+            } else {
+                results[index] = new Result(credentials.get(index), Status.EXCEEDS_LIMIT);
+            }
+        }
+        for (int from = 0; from < additions.size(); from += chunkSize) {
+            int to = Math.min(additions.size(), from + chunkSize);
+            List<WifiCredential> chunk = additions.subList(from, to);
+            int code = platform.add(chunk);
+            for (int i = from; i < to; i++) {
+                //整批失败时逐个重试
+                int entryCode = code == STATUS_SUCCESS || chunk.size() == 1
+                        ? code : platform.add(Collections.singletonList(additions.get(i)));
+                int index = indexes.get(i);
+                results[index] = onAdded(additions.get(i), entryCode, updates[index]);
+            }
+        }
+        List<Result> list = new ArrayList<>(results.length + removed.size());
+        Collections.addAll(list, results);
+        list.addAll(removed);
+        return Collections.unmodifiableList(list);
+    }
+
+    private Result onAdded(WifiCredential credential, int code, boolean update) {
+        if (code != STATUS_SUCCESS) {
+            return new Result(credential, Status.FAILED, code);
+        }
+        suggested.put(keyOf(credential), credential);
+        return new Result(credential, update ? Status.UPDATED : Status.ADDED);
+    }
+
+    /**
+     * 移除全部已提交的建议网络
+     *
+     * @return 移除的结果
+     */
+    public synchronized List<Result> clear() {
+        return submit(Collections.emptyList(), true);
+    }
+
+    /**
+     * 建议网络是否支持该加密方式，WEP 和企业级网络需要单独配置
+     */
+    public static boolean isSupported(WifiSecurity security) {
+        switch (security) {
+            case OPEN:
+            case OWE:
+            case PSK:
+            case SAE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static String keyOf(WifiCredential credential) {
+        return NetworkAggregator.keyOf(credential.getSsid(), credential.getSecurity());
+    }
+
+    /**
+     * 单个网络的结果
+     */
+    public static final class Result {
+
+        private final WifiCredential credential;
+
+        private final Status status;
+
+        private final int code;//系统接口的返回值
+
+        Result(WifiCredential credential, Status status) {
+            this(credential, status, STATUS_SUCCESS);
+        }
+
+        Result(WifiCredential credential, Status status, int code) {
+            this.credential = credential;
+            this.status = status;
+            this.code = code;
+        }
+
+        public WifiCredential getCredential() {
+            return credential;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 系统接口的返回值，只有 {@link Status#FAILED} 时有意义
+         */
+        public int getCode() {
+            return code;
+        }
+
+        @Override
+        public String toString() {
+            return credential.getSsid() + ": " + status + (status == Status.FAILED ? " (" + code + ")" : "");
+        }
+    }
+
+    /**
+     * 系统的建议网络接口
+     */
+    public interface Platform {
+
+        /**
+         * 每个应用建议网络数量上限
+         */
+        int getMaxSuggestions();
+
+        /**
+         * 添加建议网络
+         *
+         * @return 系统接口的返回值，成功为 {@link #STATUS_SUCCESS}
+         */
+        int add(List<WifiCredential> credentials);
+
+        /**
+         * 移除建议网络
+         *
+         * @return 系统接口的返回值，成功为 {@link #STATUS_SUCCESS}
+         */
+        int remove(List<WifiCredential> credentials);
+    }
+}
@@ -0,0 +1,63 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 模拟的扫描结果，用于性能测试和没有真实网络的环境
+ * <p>
+ * 相同的种子生成相同的网络；每次读取时约10%的接入点信号强度发生变化。
+ */
+public class SyntheticScanSource implements ScanSource {
+
+    private static final String[] CAPABILITIES = {
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+            "[RSN-SAE-CCMP][ESS]",
+            "[WPA2-EAP-CCMP][RSN-EAP-CCMP][ESS]",
+            "[ESS]"
+    };
+
+    private static final int[] WIDTHS = {20, 40, 80, 80};
+
+    private final List<WifiScanEntry> base;
+
+    private final Random random;
+
+    private long time;
+
+    /**
+     * @param networks 网络数量，每个网络有1到3个接入点
+     * @param seed     随机种子
+     */
+    public SyntheticScanSource(int networks, long seed) {
+        random = new Random(seed);
+        base = new ArrayList<>(networks * 2);
+        int ap = 0;
+        for (int i = 0; i < networks; i++) {
+            String ssid = (i % 7 == 0 ? "Guest-" : "Site-") + i;
+            String capabilities = CAPABILITIES[random.nextInt(CAPABILITIES.length)];
+            int count = 1 + random.nextInt(3);
+            for (int j = 0; j < count; j++, ap++) {
+                String bssid = String.format("02:00:00:%02x:%02x:%02x", ap >> 16 & 0xff, ap >> 8 & 0xff, ap & 0xff);
+                int frequency = random.nextBoolean() ? 2412 + 5 * random.nextInt(13) : 5180 + 20 * random.nextInt(8);
+                //5GHz 接入点使用20、40和80MHz信道
+                int width = WifiBand.of(frequency) == WifiBand.BAND_5_GHZ ? WIDTHS[ap % WIDTHS.length] : 20;
+                base.add(new WifiScanEntry(ssid, bssid, capabilities, frequency, -30 - random.nextInt(65), 0,
+                        width, ChannelAnalyzer.centerFrequencyOf(frequency, width)));
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<WifiScanEntry> getScanResults() {
+        time += 10_000_000L;
+        List<WifiScanEntry> entries = new ArrayList<>(base.size());
+        for (WifiScanEntry entry : base) {
+            int level = random.nextInt(10) == 0 ? entry.getLevel() - 5 + random.nextInt(11) : entry.getLevel();
+            entries.add(new WifiScanEntry(entry.getSsid(), entry.getBssid(), entry.getCapabilities(),
+                    entry.getFrequency(), level, time, entry.getChannelWidth(), entry.getCenterFrequency()));
+        }
+        return entries;
+    }
+}
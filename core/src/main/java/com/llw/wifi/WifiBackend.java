@@ -0,0 +1,116 @@
+package com.llw.wifi;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+/**
+ * Wifi系统接口
+ * <p>
+ * 扫描、读取扫描结果、已保存的网络、请求连接和建议网络。Android 上由 WifiManager 和 ConnectivityManager 实现，
+ * 也可以使用 {@link SimulatedWifiBackend} 在普通 JVM 中进行负载测试。
+ */
+public interface WifiBackend extends ScanTrigger, ScanSource {
+
+    /**
+     * Wifi是否已开启
+     */
+    boolean isWifiEnabled();
+
+    /**
+     * 设置扫描完成监听，设置为null时停止监听
+     */
+    void setScanListener(ScanListener listener);
+
+    /**
+     * 已保存的网络名称，不带引号；没有权限读取时返回空列表
+     */
+    List<String> getConfiguredNetworks();
+
+    /**
+     * 请求连接网络，结果通过回调通知，可能在其他线程回调
+     *
+     * @param credential    凭据
+     * @param timeoutMillis 超时时间，超时后回调 {@link RequestCallback#onUnavailable(Request)}
+     * @param callback      连接回调
+     * @return 本次请求，释放后系统断开该网络
+     */
+    Request requestNetwork(WifiCredential credential, long timeoutMillis, RequestCallback callback);
+
+    /**
+     * 提交建议网络的接口
+     */
+    SuggestionBatcher.Platform getSuggestionPlatform();
+
+    /**
+     * 本应用已提交的建议网络，无法读取时返回空列表
+     */
+    List<WifiCredential> getSuggestedNetworks();
+
+    /**
+     * 扫描完成监听
+     */
+    interface ScanListener {
+
+        /**
+         * @param updated 扫描结果是否已更新，扫描被限制时为false
+         */
+        void onScanResults(boolean updated);
+    }
+
+    /**
+     * 一次网络请求
+     */
+    interface Request {
+
+        /**
+         * 释放请求，之后不再回调，可以多次调用
+         */
+        void release();
+
+        /**
+         * 通过此网络创建连接的 SocketFactory，默认使用系统的默认网络
+         */
+        default SocketFactory getSocketFactory() {
+            return SocketFactory.getDefault();
+        }
+
+        /**
+         * 通过此网络解析域名
+         */
+        default InetAddress[] lookup(String host) throws UnknownHostException {
+            return InetAddress.getAllByName(host);
+        }
+    }
+
+    /**
+     * 网络请求回调
+     */
+    interface RequestCallback {
+
+        /**
+         * 已连接
+         */
+        void onAvailable(Request request);
+
+        /**
+         * 网络能力变化
+         *
+         * @param validated 是否已验证可以访问互联网
+         */
+        default void onCapabilitiesChanged(Request request, boolean validated) {
+        }
+
+        /**
+         * 连接失败或超时
+         */
+        void onUnavailable(Request request);
+
+        /**
+         * 已连接的网络断开
+         */
+        void onLost(Request request);
+    }
+}
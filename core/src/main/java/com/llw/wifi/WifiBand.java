@@ -0,0 +1,33 @@
+package com.llw.wifi;
+
+/**
+ * Wifi频段，取值为位标志，可以组合表示多个频段
+ */
+public final class WifiBand {
+
+    public static final int BAND_2_4_GHZ = 1;
+
+    public static final int BAND_5_GHZ = 1 << 1;
+
+    public static final int BAND_6_GHZ = 1 << 2;
+
+    private WifiBand() {
+    }
+
+    /**
+     * 根据频率获取频段
+     *
+     * @param frequency 频率 MHz
+     * @return 频段标志，无法识别时返回0
+     */
+    public static int of(int frequency) {
+        if (frequency >= 2400 && frequency < 2500) {
+            return BAND_2_4_GHZ;
+        } else if (frequency >= 4900 && frequency < 5900) {
+            return BAND_5_GHZ;
+        } else if (frequency >= 5925 && frequency <= 7125) {
+            return BAND_6_GHZ;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,171 @@
+package com.llw.wifi;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wifi加密能力解析
+ * <p>
+ * 将扫描结果中形如 [WPA2-PSK-CCMP][RSN-PSK+SAE-CCMP][ESS] 的加密能力描述解析为位标志。
+ * 附近接入点的描述大多相同，解析结果按描述字符串缓存，相同的描述只解析一次。
+ */
+public final class WifiCapabilities {
+
+    public static final int WEP = 1;
+
+    public static final int PSK = 1 << 1;
+
+    public static final int SAE = 1 << 2;
+
+    public static final int EAP = 1 << 3;
+
+    public static final int OWE = 1 << 4;
+
+    public static final int WPS = 1 << 5;
+
+    /**
+     * WPA2/WPA3过渡模式，同时支持PSK和SAE
+     */
+    public static final int PSK_SAE_TRANSITION = 1 << 6;
+
+    /**
+     * OWE过渡模式，开放网络同时存在对应的OWE网络
+     */
+    public static final int OWE_TRANSITION = 1 << 7;
+
+    /**
+     * WPA3企业版192位模式
+     */
+    public static final int EAP_SUITE_B = 1 << 8;
+
+    /**
+     * 缓存上限，超过后不再缓存新的描述
+     */
+    private static final int MAX_CACHE_SIZE = 512;
+
+    private static final ConcurrentHashMap<String, Integer> CACHE = new ConcurrentHashMap<>();
+
+    private WifiCapabilities() {
+    }
+
+    /**
+     * 解析加密能力描述，结果会被缓存
+     *
+     * @param capabilities 加密能力描述
+     * @return 位标志组合
+     */
+    public static int parse(String capabilities) {
+        if (capabilities == null || capabilities.isEmpty()) {
+            return 0;
+        }
+        Integer cached = CACHE.get(capabilities);
+        if (cached != null) {
+            return cached;
+        }
+        int flags = tokenize(capabilities);
+        if (CACHE.size() < MAX_CACHE_SIZE) {
+            CACHE.putIfAbsent(capabilities, flags);
+        }
+        return flags;
+    }
+
+    /**
+     * 解析加密能力描述，不使用缓存
+     *
+     * @param capabilities 加密能力描述
+     * @return 位标志组合
+     */
+    static int tokenize(String capabilities) {
+        int flags = 0;
+        int length = capabilities.length();
+        int start = 0;
+        //按 [ ] - + 分割，逐个识别认证方式
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? capabilities.charAt(i) : ']';
+            if (c == '[' || c == ']' || c == '-' || c == '+') {
+                if (i > start) {
+                    flags |= flagOf(capabilities, start, i);
+                }
+                start = i + 1;
+            }
+        }
+        if ((flags & (PSK | SAE)) == (PSK | SAE)) {
+            flags |= PSK_SAE_TRANSITION;
+        }
+        return flags;
+    }
+
+    private static int flagOf(String capabilities, int start, int end) {
+        //快速漫游 FT/PSK、FT/SAE、FT/EAP 与对应的认证方式相同
+        if (capabilities.startsWith("FT/", start)) {
+            start += 3;
+        }
+        switch (capabilities.charAt(start)) {
+            case 'E':
+                if (capabilities.startsWith("EAP_SUITE_B", start)) {
+                    return EAP | EAP_SUITE_B;
+                }
+                return capabilities.startsWith("EAP", start) ? EAP : 0;
+            case 'O':
+                if (regionEquals(capabilities, start, end, "OWE_TRANSITION")) {
+                    return OWE_TRANSITION;
+                }
+                return regionEquals(capabilities, start, end, "OWE") ? OWE : 0;
+            case 'P':
+                return regionEquals(capabilities, start, end, "PSK") ? PSK : 0;
+            case 'S':
+                return capabilities.startsWith("SAE", start) ? SAE : 0;
+            case 'W':
+                if (regionEquals(capabilities, start, end, "WEP")) {
+                    return WEP;
+                }
+                return regionEquals(capabilities, start, end, "WPS") ? WPS : 0;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean regionEquals(String capabilities, int start, int end, String token) {
+        return end - start == token.length() && capabilities.startsWith(token, start);
+    }
+
+    /**
+     * 根据位标志生成等价的加密能力描述，解析结果与原位标志一致
+     *
+     * @param flags 位标志组合
+     */
+    public static String describe(int flags) {
+        StringBuilder builder = new StringBuilder();
+        if (has(flags, WEP)) {
+            builder.append("[WEP]");
+        }
+        StringBuilder keyManagement = new StringBuilder();
+        appendToken(keyManagement, flags, PSK, "PSK");
+        appendToken(keyManagement, flags, SAE, "SAE");
+        appendToken(keyManagement, flags, EAP_SUITE_B, "EAP_SUITE_B_192");
+        if (!has(flags, EAP_SUITE_B)) {
+            appendToken(keyManagement, flags, EAP, "EAP");
+        }
+        appendToken(keyManagement, flags, OWE, "OWE");
+        appendToken(keyManagement, flags, OWE_TRANSITION, "OWE_TRANSITION");
+        if (keyManagement.length() > 0) {
+            builder.append("[RSN-").append(keyManagement).append("-CCMP]");
+        }
+        if (has(flags, WPS)) {
+            builder.append("[WPS]");
+        }
+        return builder.append("[ESS]").toString();
+    }
+
+    private static void appendToken(StringBuilder builder, int flags, int flag, String token) {
+        if (has(flags, flag)) {
+            if (builder.length() > 0) {
+                builder.append('+');
+            }
+            builder.append(token);
+        }
+    }
+
+    public static boolean has(int flags, int flag) {
+        return (flags & flag) != 0;
+    }
+}
@@ -0,0 +1,281 @@
+package com.llw.wifi;
+
+/**
+ * Wifi连接管理
+ * <p>
+ * 同一时间只保留一个网络请求：凭据完全相同的请求正在连接或已连接时直接复用，
+ * 名称相同但密码或加密方式不同时视为新的请求，新的请求会取消之前的请求。
+ * 连接失败、超时或断开后释放请求，避免回调数量超过系统上限。被替代或主动断开的请求也会通知断开。
+ * 已连接的网络可以通过 {@link #getConnectionPool()} 复用连接，请求结束时关闭连接池。
+ * 连接成功后请求需要保持，释放后系统会断开该网络。
+ */
+public class WifiConnectionManager {
+
+    /**
+     * 默认连接超时 毫秒
+     */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private final WifiBackend backend;//Wifi系统接口
+
+    private final int timeoutMillis;
+
+    private final ConnectionMetrics metrics;//连接耗时统计
+
+    private Attempt current;//当前的连接请求
+
+    private ConnectionState state = ConnectionState.IDLE;
+
+    private StateListener stateListener;
+
+    public WifiConnectionManager(WifiBackend backend, ConnectionMetrics metrics) {
+        this(backend, metrics, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public WifiConnectionManager(WifiBackend backend, ConnectionMetrics metrics, int timeoutMillis) {
+        this.backend = backend;
+        this.metrics = metrics;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setStateListener(StateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
+    /**
+     * 请求连接网络
+     *
+     * @param credential 凭据
+     * @param timing     本次连接的耗时记录，复用进行中的请求时由调用者丢弃
+     * @return 是否发起了新的请求，相同凭据的请求正在连接或已连接时返回false
+     */
+    public boolean connect(WifiCredential credential, ConnectionMetrics.Attempt timing) {
+        Attempt attempt;
+        Attempt superseded;
+        synchronized (this) {
+            if (current != null && current.credential.equals(credential)) {
+                return false;
+            }
+            //取消被替代的请求
+            superseded = current;
+            release(superseded);
+            attempt = new Attempt(credential, timing);
+            current = attempt;
+        }
+        if (superseded != null) {
+            cancel(superseded);
+        }
+        notifyState(attempt, ConnectionState.CONNECTING, null);
+        try {
+            WifiBackend.Request request = backend.requestNetwork(credential, timeoutMillis, attempt);
+            synchronized (this) {
+                attempt.request = request;
+                //请求返回前已经被替代或结束
+                if (attempt.released) {
+                    attempt.released = false;
+                    release(attempt);
+                }
+            }
+            metrics.mark(timing, ConnectionMetrics.Phase.SUBMITTED);
+        } catch (RuntimeException e) {
+            //回调数量超过上限、系统版本不支持等情况
+            attempt.finish(ConnectionState.FAILED, null);
+        }
+        return true;
+    }
+
+    /**
+     * 断开当前的网络请求
+     */
+    public void disconnect() {
+        Attempt attempt;
+        synchronized (this) {
+            attempt = current;
+            if (attempt == null) {
+                return;
+            }
+            current = null;
+            release(attempt);
+            state = ConnectionState.IDLE;
+        }
+        cancel(attempt);
+    }
+
+    public synchronized ConnectionState getState() {
+        return state;
+    }
+
+    /**
+     * 当前请求的网络名称，没有请求时返回null
+     */
+    public synchronized String getSsid() {
+        return current == null ? null : current.credential.getSsid();
+    }
+
+    /**
+     * 当前请求的凭据，没有请求时返回null
+     */
+    public synchronized WifiCredential getCredential() {
+        return current == null ? null : current.credential;
+    }
+
+    /**
+     * 已连接的网络请求，未连接时返回null
+     */
+    public synchronized WifiBackend.Request getConnectedRequest() {
+        return current == null ? null : current.connected;
+    }
+
+    /**
+     * 已连接网络的长连接池，第一次使用时创建，连接断开、被替代或主动断开时关闭
+     *
+     * @return 未连接时返回null
+     */
+    public synchronized ConnectionPool getConnectionPool() {
+        if (current == null || current.connected == null) {
+            return null;
+        }
+        if (current.pool == null) {
+            WifiBackend.Request request = current.connected;
+            current.pool = new ConnectionPool(request.getSocketFactory(), request::lookup,
+                    ConnectionPool.DEFAULT_MAX_IDLE_PER_ROUTE, ConnectionPool.DEFAULT_KEEP_ALIVE_MILLIS);
+        }
+        return current.pool;
+    }
+
+    /**
+     * 关闭结束的请求的连接池，使用中的连接归还时关闭
+     */
+    private void closePool(Attempt attempt) {
+        ConnectionPool pool;
+        synchronized (this) {
+            pool = attempt.pool;
+            attempt.pool = null;
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private void release(Attempt attempt) {
+        if (attempt == null || attempt.released) {
+            return;
+        }
+        attempt.released = true;
+        if (attempt.request != null) {
+            attempt.request.release();
+        }
+    }
+
+    /**
+     * 结束被替代或主动断开的请求：还没有结果的耗时记录为取消，并通知断开，已连接时带上断开的网络请求
+     */
+    private void cancel(Attempt attempt) {
+        closePool(attempt);
+        metrics.cancel(attempt.timing);
+        StateListener listener = stateListener;
+        if (listener != null) {
+            listener.onStateChanged(attempt.credential.getSsid(), ConnectionState.IDLE, attempt.connected);
+        }
+    }
+
+    private void notifyState(Attempt attempt, ConnectionState state, WifiBackend.Request request) {
+        StateListener listener;
+        synchronized (this) {
+            //被替代的请求不再更新状态
+            if (attempt != current && state != ConnectionState.IDLE) {
+                return;
+            }
+            this.state = state;
+            listener = stateListener;
+        }
+        if (listener != null) {
+            listener.onStateChanged(attempt.credential.getSsid(), state, request);
+        }
+    }
+
+    /**
+     * 一次连接请求
+     */
+    private class Attempt implements WifiBackend.RequestCallback {
+
+        final WifiCredential credential;
+
+        final ConnectionMetrics.Attempt timing;
+
+        WifiBackend.Request request;//请求返回前为null
+
+        volatile WifiBackend.Request connected;//已连接时的请求
+
+        ConnectionPool pool;//已连接网络的长连接池，第一次使用时创建
+
+        boolean released;
+
+        Attempt(WifiCredential credential, ConnectionMetrics.Attempt timing) {
+            this.credential = credential;
+            this.timing = timing;
+        }
+
+        @Override
+        public void onAvailable(WifiBackend.Request request) {
+            synchronized (WifiConnectionManager.this) {
+                if (current != this) {
+                    return;
+                }
+                connected = request;
+            }
+            metrics.mark(timing, ConnectionMetrics.Phase.AVAILABLE);
+            metrics.finish(timing, true);
+            notifyState(this, ConnectionState.CONNECTED, request);
+        }
+
+        @Override
+        public void onCapabilitiesChanged(WifiBackend.Request request, boolean validated) {
+            metrics.mark(timing, ConnectionMetrics.Phase.CAPABILITIES_CHANGED);
+            if (validated) {
+                metrics.mark(timing, ConnectionMetrics.Phase.VALIDATED);
+            }
+        }
+
+        @Override
+        public void onUnavailable(WifiBackend.Request request) {
+            //连接失败或超时
+            finish(ConnectionState.FAILED, null);
+        }
+
+        @Override
+        public void onLost(WifiBackend.Request request) {
+            finish(ConnectionState.IDLE, request);
+        }
+
+        void finish(ConnectionState state, WifiBackend.Request request) {
+            synchronized (WifiConnectionManager.this) {
+                if (current != this) {
+                    return;
+                }
+                current = null;
+                release(this);
+                WifiConnectionManager.this.state = state;
+            }
+            closePool(this);
+            metrics.finish(timing, false);
+            StateListener listener = stateListener;
+            if (listener != null) {
+                listener.onStateChanged(credential.getSsid(), state, request);
+            }
+        }
+    }
+
+    /**
+     * 连接状态监听
+     */
+    public interface StateListener {
+
+        /**
+         * @param ssid    名称
+         * @param state   状态
+         * @param request 已连接或断开的网络请求，其他状态为null
+         */
+        void onStateChanged(String ssid, ConnectionState state, WifiBackend.Request request);
+    }
+}
@@ -0,0 +1,66 @@
+package com.llw.wifi;
+
+import java.util.Objects;
+
+/**
+ * Wifi凭据
+ * <p>
+ * 名称、加密方式和密码，开放网络密码为空字符串。
+ */
+public final class WifiCredential {
+
+    private final String ssid;
+
+    private final WifiSecurity security;
+
+    private final String passphrase;
+
+    public WifiCredential(String ssid, WifiSecurity security, String passphrase) {
+        if (ssid == null || ssid.isEmpty()) {
+            throw new IllegalArgumentException("ssid is empty");
+        }
+        this.ssid = ssid;
+        this.security = Objects.requireNonNull(security, "security");
+        this.passphrase = passphrase == null ? "" : passphrase;
+    }
+
+    /**
+     * 开放网络的凭据
+     *
+     * @param ssid 名称
+     */
+    public static WifiCredential open(String ssid) {
+        return new WifiCredential(ssid, WifiSecurity.OPEN, "");
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public WifiSecurity getSecurity() {
+        return security;
+    }
+
+    public String getPassphrase() {
+        return passphrase;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WifiCredential)) return false;
+        WifiCredential that = (WifiCredential) o;
+        return ssid.equals(that.ssid) && security == that.security && passphrase.equals(that.passphrase);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ssid, security, passphrase);
+    }
+
+    @Override
+    public String toString() {
+        //不输出密码
+        return "WifiCredential{" + ssid + ", " + security + "}";
+    }
+}
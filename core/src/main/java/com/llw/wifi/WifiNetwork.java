@@ -0,0 +1,91 @@
+package com.llw.wifi;
+
+import java.util.List;
+
+/**
+ * 按名称和加密类型聚合的Wifi网络，包含该网络下的所有接入点
+ */
+public final class WifiNetwork {
+
+    private final String key;//聚合标识
+
+    private final String ssid;//名称
+
+    private final WifiSecurity security;//加密类型
+
+    private final List<WifiScanEntry> accessPoints;//接入点，按信号强度从强到弱排序
+
+    private final int bands;//频段标志集合
+
+    WifiNetwork(String key, String ssid, WifiSecurity security, List<WifiScanEntry> accessPoints, int bands) {
+        this.key = key;
+        this.ssid = ssid;
+        this.security = security;
+        this.accessPoints = accessPoints;
+        this.bands = bands;
+    }
+
+    /**
+     * 聚合标识，相同名称和加密类型的网络标识相同
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public WifiSecurity getSecurity() {
+        return security;
+    }
+
+    /**
+     * 信号最强的接入点
+     */
+    public WifiScanEntry getBestAccessPoint() {
+        return accessPoints.get(0);
+    }
+
+    public String getBestBssid() {
+        return getBestAccessPoint().getBssid();
+    }
+
+    /**
+     * 信号最强接入点的信号强度
+     */
+    public int getLevel() {
+        return getBestAccessPoint().getSmoothedLevel();
+    }
+
+    /**
+     * 信号最强接入点的信号图标等级 1~5
+     */
+    public int getSignalBucket() {
+        return getBestAccessPoint().getSignalBucket();
+    }
+
+    public List<WifiScanEntry> getAccessPoints() {
+        return accessPoints;
+    }
+
+    public int getAccessPointCount() {
+        return accessPoints.size();
+    }
+
+    /**
+     * 频段标志集合，见 {@link WifiBand}
+     */
+    public int getBands() {
+        return bands;
+    }
+
+    public boolean hasBand(int band) {
+        return (bands & band) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "WifiNetwork{" + ssid + ", " + security + ", " + accessPoints.size() + " AP, " + getLevel() + "dBm}";
+    }
+}
@@ -0,0 +1,138 @@
+package com.llw.wifi;
+
+/**
+ * Wifi扫描结果，与平台无关的不可变快照
+ */
+public final class WifiScanEntry {
+
+    private final String ssid;//名称
+
+    private final String bssid;//接入点MAC地址
+
+    private final String capabilities;//加密能力描述
+
+    private final int frequency;//主信道频率 MHz
+
+    private final int channelWidth;//信道宽度 MHz
+
+    private final int centerFrequency;//整个信道的中心频率 MHz，宽度为20MHz时与主信道频率相同
+
+    private final int level;//信号强度 dBm
+
+    private final long timestamp;//扫描时间戳 微秒
+
+    private final int capabilityFlags;//加密能力位标志
+
+    private final int smoothedLevel;//平滑后的信号强度 dBm
+
+    private final int signalBucket;//信号图标等级 1~5
+
+    public WifiScanEntry(String ssid, String bssid, String capabilities, int frequency, int level, long timestamp) {
+        this(ssid, bssid, capabilities, frequency, level, timestamp, 20, frequency);
+    }
+
+    /**
+     * @param channelWidth    信道宽度 MHz，如 20、40、80、160
+     * @param centerFrequency 整个信道的中心频率 MHz，不大于0时使用主信道频率
+     */
+    public WifiScanEntry(String ssid, String bssid, String capabilities, int frequency, int level, long timestamp,
+                         int channelWidth, int centerFrequency) {
+        this.ssid = ssid == null ? "" : ssid;
+        this.bssid = bssid == null ? "" : bssid;
+        this.capabilities = capabilities == null ? "" : capabilities;
+        this.frequency = frequency;
+        this.channelWidth = Math.max(20, channelWidth);
+        this.centerFrequency = centerFrequency > 0 ? centerFrequency : frequency;
+        this.level = level;
+        this.timestamp = timestamp;
+        this.capabilityFlags = WifiCapabilities.parse(this.capabilities);
+        this.smoothedLevel = level;
+        this.signalBucket = RssiTracker.bucketOf(level);
+    }
+
+    private WifiScanEntry(WifiScanEntry entry, int smoothedLevel, int signalBucket) {
+        this.ssid = entry.ssid;
+        this.bssid = entry.bssid;
+        this.capabilities = entry.capabilities;
+        this.frequency = entry.frequency;
+        this.channelWidth = entry.channelWidth;
+        this.centerFrequency = entry.centerFrequency;
+        this.level = entry.level;
+        this.timestamp = entry.timestamp;
+        this.capabilityFlags = entry.capabilityFlags;
+        this.smoothedLevel = smoothedLevel;
+        this.signalBucket = signalBucket;
+    }
+
+    /**
+     * 复制并设置平滑后的信号，见 {@link RssiTracker}
+     *
+     * @param smoothedLevel 平滑后的信号强度
+     * @param signalBucket  信号图标等级
+     */
+    public WifiScanEntry withSignal(int smoothedLevel, int signalBucket) {
+        return new WifiScanEntry(this, smoothedLevel, signalBucket);
+    }
+
+    public String getSsid() {
+        return ssid;
+    }
+
+    public String getBssid() {
+        return bssid;
+    }
+
+    public String getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * 加密能力位标志，见 {@link WifiCapabilities}
+     */
+    public int getCapabilityFlags() {
+        return capabilityFlags;
+    }
+
+    public WifiSecurity getSecurity() {
+        return WifiSecurity.of(capabilityFlags);
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    public int getChannelWidth() {
+        return channelWidth;
+    }
+
+    public int getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * 平滑后的信号强度，没有经过平滑时与 {@link #getLevel()} 相同
+     */
+    public int getSmoothedLevel() {
+        return smoothedLevel;
+    }
+
+    /**
+     * 信号图标等级 1~5
+     */
+    public int getSignalBucket() {
+        return signalBucket;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "WifiScanEntry{" + ssid + ", " + bssid + ", " + level + "dBm, " + frequency + "MHz}";
+    }
+}
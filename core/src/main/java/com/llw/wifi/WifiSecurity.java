@@ -0,0 +1,45 @@
+package com.llw.wifi;
+
+/**
+ * Wifi加密类型
+ */
+public enum WifiSecurity {
+    OPEN, OWE, WEP, PSK, SAE, EAP;
+
+    /**
+     * 根据扫描结果的加密能力描述判断加密类型
+     *
+     * @param capabilities 加密能力描述，如 [WPA2-PSK-CCMP][ESS]
+     */
+    public static WifiSecurity of(String capabilities) {
+        return of(WifiCapabilities.parse(capabilities));
+    }
+
+    /**
+     * 根据加密能力位标志判断加密类型，WPA2/WPA3过渡模式按PSK处理
+     *
+     * @param flags 见 {@link WifiCapabilities}
+     */
+    public static WifiSecurity of(int flags) {
+        if ((flags & WifiCapabilities.EAP) != 0) {
+            return EAP;
+        } else if ((flags & WifiCapabilities.PSK) != 0) {
+            return PSK;
+        } else if ((flags & WifiCapabilities.SAE) != 0) {
+            return SAE;
+        } else if ((flags & WifiCapabilities.WEP) != 0) {
+            return WEP;
+        } else if ((flags & WifiCapabilities.OWE) != 0) {
+            return OWE;
+        } else {
+            return OPEN;
+        }
+    }
+
+    /**
+     * 是否需要密码或证书
+     */
+    public boolean isSecured() {
+        return this != OPEN && this != OWE;
+    }
+}
@@ -0,0 +1,233 @@
+package com.llw.wifi;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Wifi开关状态跟踪
+ * <p>
+ * 由开关状态广播和网络回调上报状态，保存在原子变量中，读取时不需要调用系统服务。
+ * 状态保持 debounceMillis 不变才生效，打开或关闭过程中的短暂状态不会通知监听。
+ * 第一次上报的状态立即生效。需要Wifi已打开的任务在打开之前排队，打开后依次执行。
+ */
+public class WifiStateTracker {
+
+    /**
+     * 默认的状态稳定时间
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Wifi开关状态
+     */
+    public enum State {
+        DISABLING(0),
+        DISABLED(1),
+        ENABLING(2),
+        ENABLED(3),
+        UNKNOWN(4);
+
+        private final int value;//对应的 WifiManager.WIFI_STATE_*
+
+        State(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * @param value WifiManager.WIFI_STATE_*，不认识的值返回 {@link #UNKNOWN}
+         */
+        public static State of(int value) {
+            for (State state : values()) {
+                if (state.value == value) {
+                    return state;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+
+    private final long debounceMillis;
+
+    private final ScheduledExecutorService executor;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.UNKNOWN);//已生效的状态
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Set<Runnable> pending = new LinkedHashSet<>();//等待Wifi打开的任务，同一个任务只排队一次
+
+    private State reported = State.UNKNOWN;//最近一次上报的状态
+
+    private ScheduledFuture<?> future;//等待生效的状态
+
+    public WifiStateTracker() {
+        this(DEFAULT_DEBOUNCE_MILLIS, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "wifi-state-tracker");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @param debounceMillis 状态稳定时间，为0时立即生效
+     * @param executor       定时任务线程，延迟生效的状态在此线程中通知监听
+     */
+    public WifiStateTracker(long debounceMillis, ScheduledExecutorService executor) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("debounceMillis must not be negative");
+        }
+        this.debounceMillis = debounceMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * 上报系统的开关状态，可以在任意线程调用
+     */
+    public void report(State reported) {
+        boolean immediate;
+        synchronized (this) {
+            if (reported == this.reported) {
+                return;
+            }
+            this.reported = reported;
+            cancel();
+            State current = state.get();
+            if (reported == current) {
+                //在生效前恢复到原来的状态
+                return;
+            }
+            immediate = current == State.UNKNOWN || debounceMillis == 0;
+            if (!immediate) {
+                future = executor.schedule(() -> commit(reported), debounceMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (immediate) {
+            commit(reported);
+        }
+    }
+
+    /**
+     * 有Wifi网络可用时Wifi一定已打开，网络回调可能早于开关广播
+     */
+    public void reportNetworkAvailable() {
+        report(State.ENABLED);
+    }
+
+    private void commit(State target) {
+        List<Runnable> tasks = null;
+        State previous;
+        synchronized (this) {
+            //已被新的上报取代
+            if (target != reported) {
+                return;
+            }
+            future = null;
+            previous = state.getAndSet(target);
+            if (previous == target) {
+                return;
+            }
+            if (target == State.ENABLED && !pending.isEmpty()) {
+                tasks = new ArrayList<>(pending);
+                pending.clear();
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.onStateChanged(previous, target);
+        }
+        if (tasks != null) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * 已生效的状态
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isEnabled() {
+        return state.get() == State.ENABLED;
+    }
+
+    /**
+     * Wifi已打开时立即在当前线程执行，否则排队到打开后执行
+     *
+     * @return 是否已经执行
+     */
+    public boolean runWhenEnabled(Runnable task) {
+        synchronized (this) {
+            if (state.get() != State.ENABLED) {
+                pending.add(task);
+                return false;
+            }
+        }
+        task.run();
+        return true;
+    }
+
+    /**
+     * 取消排队的任务
+     */
+    public synchronized void cancel(Runnable task) {
+        pending.remove(task);
+    }
+
+    /**
+     * 排队的任务数量
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 添加状态变化监听，在上报线程或定时任务线程中回调
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 释放定时任务线程，等待生效的状态不再生效
+     */
+    public void release() {
+        synchronized (this) {
+            cancel();
+            pending.clear();
+        }
+        executor.shutdownNow();
+    }
+
+    private void cancel() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    /**
+     * 开关状态变化监听
+     */
+    public interface Listener {
+
+        void onStateChanged(State previous, State current);
+    }
+}
@@ -0,0 +1,125 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 信道分析测试
+ */
+public class ChannelAnalyzerTest {
+
+    private static final int[] BANDS = {WifiBand.BAND_2_4_GHZ, WifiBand.BAND_5_GHZ, WifiBand.BAND_6_GHZ};
+
+    private static WifiScanEntry ap(int index, int frequency, int width, int level) {
+        return new WifiScanEntry("site-" + index, MacAddresses.toString(0x020000000000L + index), "[ESS]",
+                frequency, level, 0, width, ChannelAnalyzer.centerFrequencyOf(frequency, width));
+    }
+
+    @Test
+    public void channelAndFrequency_convert() {
+        assertEquals(1, ChannelAnalyzer.channelOf(2412));
+        assertEquals(14, ChannelAnalyzer.channelOf(2484));
+        assertEquals(36, ChannelAnalyzer.channelOf(5180));
+        assertEquals(165, ChannelAnalyzer.channelOf(5825));
+        assertEquals(1, ChannelAnalyzer.channelOf(5955));
+        assertEquals(-1, ChannelAnalyzer.channelOf(900));
+        assertEquals(2484, ChannelAnalyzer.frequencyOf(WifiBand.BAND_2_4_GHZ, 14));
+        assertEquals(5500, ChannelAnalyzer.frequencyOf(WifiBand.BAND_5_GHZ, 100));
+        assertEquals(-1, ChannelAnalyzer.frequencyOf(WifiBand.BAND_5_GHZ, 38));
+        //80MHz 信道42、155，160MHz 信道50，6GHz 160MHz 信道15
+        assertEquals(5210, ChannelAnalyzer.centerFrequencyOf(5220, 80));
+        assertEquals(5775, ChannelAnalyzer.centerFrequencyOf(5805, 80));
+        assertEquals(5250, ChannelAnalyzer.centerFrequencyOf(5300, 160));
+        assertEquals(6025, ChannelAnalyzer.centerFrequencyOf(5975, 160));
+        assertEquals(2437, ChannelAnalyzer.centerFrequencyOf(2437, 40));
+    }
+
+    @Test
+    public void update_weightsOverlappingChannels() {
+        ChannelAnalyzer analyzer = new ChannelAnalyzer();
+        analyzer.update(Arrays.asList(ap(0, 2437, 20, -30), ap(1, 5180, 80, -30), ap(2, 5180, 20, -65)));
+        assertEquals(1, analyzer.getOccupancy(WifiBand.BAND_2_4_GHZ, 6));
+        assertEquals(1f, analyzer.getCongestion(WifiBand.BAND_2_4_GHZ, 6), 1e-6);
+        //相隔10MHz重叠一半，相隔20MHz不重叠
+        assertEquals(0.5f, analyzer.getCongestion(WifiBand.BAND_2_4_GHZ, 4), 1e-6);
+        assertEquals(0f, analyzer.getCongestion(WifiBand.BAND_2_4_GHZ, 2), 1e-6);
+        //80MHz 覆盖36~48信道
+        assertEquals(2, analyzer.getOccupancy(WifiBand.BAND_5_GHZ, 36));
+        assertEquals(1.5f, analyzer.getCongestion(WifiBand.BAND_5_GHZ, 36), 1e-6);
+        assertEquals(1f, analyzer.getCongestion(WifiBand.BAND_5_GHZ, 48), 1e-6);
+        assertEquals(0, analyzer.getOccupancy(WifiBand.BAND_5_GHZ, 44));
+        assertEquals(0f, analyzer.getCongestion(WifiBand.BAND_5_GHZ, 52), 1e-6);
+    }
+
+    @Test
+    public void bestChannel_avoidsCongestion() {
+        ChannelAnalyzer analyzer = new ChannelAnalyzer();
+        analyzer.update(Arrays.asList(ap(0, 2412, 20, -50), ap(1, 2437, 20, -70), ap(2, 5180, 80, -40),
+                ap(3, 5500, 20, -80)));
+        assertEquals(11, analyzer.getBestChannel(WifiBand.BAND_2_4_GHZ, 20));
+        assertEquals(52, analyzer.getBestChannel(WifiBand.BAND_5_GHZ, 20));
+        assertEquals(52, analyzer.getBestChannel(WifiBand.BAND_5_GHZ, 80));
+        //36~64被占用，100~128有一个弱信号
+        assertEquals(149, analyzer.getBestChannel(WifiBand.BAND_5_GHZ, 160));
+        assertEquals(1, analyzer.getBestChannel(WifiBand.BAND_6_GHZ, 160));
+        assertEquals(-1, analyzer.getBestChannel(WifiBand.BAND_5_GHZ, 60));
+        assertEquals(-1, analyzer.getBestChannel(0, 20));
+    }
+
+    @Test
+    public void update_incrementalMatchesFullRecompute() {
+        Random random = new Random(7);
+        int[] frequencies = {2412, 2437, 2462, 2484, 5180, 5260, 5500, 5745, 5825, 5955, 6115, 7115};
+        int[] widths = {20, 40, 80, 160};
+        ChannelAnalyzer incremental = new ChannelAnalyzer();
+        List<WifiScanEntry> scan = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            scan.clear();
+            for (int i = 0; i < 200; i++) {
+                //每轮约三分之一的接入点不出现，其余随机改变信道和信号
+                if (random.nextInt(3) == 0) {
+                    continue;
+                }
+                int frequency = frequencies[random.nextInt(frequencies.length)];
+                int width = WifiBand.of(frequency) == WifiBand.BAND_2_4_GHZ ? 20 : widths[random.nextInt(widths.length)];
+                scan.add(ap(i, frequency, width, -30 - random.nextInt(70)));
+            }
+            incremental.update(scan);
+        }
+        ChannelAnalyzer full = new ChannelAnalyzer();
+        full.update(scan);
+        assertEquals(full.getAccessPointCount(), incremental.getAccessPointCount());
+        for (int band : BANDS) {
+            for (int channel = 0; channel <= 233; channel++) {
+                assertEquals(full.getOccupancy(band, channel), incremental.getOccupancy(band, channel));
+                assertEquals(full.getCongestion(band, channel), incremental.getCongestion(band, channel), 0);
+            }
+            for (int width : widths) {
+                assertEquals(full.getBestChannel(band, width), incremental.getBestChannel(band, width));
+            }
+        }
+        //全部消失后恢复为0
+        incremental.update(Collections.emptyList());
+        assertEquals(0, incremental.getAccessPointCount());
+        for (int band : BANDS) {
+            for (int channel = 0; channel <= 233; channel++) {
+                assertEquals(0, incremental.getOccupancy(band, channel));
+                assertEquals(0f, incremental.getCongestion(band, channel), 0);
+            }
+        }
+    }
+
+    @Test
+    public void weight_clampsSignal() {
+        assertEquals(1, ChannelAnalyzer.weightOf(-120));
+        assertEquals(40, ChannelAnalyzer.weightOf(-60));
+        assertEquals(ChannelAnalyzer.MAX_WEIGHT, ChannelAnalyzer.weightOf(-10));
+    }
+}
@@ -0,0 +1,169 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 合并的数据流测试
+ */
+public class ConflatedStreamTest {
+
+    /**
+     * 手动执行的线程，模拟处理较慢的订阅者
+     */
+    private static final class ManualExecutor implements Executor {
+
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    public void slowSubscriber_getsLatestOnly() {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        ManualExecutor slow = new ManualExecutor();
+        List<Integer> received = new ArrayList<>();
+        stream.subscribe(slow, received::add);
+        for (int i = 1; i <= 100; i++) {
+            stream.publish(i);
+        }
+        //不会排队100次
+        assertEquals(1, slow.tasks.size());
+        slow.runAll();
+        assertEquals(List.of(100), received);
+    }
+
+    @Test
+    public void multipleSubscribers_eachReceive() {
+        ConflatedStream<String> stream = new ConflatedStream<>();
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        ManualExecutor slow = new ManualExecutor();
+        stream.subscribe(DIRECT, first::add);
+        stream.subscribe(slow, second::add);
+        stream.publish("a");
+        stream.publish("b");
+        slow.runAll();
+        assertEquals(List.of("a", "b"), first);
+        assertEquals(List.of("b"), second);
+    }
+
+    @Test
+    public void subscribe_receivesCurrentValue() {
+        ConflatedStream<String> stream = new ConflatedStream<>("initial");
+        List<String> received = new ArrayList<>();
+        stream.subscribe(DIRECT, received::add);
+        assertEquals(List.of("initial"), received);
+    }
+
+    @Test
+    public void sameValue_notDeliveredTwice() {
+        ConflatedStream<String> stream = new ConflatedStream<>();
+        ManualExecutor executor = new ManualExecutor();
+        List<String> received = new ArrayList<>();
+        stream.subscribe(executor, received::add);
+        stream.publish("a");
+        executor.runAll();
+        stream.publish("b");
+        stream.publish("a");
+        //分发前又变回原来的值，不再通知
+        String a = stream.getValue();
+        executor.runAll();
+        assertEquals(1, received.size());
+        assertSame(a, received.get(0));
+    }
+
+    @Test
+    public void close_stopsDeliveryAndTracksActive() {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        List<Boolean> active = new ArrayList<>();
+        stream.setActiveListener(active::add);
+        List<Integer> received = new ArrayList<>();
+        ConflatedStream.Subscription first = stream.subscribe(DIRECT, received::add);
+        ConflatedStream.Subscription second = stream.subscribe(DIRECT, value -> {
+        });
+        stream.publish(1);
+        first.close();
+        stream.publish(2);
+        assertEquals(List.of(1), received);
+        second.close();
+        //重复关闭没有影响
+        second.close();
+        assertEquals(List.of(true, false), active);
+        assertEquals(0, stream.getSubscriberCount());
+    }
+
+    @Test
+    public void rejectedExecution_closesSubscriber() {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        List<Boolean> active = new ArrayList<>();
+        stream.setActiveListener(active::add);
+        List<Integer> received = new ArrayList<>();
+        stream.subscribe(DIRECT, received::add);
+        //模拟已经 shutdown 的线程池
+        stream.subscribe(command -> {
+            throw new RejectedExecutionException();
+        }, value -> fail("delivered after shutdown"));
+        stream.publish(1);
+        assertEquals(List.of(1), received);
+        assertEquals(1, stream.getSubscriberCount());
+        stream.publish(2);
+        assertEquals(List.of(1, 2), received);
+        assertEquals(List.of(true), active);
+    }
+
+    @Test
+    public void activeChanges_alternateAndEndConsistent() throws InterruptedException {
+        ConflatedStream<Integer> stream = new ConflatedStream<>();
+        List<Boolean> active = Collections.synchronizedList(new ArrayList<>());
+        stream.setActiveListener(active::add);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 2000; j++) {
+                        stream.subscribe(DIRECT, value -> {
+                        }).close();
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertFalse(active.isEmpty());
+        for (int i = 0; i < active.size(); i++) {
+            assertEquals(i % 2 == 0, active.get(i));
+        }
+        //最后一个订阅者已取消
+        assertFalse(active.get(active.size() - 1));
+    }
+}
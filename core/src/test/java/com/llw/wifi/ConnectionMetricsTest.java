@@ -0,0 +1,116 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * 连接耗时统计测试
+ */
+public class ConnectionMetricsTest {
+
+    @Test
+    public void histogram_percentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 100L);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_050, histogram.getMean());
+        assertEquals(500_000, histogram.getPercentile(50), 500_000 * 0.125);
+        assertEquals(990_000, histogram.getPercentile(99), 990_000 * 0.125);
+        assertEquals(1_000_000, histogram.getPercentile(100));
+        assertTrue(histogram.getPercentile(50) >= 500_000);
+    }
+
+    @Test
+    public void histogram_bucketBoundsAreConsistent() {
+        for (long value = 0; value < 100_000; value += 7) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.upperBoundOf(index) >= value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(index - 1) < value);
+            }
+        }
+        assertEquals(0, new LatencyHistogram().getPercentile(50));
+    }
+
+    @Test
+    public void histogram_recordsConcurrently() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 25000; i++) {
+                    histogram.record(i);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(100000, histogram.getCount());
+    }
+
+    @Test
+    public void metrics_recordsEachPhaseOnce() {
+        ConnectionMetrics metrics = new ConnectionMetrics();
+        List<ConnectionMetrics.Phase> phases = new ArrayList<>();
+        List<Boolean> results = new ArrayList<>();
+        metrics.addListener(new ConnectionMetrics.Listener() {
+            @Override
+            public void onPhase(ConnectionMetrics.Attempt attempt, ConnectionMetrics.Phase phase, long micros) {
+                phases.add(phase);
+            }
+
+            @Override
+            public void onFinished(ConnectionMetrics.Attempt attempt, boolean success) {
+                results.add(success);
+            }
+        });
+
+        ConnectionMetrics.Attempt attempt = metrics.begin(ConnectionMetrics.Path.SPECIFIER, "office");
+        metrics.mark(attempt, ConnectionMetrics.Phase.BUILT);
+        metrics.mark(attempt, ConnectionMetrics.Phase.AVAILABLE);
+        metrics.mark(attempt, ConnectionMetrics.Phase.CAPABILITIES_CHANGED);
+        metrics.mark(attempt, ConnectionMetrics.Phase.CAPABILITIES_CHANGED);
+        metrics.finish(attempt, true);
+        metrics.finish(attempt, false);
+
+        assertEquals(3, phases.size());
+        assertEquals(1, results.size());
+        assertEquals(1, metrics.getSuccessCount(ConnectionMetrics.Path.SPECIFIER));
+        assertEquals(0, metrics.getFailureCount(ConnectionMetrics.Path.SPECIFIER));
+        assertEquals(1, metrics.histogram(ConnectionMetrics.Path.SPECIFIER, ConnectionMetrics.Phase.CAPABILITIES_CHANGED).getCount());
+        assertEquals(-1, attempt.getMicros(ConnectionMetrics.Phase.VALIDATED));
+        assertTrue(attempt.getMicros(ConnectionMetrics.Phase.AVAILABLE) >= attempt.getMicros(ConnectionMetrics.Phase.BUILT));
+        assertTrue(metrics.dump().startsWith("SPECIFIER: success=1 failure=0"));
+    }
+
+    @Test
+    public void discard_isNotCountedOrNotified() {
+        ConnectionMetrics metrics = new ConnectionMetrics();
+        List<Boolean> results = new ArrayList<>();
+        metrics.addListener(new ConnectionMetrics.Listener() {
+            @Override
+            public void onPhase(ConnectionMetrics.Attempt attempt, ConnectionMetrics.Phase phase, long micros) {
+
+            }
+
+            @Override
+            public void onFinished(ConnectionMetrics.Attempt attempt, boolean success) {
+                results.add(success);
+            }
+        });
+        ConnectionMetrics.Attempt attempt = metrics.begin(ConnectionMetrics.Path.SPECIFIER, "office");
+        metrics.discard(attempt);
+        metrics.finish(attempt, false);
+        assertTrue(results.isEmpty());
+        assertEquals(0, metrics.getFailureCount(ConnectionMetrics.Path.SPECIFIER));
+    }
+}
@@ -0,0 +1,216 @@
+package com.llw.wifi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.SocketFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * 长连接池测试，用本地回显服务代替设备
+ */
+public class ConnectionPoolTest {
+
+    private ServerSocket server;
+
+    private final AtomicInteger accepted = new AtomicInteger();//服务端接受的连接数量
+
+    private final List<Socket> serverSockets = new CopyOnWriteArrayList<>();
+
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    accepted.incrementAndGet();
+                    serverSockets.add(socket);
+                    new Thread(() -> echo(socket)).start();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        pool = new ConnectionPool(SocketFactory.getDefault());
+    }
+
+    /**
+     * 每收到一个字节回复一个字节，直到客户端关闭
+     */
+    private static void echo(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            int b;
+            while ((b = in.read()) >= 0) {
+                out.write(b);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.close();
+        server.close();
+        for (Socket socket : serverSockets) {
+            socket.close();
+        }
+    }
+
+    private int port() {
+        return server.getLocalPort();
+    }
+
+    private static void roundTrip(ConnectionPool.Connection connection, int value) throws IOException {
+        connection.getSocket().setSoTimeout(5000);
+        connection.getOutputStream().write(value);
+        connection.getOutputStream().flush();
+        assertEquals(value, connection.getInputStream().read());
+    }
+
+    @Test
+    public void acquire_reusesReleasedConnection() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            ConnectionPool.Connection connection = pool.acquire("localhost", port(), 5000);
+            assertEquals(i > 0, connection.isReused());
+            roundTrip(connection, i);
+            connection.release();
+        }
+        assertEquals(1, accepted.get());
+        assertEquals(1, pool.getConnectCount());
+        assertEquals(9, pool.getReuseCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void acquire_keepsIdlePerRouteAndClosesExtra() throws IOException {
+        pool = new ConnectionPool(SocketFactory.getDefault(), InetAddress::getAllByName, 2, 60_000);
+        ConnectionPool.Connection[] connections = new ConnectionPool.Connection[3];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = pool.acquire("localhost", port(), 5000);
+            roundTrip(connections[i], i);
+        }
+        for (ConnectionPool.Connection connection : connections) {
+            connection.release();
+        }
+        assertEquals(3, accepted.get());
+        assertEquals(2, pool.getIdleCount());
+        assertTrue(connections[2].getSocket().isClosed());
+        //最近归还的先复用
+        ConnectionPool.Connection reused = pool.acquire("localhost", port(), 5000);
+        assertSame(connections[1].getSocket(), reused.getSocket());
+        reused.close();
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void acquire_skipsConnectionClosedByServer() throws Exception {
+        ConnectionPool.Connection connection = pool.acquire("localhost", port(), 5000);
+        roundTrip(connection, 1);
+        connection.release();
+        for (Socket socket : serverSockets) {
+            socket.close();
+        }
+        //等待FIN到达
+        Thread.sleep(100);
+        ConnectionPool.Connection next = pool.acquire("localhost", port(), 5000);
+        assertFalse(next.isReused());
+        roundTrip(next, 2);
+        assertEquals(2, accepted.get());
+        assertTrue(connection.getSocket().isClosed());
+    }
+
+    @Test
+    public void acquire_skipsExpiredConnection() throws Exception {
+        pool = new ConnectionPool(SocketFactory.getDefault(), InetAddress::getAllByName, 4, 50);
+        ConnectionPool.Connection connection = pool.acquire("localhost", port(), 5000);
+        connection.release();
+        pool.acquire("localhost", port(), 5000).release();
+        assertEquals(1, pool.getReuseCount());
+        Thread.sleep(100);
+        assertEquals(1, pool.evictExpired());
+        assertEquals(0, pool.getIdleCount());
+        ConnectionPool.Connection next = pool.acquire("localhost", port(), 5000);
+        assertFalse(next.isReused());
+        roundTrip(next, 4);
+        next.release();
+        assertEquals(2, accepted.get());
+    }
+
+    @Test
+    public void evictAll_closesIdleAndInUseOnRelease() throws IOException {
+        ConnectionPool.Connection idle = pool.acquire("localhost", port(), 5000);
+        ConnectionPool.Connection inUse = pool.acquire("localhost", port(), 5000);
+        idle.release();
+        pool.evictAll();
+        assertTrue(idle.getSocket().isClosed());
+        assertEquals(0, pool.getIdleCount());
+        //网络断开前取出的连接不再归还到连接池
+        inUse.release();
+        assertTrue(inUse.getSocket().isClosed());
+        assertEquals(0, pool.getIdleCount());
+        ConnectionPool.Connection after = pool.acquire("localhost", port(), 5000);
+        after.release();
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void release_staleHandleDoesNotAffectNewHolder() throws IOException {
+        ConnectionPool.Connection first = pool.acquire("localhost", port(), 5000);
+        first.release();
+        ConnectionPool.Connection second = pool.acquire("localhost", port(), 5000);
+        assertSame(first.getSocket(), second.getSocket());
+        first.close();
+        first.release();
+        roundTrip(second, 3);
+        second.release();
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void close_rejectsAcquire() throws IOException {
+        ConnectionPool.Connection connection = pool.acquire("localhost", port(), 5000);
+        connection.release();
+        pool.close();
+        assertTrue(pool.isClosed());
+        assertTrue(connection.getSocket().isClosed());
+        try {
+            pool.acquire("localhost", port(), 5000);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void isHealthy_rejectsUnreadData() throws IOException {
+        ConnectionPool.Connection connection = pool.acquire("localhost", port(), 5000);
+        connection.getOutputStream().write(7);
+        connection.getOutputStream().flush();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (connection.getInputStream().available() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        //上一次的响应没有读完
+        assertFalse(ConnectionPool.isHealthy(connection.getSocket()));
+        connection.close();
+        assertFalse(ConnectionPool.isHealthy(connection.getSocket()));
+    }
+}
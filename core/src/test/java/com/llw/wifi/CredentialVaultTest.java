@@ -0,0 +1,166 @@
+package com.llw.wifi;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.*;
+
+/**
+ * 凭据存储测试
+ */
+public class CredentialVaultTest {
+
+    private static final WifiCredential HOME = new WifiCredential("家里", WifiSecurity.PSK, "12345678");
+
+    private static final WifiCredential OFFICE = new WifiCredential("office", WifiSecurity.SAE, "correct horse");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SecretKey key;
+
+    private File file;
+
+    private final List<Runnable> tasks = new ArrayList<>();//未执行的后台写入
+
+    private final List<Exception> errors = new ArrayList<>();
+
+    @Before
+    public void setUp() throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        key = generator.generateKey();
+        file = new File(folder.getRoot(), "vault/credentials.bin");
+    }
+
+    private CredentialVault newVault(SecretKey key) {
+        CredentialVault vault = new CredentialVault(file, () -> key, tasks::add);
+        vault.setErrorListener(errors::add);
+        return vault;
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    @Test
+    public void put_persistsEncryptedAndReloads() throws IOException {
+        CredentialVault vault = newVault(key);
+        vault.put(HOME);
+        vault.put(OFFICE);
+        assertEquals(HOME, vault.get("家里", WifiSecurity.PSK));
+        assertNull(vault.get("家里", WifiSecurity.SAE));
+        //连续修改只提交一次写入
+        assertEquals(1, tasks.size());
+        assertFalse(file.exists());
+        runTasks();
+        assertTrue(file.isFile());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        //文件中没有明文密码
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+        assertFalse(content.contains("12345678"));
+        assertFalse(content.contains("office"));
+
+        CredentialVault reloaded = newVault(key);
+        assertEquals(Arrays.asList(HOME, OFFICE), reloaded.getAll());
+        assertEquals(OFFICE, reloaded.get("office", WifiSecurity.SAE));
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void putAndRemove_scheduleWritesOnlyOnChange() {
+        CredentialVault vault = newVault(key);
+        vault.put(HOME);
+        runTasks();
+        //相同凭据不写入
+        vault.put(new WifiCredential("家里", WifiSecurity.PSK, "12345678"));
+        assertTrue(tasks.isEmpty());
+        assertFalse(vault.remove("office", WifiSecurity.SAE));
+        assertTrue(tasks.isEmpty());
+        //修改密码后替换
+        vault.put(new WifiCredential("家里", WifiSecurity.PSK, "87654321"));
+        assertEquals(1, vault.size());
+        assertTrue(vault.remove("家里", WifiSecurity.PSK));
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(0, newVault(key).size());
+    }
+
+    @Test
+    public void flush_olderSnapshotDoesNotOverwriteNewer() throws IOException, GeneralSecurityException {
+        CredentialVault vault = newVault(key);
+        vault.put(HOME);
+        vault.put(OFFICE);
+        vault.flush();
+        //已提交的写入在之后执行，版本没有变化，不再写入；每次写入的IV不同，内容不变说明没有写入
+        byte[] before = Files.readAllBytes(file.toPath());
+        runTasks();
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+        assertEquals(2, newVault(key).size());
+    }
+
+    @Test
+    public void load_wrongKeyStartsEmptyAndOverwrites() throws IOException, GeneralSecurityException {
+        CredentialVault vault = newVault(key);
+        vault.put(HOME);
+        runTasks();
+
+        //密钥被清除后重新生成
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey newKey = generator.generateKey();
+        CredentialVault other = newVault(newKey);
+        assertEquals(0, other.size());
+        assertEquals(1, errors.size());
+        //下次写入时使用新密钥覆盖
+        other.put(OFFICE);
+        runTasks();
+        assertEquals(Arrays.asList(OFFICE), newVault(newKey).getAll());
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void load_corruptFileStartsEmpty() throws IOException {
+        CredentialVault vault = newVault(key);
+        vault.put(HOME);
+        runTasks();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            //修改密文的最后一个字节，认证失败
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 1);
+        }
+        assertNull(newVault(key).get("家里", WifiSecurity.PSK));
+        assertEquals(1, errors.size());
+
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        assertEquals(0, newVault(key).size());
+        assertEquals(2, errors.size());
+    }
+
+    @Test
+    public void load_missingFileIsEmpty() {
+        CredentialVault vault = newVault(key);
+        assertEquals(0, vault.size());
+        assertTrue(vault.getAll().isEmpty());
+        assertTrue(errors.isEmpty());
+    }
+}
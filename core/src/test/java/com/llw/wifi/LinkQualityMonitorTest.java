@@ -0,0 +1,122 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 链路质量记录测试
+ */
+public class LinkQualityMonitorTest {
+
+    @Test
+    public void percentiles_ignoreUnknownAndCoverWindow() {
+        LinkQualityMonitor monitor = new LinkQualityMonitor(10);
+        assertEquals(-1, monitor.getDownstreamPercentile(50));
+        for (int i = 1; i <= 10; i++) {
+            monitor.record(i, i * 1000, i * 100, -50, true);
+        }
+        monitor.record(11, 0, 0, -50, true);
+        //第一个采样被覆盖，未知的带宽不参与计算
+        assertEquals(10, monitor.size());
+        assertEquals(11, monitor.getSampleCount());
+        assertEquals(6000, monitor.getDownstreamPercentile(50));
+        assertEquals(10000, monitor.getDownstreamPercentile(95));
+        assertEquals(2000, monitor.getDownstreamPercentile(1));
+        assertEquals(600, monitor.getUpstreamPercentile(50));
+    }
+
+    @Test
+    public void record_detectsDropEvents() {
+        LinkQualityMonitor monitor = new LinkQualityMonitor();
+        List<String> drops = new ArrayList<>();
+        monitor.setListener((reason, timeMillis) -> drops.add(reason + "@" + timeMillis));
+        monitor.record(1, 50_000, 10_000, -60, false);
+        monitor.record(2, 50_000, 10_000, -60, true);
+        //带宽减半以内、信号在阈值以上不算掉线
+        monitor.record(3, 30_000, 10_000, -80, true);
+        monitor.record(4, 10_000, 10_000, -81, true);
+        monitor.record(5, 4_000, 10_000, -85, true);
+        monitor.record(6, 4_000, 10_000, -70, false);
+        //信号未知时不判断
+        monitor.record(7, 4_000, 10_000, LinkQualityMonitor.UNKNOWN_RSSI, true);
+        monitor.record(8, 4_000, 10_000, -90, true);
+        monitor.record(9, 2_500, 10_000, -90, true);
+        monitor.record(10, 800, 10_000, -90, true);
+        //上一次带宽过低时不判断
+        monitor.record(11, 100, 10_000, -90, true);
+        assertEquals("[WEAK_SIGNAL@4, BANDWIDTH@5, VALIDATION_LOST@6, BANDWIDTH@10]", drops.toString());
+        assertEquals(4, monitor.getDropCount());
+        assertEquals(10, monitor.getLastDropMillis());
+        assertEquals(-90, monitor.getLatestRssi());
+        assertTrue(monitor.isValidated());
+
+        monitor.reset();
+        assertEquals(0, monitor.size());
+        assertEquals(0, monitor.getDropCount());
+        assertEquals(-1, monitor.getLastDropMillis());
+        assertEquals(LinkQualityMonitor.UNKNOWN_RSSI, monitor.getLatestRssi());
+        assertFalse(monitor.isValidated());
+    }
+
+    @Test
+    public void recordLost_reportsUnvalidatedNetworkLoss() {
+        LinkQualityMonitor monitor = new LinkQualityMonitor();
+        List<String> drops = new ArrayList<>();
+        monitor.setListener((reason, timeMillis) -> drops.add(reason + "@" + timeMillis));
+        //本地网络从未验证，验证规则不会触发
+        monitor.record(1, 50_000, 10_000, -60, false);
+        monitor.record(2, 50_000, 10_000, -60, false);
+        monitor.recordLost(3);
+        assertEquals("[LOST@3]", drops.toString());
+        assertEquals(1, monitor.getDropCount());
+        assertEquals(3, monitor.getLastDropMillis());
+        assertEquals(2, monitor.getSampleCount());
+    }
+
+    @Test
+    public void heapSort_sortsPrefix() {
+        Random random = new Random(3);
+        for (int n = 0; n < 40; n++) {
+            int[] values = new int[n + 2];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(20);
+            }
+            int[] expected = values.clone();
+            Arrays.sort(expected, 0, n);
+            LinkQualityMonitor.heapSort(values, n);
+            assertArrayEquals(expected, values);
+        }
+    }
+
+    @Test
+    public void recordAndPercentile_doNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        LinkQualityMonitor monitor = new LinkQualityMonitor();
+        long sum = 0;
+        //预热，排除类加载
+        for (int i = 0; i < 10_000; i++) {
+            monitor.record(i, 1_000 + i % 5_000, 500, -60 - i % 10, true);
+            sum += monitor.getDownstreamPercentile(95);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++) {
+            monitor.record(i, 1_000 + i % 5_000, 500, -60 - i % 10, true);
+            sum += monitor.getDownstreamPercentile(50);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue(sum > 0);
+        assertTrue("allocated " + allocated, allocated < 4096);
+    }
+}
@@ -0,0 +1,108 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 网络聚合器测试
+ */
+public class NetworkAggregatorTest {
+
+    private static final String PSK = "[WPA2-PSK-CCMP][ESS]";
+
+    private static WifiScanEntry entry(String ssid, int ap, String capabilities, int frequency, int level) {
+        return new WifiScanEntry(ssid, String.format("02:00:00:00:%02x:%02x", ap / 256, ap % 256), capabilities, frequency, level, 0);
+    }
+
+    @Test
+    public void update_groupsAccessPointsBySsidAndSecurity() {
+        NetworkAggregator aggregator = new NetworkAggregator();
+        List<WifiNetwork> networks = aggregator.update(Arrays.asList(
+                entry("mesh", 1, PSK, 2412, -70),
+                entry("mesh", 2, PSK, 5180, -45),
+                entry("mesh", 3, PSK, 5955, -60),
+                entry("mesh", 4, "[ESS]", 2437, -50),
+                entry("", 5, PSK, 2412, -30)));
+
+        assertEquals(2, networks.size());
+        WifiNetwork mesh = networks.get(0);
+        assertEquals("mesh", mesh.getSsid());
+        assertEquals(WifiSecurity.PSK, mesh.getSecurity());
+        assertEquals(3, mesh.getAccessPointCount());
+        assertEquals(-45, mesh.getLevel());
+        assertEquals("02:00:00:00:00:02", mesh.getBestBssid());
+        assertTrue(mesh.hasBand(WifiBand.BAND_2_4_GHZ));
+        assertTrue(mesh.hasBand(WifiBand.BAND_5_GHZ));
+        assertTrue(mesh.hasBand(WifiBand.BAND_6_GHZ));
+        assertEquals(WifiSecurity.OPEN, networks.get(1).getSecurity());
+        assertEquals(1, networks.get(1).getAccessPointCount());
+    }
+
+    @Test
+    public void update_reusesUnchangedNetworks() {
+        NetworkAggregator aggregator = new NetworkAggregator();
+        List<WifiNetwork> first = aggregator.update(Arrays.asList(
+                entry("a", 1, PSK, 2412, -40),
+                entry("b", 2, PSK, 2412, -60)));
+        List<WifiNetwork> second = aggregator.update(Arrays.asList(
+                entry("a", 1, PSK, 2412, -40),
+                entry("b", 2, PSK, 2412, -55)));
+        List<WifiNetwork> third = aggregator.update(Arrays.asList(
+                entry("a", 1, PSK, 2412, -40),
+                entry("b", 2, PSK, 2412, -55)));
+
+        assertSame(first.get(0), second.get(0));
+        assertNotSame(first.get(1), second.get(1));
+        assertEquals(-55, second.get(1).getLevel());
+        assertSame(second, third);
+    }
+
+    @Test
+    public void update_removesAccessPointsMissingFromScan() {
+        NetworkAggregator aggregator = new NetworkAggregator();
+        aggregator.update(Arrays.asList(
+                entry("a", 1, PSK, 2412, -40),
+                entry("a", 2, PSK, 2412, -50),
+                entry("b", 3, PSK, 2412, -60)));
+        List<WifiNetwork> networks = aggregator.update(Arrays.asList(entry("a", 2, PSK, 2412, -50)));
+
+        assertEquals(1, networks.size());
+        assertEquals(1, networks.get(0).getAccessPointCount());
+        assertEquals(1, aggregator.getAccessPointCount());
+    }
+
+    @Test
+    public void update_movesAccessPointWhenSecurityChanges() {
+        NetworkAggregator aggregator = new NetworkAggregator();
+        aggregator.update(Arrays.asList(entry("a", 1, PSK, 2412, -40)));
+        List<WifiNetwork> networks = aggregator.update(Arrays.asList(entry("a", 1, "[ESS]", 2412, -40)));
+
+        assertEquals(1, networks.size());
+        assertEquals(WifiSecurity.OPEN, networks.get(0).getSecurity());
+    }
+
+    @Test
+    public void update_largeScanShrinksItemCount() {
+        NetworkAggregator aggregator = new NetworkAggregator();
+        List<WifiScanEntry> scan = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            scan.add(entry("site-" + (i % 500), i, PSK, i % 2 == 0 ? 2412 : 5180, -30 - i % 60));
+        }
+        List<WifiNetwork> networks = aggregator.update(scan);
+
+        assertEquals(500, networks.size());
+        int total = 0;
+        for (int i = 0; i < networks.size(); i++) {
+            total += networks.get(i).getAccessPointCount();
+            if (i > 0) {
+                assertTrue(networks.get(i - 1).getLevel() >= networks.get(i).getLevel());
+            }
+        }
+        assertEquals(10000, total);
+    }
+}
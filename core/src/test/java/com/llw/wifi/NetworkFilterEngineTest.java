@@ -0,0 +1,133 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 网络过滤测试
+ */
+public class NetworkFilterEngineTest {
+
+    private static final String PSK = "[WPA2-PSK-CCMP][ESS]";
+
+    private static WifiScanEntry entry(String ssid, int ap, String capabilities, int frequency, int level) {
+        return new WifiScanEntry(ssid, String.format("02:00:00:%02x:%02x:%02x", ap / 65536, ap / 256 % 256, ap % 256), capabilities, frequency, level, 0);
+    }
+
+    private static List<WifiNetwork> networks(WifiScanEntry... entries) {
+        return new NetworkAggregator().update(Arrays.asList(entries));
+    }
+
+    private static List<String> ssids(List<WifiNetwork> networks) {
+        List<String> list = new ArrayList<>();
+        for (WifiNetwork network : networks) {
+            list.add(network.getSsid());
+        }
+        return list;
+    }
+
+    private static List<WifiNetwork> bruteForce(List<WifiNetwork> networks, NetworkFilter filter) {
+        List<WifiNetwork> list = new ArrayList<>();
+        for (WifiNetwork network : networks) {
+            if (filter.matches(network)) {
+                list.add(network);
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void substringAndPrefix_caseInsensitive() {
+        NetworkFilterEngine engine = new NetworkFilterEngine();
+        engine.setNetworks(networks(
+                entry("Office-5G", 1, PSK, 5180, -40),
+                entry("HomeOffice", 2, PSK, 2412, -50),
+                entry("Guest", 3, "[ESS]", 2437, -60)));
+        engine.setFilter(NetworkFilter.ALL.withText("office", false));
+        assertEquals(Arrays.asList("Office-5G", "HomeOffice"), ssids(engine.getResults()));
+        engine.setFilter(NetworkFilter.ALL.withText("OFF", true));
+        assertEquals(Arrays.asList("Office-5G"), ssids(engine.getResults()));
+        engine.setFilter(NetworkFilter.ALL.withText("xyz", false));
+        assertTrue(engine.getResults().isEmpty());
+    }
+
+    @Test
+    public void attributes_securityBandAndLevel() {
+        NetworkFilterEngine engine = new NetworkFilterEngine();
+        engine.setNetworks(networks(
+                entry("a", 1, PSK, 5180, -40),
+                entry("b", 2, PSK, 2412, -50),
+                entry("c", 3, "[ESS]", 5200, -60),
+                entry("d", 4, PSK, 5220, -85)));
+        engine.setFilter(NetworkFilter.ALL.withSecurities(WifiSecurity.PSK).withBands(WifiBand.BAND_5_GHZ).withMinLevel(-80));
+        assertEquals(Arrays.asList("a"), ssids(engine.getResults()));
+    }
+
+    @Test
+    public void getResults_sameInstanceWhenUnchanged() {
+        NetworkFilterEngine engine = new NetworkFilterEngine();
+        engine.setNetworks(networks(entry("a", 1, PSK, 2412, -40)));
+        engine.setFilter(NetworkFilter.ALL.withText("a", false));
+        List<WifiNetwork> first = engine.getResults();
+        engine.setFilter(NetworkFilter.ALL.withText("A", false));
+        assertSame(first, engine.getResults());
+    }
+
+    @Test
+    public void typingAndScans_matchBruteForce() {
+        Random random = new Random(42);
+        String alphabet = "abcAB-_1";
+        NetworkFilterEngine engine = new NetworkFilterEngine();
+        for (int scan = 0; scan < 30; scan++) {
+            List<WifiScanEntry> entries = new ArrayList<>();
+            int count = 50 + random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                StringBuilder ssid = new StringBuilder();
+                int length = 1 + random.nextInt(6);
+                for (int c = 0; c < length; c++) {
+                    ssid.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                entries.add(entry(ssid.toString(), scan * 1000 + i, random.nextBoolean() ? PSK : "[ESS]",
+                        random.nextBoolean() ? 2412 : 5180, -30 - random.nextInt(60)));
+            }
+            List<WifiNetwork> networks = new NetworkAggregator().update(entries);
+            engine.setNetworks(networks);
+            //模拟逐字输入再删除
+            StringBuilder text = new StringBuilder();
+            for (int step = 0; step < 6; step++) {
+                if (step < 3) {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                } else {
+                    text.setLength(text.length() - 1);
+                }
+                NetworkFilter filter = NetworkFilter.ALL.withText(text.toString(), random.nextBoolean())
+                        .withMinLevel(random.nextBoolean() ? -60 : Integer.MIN_VALUE);
+                engine.setFilter(filter);
+                assertEquals(bruteForce(networks, filter), engine.getResults());
+            }
+        }
+    }
+
+    @Test
+    public void compact_dropsVanishedNames() {
+        NetworkFilterEngine engine = new NetworkFilterEngine();
+        int total = NetworkFilterEngine.COMPACT_THRESHOLD * 3;
+        List<WifiScanEntry> entries = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            entries.add(entry("net" + i, i, PSK, 2412, -50));
+        }
+        engine.setNetworks(new NetworkAggregator().update(entries));
+        assertEquals(total, engine.getNameCount());
+        List<WifiNetwork> remaining = networks(entry("net7", 7, PSK, 2412, -50), entry("other", 1, PSK, 2412, -60));
+        engine.setNetworks(remaining);
+        assertEquals(2, engine.getNameCount());
+        engine.setFilter(NetworkFilter.ALL.withText("net", false));
+        assertEquals(Arrays.asList("net7"), ssids(engine.getResults()));
+    }
+}
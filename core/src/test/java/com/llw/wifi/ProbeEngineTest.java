@@ -0,0 +1,271 @@
+package com.llw.wifi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.SocketFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * 网络探测测试，用本地服务代替测速地址
+ */
+public class ProbeEngineTest {
+
+    private ServerSocket server;
+
+    private volatile String response = "HTTP/1.1 200 OK\r\nContent-Length: 65536\r\n\r\n";
+
+    private volatile int bodyBytes = 64 * 1024;
+
+    private final List<FakeLink> links = Collections.synchronizedList(new ArrayList<>());
+
+    private ProbeEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    new Thread(() -> serve(socket)).start();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            //读到请求头结束
+            int matched = 0;
+            int b;
+            while (matched < 4 && (b = in.read()) >= 0) {
+                matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : 0;
+            }
+            OutputStream out = s.getOutputStream();
+            out.write(response.getBytes(StandardCharsets.US_ASCII));
+            out.write(new byte[bodyBytes]);
+            out.flush();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (engine != null) {
+            engine.release();
+        }
+        server.close();
+    }
+
+    private ProbeEndpoint localEndpoint() {
+        return new HttpProbeEndpoint("localhost", server.getLocalPort(), "/probe");
+    }
+
+    private ProbeEngine.Connector connector(boolean validated) {
+        return (credential, timeoutMillis) -> {
+            FakeLink link = new FakeLink(validated || credential.getSsid().startsWith("valid"));
+            links.add(link);
+            return link;
+        };
+    }
+
+    private static List<WifiCredential> candidates(String... ssids) {
+        List<WifiCredential> list = new ArrayList<>();
+        for (String ssid : ssids) {
+            list.add(new WifiCredential(ssid, WifiSecurity.PSK, "password"));
+        }
+        return list;
+    }
+
+    @Test
+    public void probe_measuresAndRanks() throws InterruptedException {
+        engine = new ProbeEngine(connector(false), localEndpoint(), 2, 5000);
+        List<ProbeResult> probed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch ranked = new CountDownLatch(1);
+        ProbeEngine.Session session = engine.probe(candidates("portal", "valid"), new ProbeEngine.Listener() {
+            @Override
+            public void onProbed(ProbeResult result) {
+                probed.add(result);
+            }
+
+            @Override
+            public void onRanked(List<ProbeResult> results) {
+                ranked.countDown();
+            }
+        });
+        List<ProbeResult> results = session.await(5, TimeUnit.SECONDS);
+        assertNotNull(results);
+        assertTrue(ranked.await(1, TimeUnit.SECONDS));
+        assertEquals(2, probed.size());
+        assertEquals("valid", results.get(0).getSsid());
+        assertEquals("portal", results.get(1).getSsid());
+        for (ProbeResult result : results) {
+            assertEquals(ProbeResult.Status.OK, result.getStatus());
+            assertTrue(result.getConnectMillis() >= 0);
+            assertTrue(result.getLatencyMillis() >= 0);
+            assertTrue(result.getThroughputKbps() > 0);
+        }
+        //连接在探测结束后关闭
+        for (FakeLink link : links) {
+            assertTrue(link.closed);
+        }
+    }
+
+    @Test
+    public void probe_nonSuccessResponseIsEndpointFailure() throws InterruptedException {
+        response = "HTTP/1.1 302 Found\r\nLocation: http://portal/\r\n\r\n";
+        bodyBytes = 0;
+        engine = new ProbeEngine(connector(true), localEndpoint(), 1, 5000);
+        List<ProbeResult> results = engine.probe(candidates("hotel"), null).await(5, TimeUnit.SECONDS);
+        assertEquals(ProbeResult.Status.ENDPOINT_FAILED, results.get(0).getStatus());
+        assertTrue(results.get(0).getConnectMillis() >= 0);
+    }
+
+    @Test
+    public void probe_timeoutClosesLink() throws InterruptedException {
+        //测速一直没有返回
+        engine = new ProbeEngine(connector(true), (link, timeoutMillis) -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return new ProbeEndpoint.Measurement(0, 0, 0);
+        }, 1, 300);
+        long start = System.nanoTime();
+        List<ProbeResult> results = engine.probe(candidates("stuck"), null).await(5, TimeUnit.SECONDS);
+        assertNotNull(results);
+        assertEquals(ProbeResult.Status.TIMEOUT, results.get(0).getStatus());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+        assertTrue(links.get(0).closed);
+    }
+
+    @Test
+    public void cancel_interruptsConnectingProbe() throws InterruptedException {
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        engine = new ProbeEngine((credential, timeoutMillis) -> {
+            connecting.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return new FakeLink(true);
+        }, localEndpoint(), 1, 10_000);
+        ProbeEngine.Session session = engine.probe(candidates("a", "b"), null);
+        assertTrue(connecting.await(5, TimeUnit.SECONDS));
+        session.cancel();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(session.isDone());
+        for (ProbeResult result : session.getRanked()) {
+            assertEquals(ProbeResult.Status.CANCELLED, result.getStatus());
+        }
+    }
+
+    @Test
+    public void probe_boundedParallelism() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        engine = new ProbeEngine((credential, timeoutMillis) -> {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            if (credential.getSsid().equals("down")) {
+                throw new IOException("unavailable");
+            }
+            return new FakeLink(true);
+        }, localEndpoint(), 2, 5000);
+        List<ProbeResult> results = engine.probe(candidates("a", "b", "c", "d", "e", "down"), null).await(10, TimeUnit.SECONDS);
+        assertNotNull(results);
+        assertEquals(6, results.size());
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(ProbeResult.Status.CONNECT_FAILED, results.get(5).getStatus());
+    }
+
+    @Test
+    public void probe_rejectsBeyondPendingLimit() throws InterruptedException {
+        String[] ssids = new String[ProbeEngine.MAX_PENDING + 3];
+        for (int i = 0; i < ssids.length; i++) {
+            ssids[i] = "ssid" + i;
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        engine = new ProbeEngine((credential, timeoutMillis) -> {
+            release.await();
+            throw new IOException("unavailable");
+        }, localEndpoint(), 1, 5000);
+        ProbeEngine.Session session = engine.probe(candidates(ssids), null);
+        release.countDown();
+        List<ProbeResult> results = session.await(10, TimeUnit.SECONDS);
+        assertNotNull(results);
+        int rejected = 0;
+        for (ProbeResult result : results) {
+            if (result.getStatus() == ProbeResult.Status.REJECTED) {
+                rejected++;
+            }
+        }
+        //一个在执行，MAX_PENDING 个在等待
+        assertEquals(2, rejected);
+    }
+
+    @Test
+    public void probe_emptyCompletesImmediately() {
+        engine = new ProbeEngine(connector(true), localEndpoint());
+        ProbeEngine.Session session = engine.probe(Collections.emptyList(), null);
+        assertTrue(session.isDone());
+        assertTrue(session.getRanked().isEmpty());
+    }
+
+    /**
+     * 直接使用本机网络
+     */
+    private static final class FakeLink implements ProbeEngine.Link {
+
+        final boolean validated;
+
+        volatile boolean closed;
+
+        FakeLink(boolean validated) {
+            this.validated = validated;
+        }
+
+        @Override
+        public SocketFactory getSocketFactory() {
+            return SocketFactory.getDefault();
+        }
+
+        @Override
+        public boolean isValidated() {
+            return validated;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 探测结果排序测试
+ */
+public class ProbeRankerTest {
+
+    private static ProbeResult ok(String ssid, long connect, boolean validated, long latency, long kbps) {
+        return new ProbeResult(ssid, ProbeResult.Status.OK, connect, validated, latency, kbps);
+    }
+
+    @Test
+    public void rank_prefersHigherThroughput() {
+        List<ProbeResult> ranked = ProbeRanker.rank(Arrays.asList(
+                ok("slow", 1000, true, 50, 1_000),
+                ok("fast", 1000, true, 50, 50_000)));
+        assertEquals("fast", ranked.get(0).getSsid());
+    }
+
+    @Test
+    public void rank_latencyOutweighsSmallThroughputGain() {
+        //速率相差不到一倍，首字节耗时相差300毫秒
+        List<ProbeResult> ranked = ProbeRanker.rank(Arrays.asList(
+                ok("laggy", 1000, true, 350, 12_000),
+                ok("snappy", 1000, true, 50, 10_000)));
+        assertEquals("snappy", ranked.get(0).getSsid());
+    }
+
+    @Test
+    public void rank_unvalidatedAfterValidated() {
+        List<ProbeResult> ranked = ProbeRanker.rank(Arrays.asList(
+                ok("portal", 500, false, 10, 100_000),
+                ok("home", 3000, true, 200, 1_000)));
+        assertEquals("home", ranked.get(0).getSsid());
+        assertEquals("portal", ranked.get(1).getSsid());
+    }
+
+    @Test
+    public void rank_failuresLast() {
+        List<ProbeResult> ranked = ProbeRanker.rank(Arrays.asList(
+                ProbeResult.failed("timeout", ProbeResult.Status.TIMEOUT),
+                new ProbeResult("noEndpoint", ProbeResult.Status.ENDPOINT_FAILED, 800, true, -1, 0),
+                ProbeResult.failed("refused", ProbeResult.Status.CONNECT_FAILED),
+                ok("ok", 5000, false, 900, 10)));
+        assertEquals("ok", ranked.get(0).getSsid());
+        assertEquals("noEndpoint", ranked.get(1).getSsid());
+        //失败的结果按名称排列
+        assertEquals("refused", ranked.get(2).getSsid());
+        assertEquals("timeout", ranked.get(3).getSsid());
+    }
+
+    @Test
+    public void score_failedIsNegativeInfinity() {
+        assertEquals(Double.NEGATIVE_INFINITY, ProbeRanker.score(ProbeResult.failed("a", ProbeResult.Status.CANCELLED)), 0);
+        assertTrue(ProbeRanker.score(ok("a", 0, true, 0, 1023)) > 99);
+    }
+}
@@ -0,0 +1,202 @@
+package com.llw.wifi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 网络切换选择测试，回放扫描记录
+ */
+public class RoamingSelectorTest {
+
+    private static final String PSK = "[RSN-PSK-CCMP][ESS]";
+
+    private static final WifiCredential HOME = new WifiCredential("home", WifiSecurity.PSK, "12345678");
+
+    private static final WifiCredential HOME_5G = new WifiCredential("home-5g", WifiSecurity.PSK, "12345678");
+
+    private static final WifiCredential OFFICE = new WifiCredential("office", WifiSecurity.PSK, "87654321");
+
+    private RoamingSelector selector;
+
+    @Before
+    public void setUp() {
+        selector = new RoamingSelector();
+        selector.setKnownNetworks(Arrays.asList(HOME, HOME_5G, OFFICE));
+    }
+
+    /**
+     * 一行为一次扫描中的一个接入点：秒 名称 BSSID末位 频率 信号强度
+     */
+    private static List<Scan> parse(String... lines) {
+        List<Scan> scans = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.trim().split("\\s+");
+            long timeMillis = Long.parseLong(fields[0]) * 1000;
+            if (scans.isEmpty() || scans.get(scans.size() - 1).timeMillis != timeMillis) {
+                scans.add(new Scan(timeMillis));
+            }
+            scans.get(scans.size() - 1).entries.add(new WifiScanEntry(fields[1], "02:00:00:00:00:" + fields[2], PSK,
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), timeMillis * 1000));
+        }
+        return scans;
+    }
+
+    /**
+     * 每10秒扫描一次，两个网络的信号由函数给出
+     */
+    private static List<Scan> generate(int seconds, String first, String second, LevelFunction levels) {
+        List<Scan> scans = new ArrayList<>();
+        for (int t = 0; t <= seconds; t += 10) {
+            Scan scan = new Scan(t * 1000L);
+            scan.entries.add(new WifiScanEntry(first, "02:00:00:00:00:01", PSK, 2437, levels.level(t, 0), t * 1_000_000L));
+            scan.entries.add(new WifiScanEntry(second, "02:00:00:00:00:02", PSK, 2462, levels.level(t, 1), t * 1_000_000L));
+            scans.add(scan);
+        }
+        return scans;
+    }
+
+    /**
+     * 回放扫描记录，切换后立即视为连接成功
+     *
+     * @return 每次切换的目标名称和时间（秒）
+     */
+    private List<String> replay(List<Scan> scans) {
+        RssiTracker tracker = new RssiTracker();
+        NetworkAggregator aggregator = new NetworkAggregator();
+        List<String> switches = new ArrayList<>();
+        for (Scan scan : scans) {
+            List<WifiNetwork> networks = aggregator.update(ScanProcessor.process(scan.entries, tracker, scan.timeMillis));
+            RoamingSelector.Decision decision = selector.evaluate(networks, scan.timeMillis);
+            if (decision != null) {
+                String ssid = decision.getCredential().getSsid();
+                switches.add(ssid + "@" + scan.timeMillis / 1000);
+                selector.onConnectionResult(ssid, decision.getCredential().getSecurity(), true, scan.timeMillis);
+                selector.onConnected(ssid, scan.timeMillis);
+            }
+        }
+        return switches;
+    }
+
+    @Test
+    public void walkingAway_switchesOnceAfterDwellAndConfirmation() {
+        selector.onConnected("home", 0);
+        List<Scan> trace = parse(
+                "0   home    01 2437 -50", "0   office  02 2462 -75",
+                "10  home    01 2437 -55", "10  office  02 2462 -72",
+                "20  home    01 2437 -62", "20  office  02 2462 -66",
+                "30  home    01 2437 -70", "30  office  02 2462 -60",
+                "40  home    01 2437 -76", "40  office  02 2462 -55",
+                "50  home    01 2437 -80", "50  office  02 2462 -52",
+                "60  home    01 2437 -81", "60  office  02 2462 -50",
+                "70  home    01 2437 -82", "70  office  02 2462 -50",
+                "80  home    01 2437 -83", "80  office  02 2462 -49",
+                "90  home    01 2437 -80", "90  office  02 2462 -50",
+                "100 home    01 2437 -70", "100 office  02 2462 -51",
+                "110 home    01 2437 -60", "110 office  02 2462 -52");
+        //停留满60秒后连续两次扫描确认，70秒时切换；回来后信号差距不足迟滞值，不再切换
+        assertEquals(Collections.singletonList("office@70"), replay(trace));
+    }
+
+    @Test
+    public void oscillatingSignals_doNotFlap() {
+        selector.onConnected("home", 0);
+        //两个网络在相同水平上下波动6dB，方向相反
+        List<Scan> trace = generate(1800, "home", "office", (t, index) -> {
+            int swing = (t / 10) % 2 == 0 ? 6 : -6;
+            return -62 + (index == 0 ? swing : -swing);
+        });
+        assertTrue(replay(trace).isEmpty());
+    }
+
+    @Test
+    public void sustainedImprovement_waitsForDwell() {
+        selector.onConnected("home", 0);
+        List<Scan> trace = generate(120, "home", "office", (t, index) -> index == 0 ? -75 : -45);
+        assertEquals(Collections.singletonList("office@70"), replay(trace));
+    }
+
+    @Test
+    public void currentNetworkLost_switchesWithoutHysteresis() {
+        selector.onConnected("home", 0);
+        List<Scan> trace = parse(
+                "60  office 02 2462 -78",
+                "70  office 02 2462 -79",
+                "80  office 02 2462 -78");
+        assertEquals(Collections.singletonList("office@70"), replay(trace));
+    }
+
+    @Test
+    public void unknownNetwork_isNeverChosen() {
+        selector.onConnected("home", 0);
+        List<Scan> trace = generate(300, "home", "cafe", (t, index) -> index == 0 ? -85 : -40);
+        assertTrue(replay(trace).isEmpty());
+    }
+
+    @Test
+    public void failedNetwork_backsOff() {
+        selector.onConnected("home", 0);
+        selector.onConnectionResult("office", WifiSecurity.PSK, false, 50_000);
+        List<Scan> trace = generate(400, "home", "office", (t, index) -> index == 0 ? -80 : -45);
+        //失败5分钟后才重新作为候选，再连续确认两次
+        assertEquals(Collections.singletonList("office@360"), replay(trace));
+    }
+
+    @Test
+    public void score_prefersHigherBandWhenStrong() {
+        List<WifiNetwork> networks = new NetworkAggregator().update(parse(
+                "0 home    01 2437 -55",
+                "0 home-5g 02 5180 -58",
+                "0 office  03 5180 -72").get(0).entries);
+        WifiNetwork home = find(networks, "home");
+        WifiNetwork home5g = find(networks, "home-5g");
+        WifiNetwork office = find(networks, "office");
+        assertEquals(-55 + 1, selector.score(home));
+        assertEquals(-58 + RoamingSelector.BAND_5_GHZ_BONUS + 1, selector.score(home5g));
+        //信号过弱时高频段不加分
+        assertEquals(-72 + 1, selector.score(office));
+        //连接成功率影响得分
+        selector.onConnectionResult("home", WifiSecurity.PSK, false, 0);
+        selector.onConnectionResult("home", WifiSecurity.PSK, false, 0);
+        assertEquals(-55 + 1 - 3, selector.score(home));
+        assertEquals(3, RoamingSelector.securityBonus(WifiSecurity.SAE));
+        assertEquals(-5, RoamingSelector.securityBonus(WifiSecurity.OPEN));
+    }
+
+    @Test
+    public void notConnected_neverSwitches() {
+        List<Scan> trace = generate(300, "home", "office", (t, index) -> index == 0 ? -85 : -40);
+        assertTrue(replay(trace).isEmpty());
+    }
+
+    private static WifiNetwork find(List<WifiNetwork> networks, String ssid) {
+        for (WifiNetwork network : networks) {
+            if (network.getSsid().equals(ssid)) {
+                return network;
+            }
+        }
+        throw new AssertionError(ssid);
+    }
+
+    private interface LevelFunction {
+
+        int level(int seconds, int index);
+    }
+
+    private static final class Scan {
+
+        final long timeMillis;
+
+        final List<WifiScanEntry> entries = new ArrayList<>();
+
+        Scan(long timeMillis) {
+            this.timeMillis = timeMillis;
+        }
+    }
+}
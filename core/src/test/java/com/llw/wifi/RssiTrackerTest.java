@@ -0,0 +1,112 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 信号跟踪测试
+ */
+public class RssiTrackerTest {
+
+    @Test
+    public void update_smoothsNoisyReadings() {
+        RssiTracker tracker = new RssiTracker();
+        long bssid = MacAddresses.toLong("02:00:00:00:00:01");
+        tracker.update(bssid, -60, 0);
+        tracker.update(bssid, -80, 1);
+        float smoothed = tracker.getSmoothedLevel(bssid);
+        assertTrue(smoothed < -60 && smoothed > -70);
+        assertTrue(Float.isNaN(tracker.getSmoothedLevel(MacAddresses.toLong("02:00:00:00:00:02"))));
+    }
+
+    @Test
+    public void bucket_hasHysteresisAroundBoundary() {
+        RssiTracker tracker = new RssiTracker();
+        long bssid = 1;
+        for (int i = 0; i < 20; i++) {
+            tracker.update(bssid, -69, i);
+        }
+        assertEquals(4, tracker.getBucket(bssid));
+        //在 -70 边界附近来回波动，图标等级保持不变
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            tracker.update(bssid, -71 + random.nextInt(3), 20 + i);
+            assertEquals(4, tracker.getBucket(bssid));
+        }
+        //明显变弱后才切换
+        for (int i = 0; i < 20; i++) {
+            tracker.update(bssid, -78, 300 + i);
+        }
+        assertEquals(3, tracker.getBucket(bssid));
+    }
+
+    @Test
+    public void trend_followsDirection() {
+        RssiTracker tracker = new RssiTracker();
+        for (int i = 0; i < 10; i++) {
+            tracker.update(1, -40 - i * 4, i);
+            tracker.update(2, -90 + i * 4, i);
+            tracker.update(3, -60, i);
+        }
+        assertEquals(RssiTracker.TREND_FALLING, tracker.getTrend(1));
+        assertEquals(RssiTracker.TREND_RISING, tracker.getTrend(2));
+        assertEquals(RssiTracker.TREND_STABLE, tracker.getTrend(3));
+    }
+
+    @Test
+    public void capacity_evictsLeastRecentlySeen() {
+        RssiTracker tracker = new RssiTracker(1000, Long.MAX_VALUE / 2);
+        for (int scan = 0; scan < 10; scan++) {
+            for (int i = 0; i < 300; i++) {
+                tracker.update(scan * 300L + i + 1, -50, scan);
+            }
+            assertTrue(tracker.size() <= 1000);
+        }
+        //最近一次扫描的接入点都还在，最早的已被淘汰
+        for (int i = 0; i < 300; i++) {
+            assertTrue(tracker.contains(9 * 300L + i + 1));
+        }
+        assertFalse(tracker.contains(1));
+    }
+
+    @Test
+    public void evict_keepsProbeChainsIntact() {
+        RssiTracker tracker = new RssiTracker(5000, 10);
+        Random random = new Random(3);
+        List<Long> alive = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            alive.clear();
+            for (int i = 0; i < 2000; i++) {
+                long bssid = random.nextLong() & 0xffffffffffffL;
+                tracker.update(bssid, -50, round * 100L);
+                alive.add(bssid);
+            }
+            tracker.evictOlderThan(round * 100L);
+            assertEquals(2000, tracker.size());
+            for (long bssid : alive) {
+                assertTrue(tracker.contains(bssid));
+            }
+        }
+    }
+
+    @Test
+    public void update_scanCarriesSmoothedSignal() {
+        RssiTracker tracker = new RssiTracker();
+        WifiScanEntry first = new WifiScanEntry("a", "02:00:00:00:00:01", "[ESS]", 2412, -40, 0);
+        WifiScanEntry second = new WifiScanEntry("a", "02:00:00:00:00:01", "[ESS]", 2412, -90, 0);
+        tracker.update(Arrays.asList(first), 0);
+        WifiScanEntry smoothed = tracker.update(Arrays.asList(second), 1000).get(0);
+        assertEquals(-90, smoothed.getLevel());
+        assertEquals(-55, smoothed.getSmoothedLevel());
+        assertEquals(4, smoothed.getSignalBucket());
+
+        List<WifiScanEntry> snapshot = ScanProcessor.process(Arrays.asList(second), tracker, 2000);
+        assertEquals(-65, snapshot.get(0).getSmoothedLevel());
+    }
+}
@@ -0,0 +1,183 @@
+package com.llw.wifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 扫描历史存储测试
+ */
+public class ScanHistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<WifiScanEntry> scan(int count, int round) {
+        List<WifiScanEntry> scan = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            scan.add(new WifiScanEntry("site-" + (i % 20), MacAddresses.toString(0x020000000000L + i),
+                    i % 3 == 0 ? "[RSN-PSK+SAE-CCMP][ESS]" : "[ESS]", 2412 + i % 13 * 5, -30 - (i + round) % 60, 0));
+        }
+        return scan;
+    }
+
+    @Test
+    public void macAddresses_roundTrip() {
+        long value = MacAddresses.toLong("AC:DE:48:00:11:22");
+        assertEquals(0xacde48001122L, value);
+        assertEquals("ac:de:48:00:11:22", MacAddresses.toString(value));
+        assertEquals(MacAddresses.INVALID, MacAddresses.toLong("ac:de:48"));
+        assertEquals(MacAddresses.INVALID, MacAddresses.toLong("zz:de:48:00:11:22"));
+    }
+
+    @Test
+    public void capabilities_describeRoundTrips() {
+        for (int flags : new int[]{0, WifiCapabilities.WEP, WifiCapabilities.PSK | WifiCapabilities.WPS,
+                WifiCapabilities.PSK | WifiCapabilities.SAE | WifiCapabilities.PSK_SAE_TRANSITION,
+                WifiCapabilities.EAP | WifiCapabilities.EAP_SUITE_B, WifiCapabilities.OWE, WifiCapabilities.OWE_TRANSITION}) {
+            assertEquals(flags, WifiCapabilities.parse(WifiCapabilities.describe(flags)));
+        }
+    }
+
+    @Test
+    public void append_replaysScansInOrder() throws IOException {
+        File directory = folder.newFolder();
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            for (int round = 0; round < 100; round++) {
+                store.append(1000L + round, scan(50, round));
+            }
+            assertEquals(5000, store.getRecordCount());
+            assertEquals(20, store.getSsidCount());
+        }
+        assertEquals(8 + 5000 * ScanHistoryStore.RECORD_SIZE, new File(directory, ScanHistoryStore.LOG_FILE).length());
+
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            List<Long> times = new ArrayList<>();
+            store.replay((timeMillis, replayed) -> {
+                int round = times.size();
+                times.add(timeMillis);
+                List<WifiScanEntry> expected = scan(50, round);
+                assertEquals(expected.size(), replayed.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getSsid(), replayed.get(i).getSsid());
+                    assertEquals(expected.get(i).getBssid(), replayed.get(i).getBssid());
+                    assertEquals(expected.get(i).getFrequency(), replayed.get(i).getFrequency());
+                    assertEquals(expected.get(i).getLevel(), replayed.get(i).getLevel());
+                    assertEquals(expected.get(i).getCapabilityFlags(), replayed.get(i).getCapabilityFlags());
+                }
+            });
+            assertEquals(100, times.size());
+            assertEquals(Long.valueOf(1099), times.get(99));
+
+            List<WifiScanEntry> last = store.readLastScan();
+            assertEquals(50, last.size());
+            assertEquals(scan(50, 99).get(7).getLevel(), last.get(7).getLevel());
+        }
+    }
+
+    @Test
+    public void open_discardsPartialRecord() throws IOException {
+        File directory = folder.newFolder();
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            store.append(1, scan(10, 0));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, ScanHistoryStore.LOG_FILE), "rw")) {
+            file.setLength(file.length() + 5);
+        }
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            assertEquals(10, store.getRecordCount());
+            store.append(2, scan(10, 1));
+            assertEquals(20, store.getRecordCount());
+            assertEquals(10, store.readLastScan().size());
+        }
+    }
+
+    @Test
+    public void append_compactsToNewestHalfAtScanBoundary() throws IOException {
+        File directory = folder.newFolder();
+        try (ScanHistoryStore store = new ScanHistoryStore(directory, 1000)) {
+            for (int round = 0; round < 100; round++) {
+                //每次扫描的名称不同，旧名称压缩后不再保留
+                List<WifiScanEntry> scan = new ArrayList<>();
+                for (int i = 0; i < 30; i++) {
+                    scan.add(new WifiScanEntry("round-" + round, MacAddresses.toString(0x020000000000L + i),
+                            "[ESS]", 2412, -40 - i, 0));
+                }
+                store.append(round, scan);
+                assertTrue(store.getRecordCount() <= 1000);
+            }
+            //保留一半时第16次扫描跨过边界，整次丢弃；最后一次压缩在第84次扫描前，保留68~83
+            assertEquals(32 * 30, store.getRecordCount());
+            assertEquals(32, store.getSsidCount());
+        }
+        assertEquals(8 + 32 * 30 * ScanHistoryStore.RECORD_SIZE, new File(directory, ScanHistoryStore.LOG_FILE).length());
+        assertFalse(new File(directory, ScanHistoryStore.LOG_FILE + ".tmp").exists());
+
+        try (ScanHistoryStore store = new ScanHistoryStore(directory, 1000)) {
+            List<Long> times = new ArrayList<>();
+            store.replay((timeMillis, scan) -> {
+                times.add(timeMillis);
+                assertEquals(30, scan.size());
+                assertEquals("round-" + timeMillis, scan.get(0).getSsid());
+                assertEquals(-69, scan.get(29).getLevel());
+            });
+            assertEquals(32, times.size());
+            assertEquals(Long.valueOf(68), times.get(0));
+            assertEquals(Long.valueOf(99), times.get(31));
+        }
+    }
+
+    @Test
+    public void open_recoversInterruptedCompaction() throws IOException {
+        File directory = folder.newFolder();
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            store.append(1, scan(10, 0));
+        }
+        File dictionary = new File(directory, ScanHistoryStore.DICTIONARY_FILE);
+        File logTemp = new File(directory, ScanHistoryStore.LOG_FILE + ".tmp");
+        File dictionaryTemp = new File(directory, ScanHistoryStore.DICTIONARY_FILE + ".tmp");
+        //日志还没有替换，放弃压缩
+        assertTrue(logTemp.createNewFile());
+        assertTrue(dictionaryTemp.createNewFile());
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            assertEquals(10, store.getRecordCount());
+            assertEquals(10, store.getSsidCount());
+        }
+        assertFalse(logTemp.exists());
+        assertFalse(dictionaryTemp.exists());
+        //日志已经替换，完成字典的替换
+        assertTrue(dictionary.renameTo(dictionaryTemp));
+        try (ScanHistoryStore store = new ScanHistoryStore(directory)) {
+            assertEquals(10, store.getSsidCount());
+            assertEquals("site-3", store.readLastScan().get(3).getSsid());
+        }
+        assertFalse(dictionaryTemp.exists());
+    }
+
+    @Test
+    public void cursor_readsWithoutMaterializingEntries() throws IOException {
+        try (ScanHistoryStore store = new ScanHistoryStore(folder.newFolder())) {
+            assertTrue(store.readLastScan().isEmpty());
+            for (int round = 0; round < 200; round++) {
+                store.append(round, scan(150, round));
+            }
+            ScanHistoryStore.Cursor cursor = store.cursor();
+            long count = 0;
+            long strongest = Integer.MIN_VALUE;
+            while (cursor.next()) {
+                count++;
+                strongest = Math.max(strongest, cursor.getLevel());
+            }
+            assertEquals(30000, count);
+            assertEquals(-30, strongest);
+        }
+    }
+}
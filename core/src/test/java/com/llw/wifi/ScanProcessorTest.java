@@ -0,0 +1,111 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 扫描结果处理器测试
+ */
+public class ScanProcessorTest {
+
+    private static List<WifiScanEntry> randomResults(int count, long seed) {
+        Random random = new Random(seed);
+        List<WifiScanEntry> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            //部分BSSID重复，部分SSID为空
+            String ssid = random.nextInt(10) == 0 ? "" : "ssid-" + random.nextInt(count / 4 + 1);
+            String bssid = String.format("02:00:00:00:%02x:%02x", (i / 2) / 256 % 256, (i / 2) % 256);
+            results.add(new WifiScanEntry(ssid, bssid, "[WPA2-PSK-CCMP][ESS]", 2412, -30 - random.nextInt(70), i));
+        }
+        return results;
+    }
+
+    @Test
+    public void process_filtersDeduplicatesAndSorts() {
+        List<WifiScanEntry> results = randomResults(5000, 42);
+        List<WifiScanEntry> snapshot = ScanProcessor.process(results);
+
+        List<String> seen = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            WifiScanEntry entry = snapshot.get(i);
+            assertFalse(entry.getSsid().isEmpty());
+            assertFalse(seen.contains(entry.getBssid()));
+            seen.add(entry.getBssid());
+            if (i > 0) {
+                assertTrue(snapshot.get(i - 1).getLevel() >= entry.getLevel());
+            }
+        }
+        assertTrue(snapshot.size() <= 2500);
+    }
+
+    @Test
+    public void process_keepsStrongestResultPerBssid() {
+        List<WifiScanEntry> results = new ArrayList<>();
+        results.add(new WifiScanEntry("a", "02:00:00:00:00:01", "", 2412, -80, 1));
+        results.add(new WifiScanEntry("a", "02:00:00:00:00:01", "", 2412, -40, 2));
+        results.add(new WifiScanEntry("b", "02:00:00:00:00:02", "", 5180, -60, 3));
+
+        List<WifiScanEntry> snapshot = ScanProcessor.process(results);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(-40, snapshot.get(0).getLevel());
+        assertEquals("b", snapshot.get(1).getSsid());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void process_returnsImmutableSnapshot() {
+        ScanProcessor.process(randomResults(10, 1)).clear();
+    }
+
+    @Test
+    public void request_coalescesBurstIntoSinglePass() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        AtomicInteger reads = new AtomicInteger();
+        ScanProcessor processor = new ScanProcessor(() -> {
+            reads.incrementAndGet();
+            return randomResults(100, 7);
+        }, tasks::add);
+        List<List<WifiScanEntry>> snapshots = new ArrayList<>();
+        processor.setCallback(snapshots::add);
+
+        for (int i = 0; i < 50; i++) {
+            processor.request();
+        }
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+
+        assertEquals(1, reads.get());
+        assertEquals(1, snapshots.size());
+
+        //处理完成后的新请求会再次处理
+        processor.request();
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void request_deliversSnapshotOnBackgroundThread() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger size = new AtomicInteger();
+        ScanProcessor processor = new ScanProcessor(() -> randomResults(3000, 3));
+        processor.setCallback(snapshot -> {
+            size.set(snapshot.size());
+            latch.countDown();
+        });
+
+        processor.request();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(size.get() > 0);
+        processor.release();
+    }
+}
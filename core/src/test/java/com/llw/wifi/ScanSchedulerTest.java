@@ -0,0 +1,144 @@
+package com.llw.wifi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * 扫描调度器测试
+ */
+public class ScanSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final AtomicInteger scans = new AtomicInteger();
+
+    private ScheduledExecutorService executor;
+
+    private ScanScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        scheduler = new ScanScheduler(() -> {
+            scans.incrementAndGet();
+            return true;
+        }, now::get, executor);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.release();
+    }
+
+    private static List<WifiScanEntry> scan(int count, int level) {
+        List<WifiScanEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new WifiScanEntry("ssid" + i, "02:00:00:00:00:" + String.format("%02x", i), "[ESS]", 2412, level, 0));
+        }
+        return entries;
+    }
+
+    @Test
+    public void requestScan_respectsThrottleBudget() {
+        for (int i = 0; i < ScanScheduler.THROTTLE_MAX_SCANS; i++) {
+            assertTrue(scheduler.requestScan());
+            now.addAndGet(1000);
+        }
+        assertEquals(0, scheduler.getRemainingBudget());
+        assertFalse(scheduler.requestScan());
+        assertEquals(ScanScheduler.THROTTLE_MAX_SCANS, scans.get());
+
+        //最早的一次扫描滑出窗口后恢复一次预算
+        assertEquals(ScanScheduler.THROTTLE_WINDOW_MILLIS - 4000, scheduler.millisUntilNextSlot());
+        now.addAndGet(scheduler.millisUntilNextSlot());
+        assertEquals(1, scheduler.getRemainingBudget());
+        assertTrue(scheduler.requestScan());
+    }
+
+    @Test
+    public void onScanResults_reportsFreshness() {
+        assertEquals(ScanScheduler.Freshness.CACHED, scheduler.onScanResults(false, scan(3, -50)));
+        scheduler.requestScan();
+        assertEquals(ScanScheduler.Freshness.CACHED, scheduler.onScanResults(false, scan(3, -50)));
+        scheduler.requestScan();
+        assertEquals(ScanScheduler.Freshness.FRESH, scheduler.onScanResults(true, scan(3, -50)));
+    }
+
+    @Test
+    public void onScanResults_externalScanIsFreshAndAdaptsInterval() {
+        //其他应用发起的扫描，本应用没有请求
+        assertEquals(ScanScheduler.Freshness.FRESH, scheduler.onScanResults(true, scan(20, -50)));
+        assertEquals(ScanScheduler.Freshness.FRESH, scheduler.onScanResults(true, scan(20, -50)));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS * 2, scheduler.getInterval());
+        assertEquals(0, scans.get());
+        assertEquals(ScanScheduler.THROTTLE_MAX_SCANS, scheduler.getRemainingBudget());
+        //无关的缓存结果不影响本应用之后的新结果
+        scheduler.requestScan();
+        scheduler.onScanResults(true, scan(20, -80));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS, scheduler.getInterval());
+        assertEquals(ScanScheduler.Freshness.CACHED, scheduler.onScanResults(false, scan(20, -80)));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS, scheduler.getInterval());
+        scheduler.requestScan();
+        assertEquals(ScanScheduler.Freshness.CACHED, scheduler.onScanResults(false, scan(20, -80)));
+        assertEquals(ScanScheduler.Freshness.FRESH, scheduler.onScanResults(true, scan(20, -80)));
+    }
+
+    @Test
+    public void onScanResults_backsOffWhenOwnScanIsThrottled() {
+        scheduler.requestScan();
+        assertEquals(ScanScheduler.Freshness.CACHED, scheduler.onScanResults(false, scan(3, -50)));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS * 2, scheduler.getInterval());
+        //没有请求中的扫描时不退避
+        scheduler.onScanResults(false, scan(3, -50));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS * 2, scheduler.getInterval());
+    }
+
+    @Test
+    public void onScanResults_backsOffWhenStableAndResetsOnChange() {
+        scheduler.requestScan();
+        scheduler.onScanResults(true, scan(20, -50));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS, scheduler.getInterval());
+
+        long interval = scheduler.getInterval();
+        for (int i = 0; i < 6; i++) {
+            scheduler.requestScan();
+            scheduler.onScanResults(true, scan(20, -50));
+            assertTrue(scheduler.getInterval() >= interval);
+            interval = scheduler.getInterval();
+            now.addAndGet(ScanScheduler.THROTTLE_WINDOW_MILLIS);
+        }
+        assertEquals(ScanScheduler.MAX_INTERVAL_MILLIS, scheduler.getInterval());
+
+        scheduler.requestScan();
+        scheduler.onScanResults(true, scan(20, -80));
+        assertEquals(ScanScheduler.MIN_INTERVAL_MILLIS, scheduler.getInterval());
+    }
+
+    @Test
+    public void changeRatio_countsAddedRemovedAndLevelChanges() {
+        Map<String, Integer> previous = new HashMap<>();
+        previous.put("a", -50);
+        previous.put("b", -60);
+        previous.put("c", -70);
+        Map<String, Integer> current = new HashMap<>();
+        current.put("a", -52);
+        current.put("b", -75);
+        current.put("d", -40);
+
+        //b 变化，c 消失，d 新增，共4个接入点
+        assertEquals(0.75, ScanScheduler.changeRatio(previous, current), 1e-9);
+        assertEquals(0, ScanScheduler.changeRatio(previous, previous), 1e-9);
+    }
+}
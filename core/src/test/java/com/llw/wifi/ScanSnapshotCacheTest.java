@@ -0,0 +1,140 @@
+package com.llw.wifi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 扫描结果缓存测试
+ */
+public class ScanSnapshotCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void write_readRestoresEntriesAndSeenTimes() throws IOException {
+        File file = new File(folder.getRoot(), "cache/last_scan.bin");
+        ScanSnapshotCache cache = new ScanSnapshotCache(file, Runnable::run);
+        //时钟为开机以来的微秒数，第二个接入点5分钟前扫描到
+        long clock = 3_600_000_000L;
+        List<WifiScanEntry> entries = Arrays.asList(
+                new WifiScanEntry("办公室", "02:00:00:00:00:01", "[RSN-PSK-CCMP][ESS]", 5180, -48, clock - 1_000_000,
+                        80, 5210).withSignal(-50, 4),
+                new WifiScanEntry("guest", "02:00:00:00:00:02", "[ESS]", 2437, -81, clock - 300_000_000),
+                new WifiScanEntry("broken", "not-a-mac", "[ESS]", 2412, -60, clock));
+        ScanSnapshot snapshot = new ScanSnapshot(entries, 1_700_000_000_000L, true, clock);
+        cache.write(snapshot);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        ScanSnapshot restored = cache.read();
+        assertNotNull(restored);
+        assertEquals(snapshot.getTimeMillis(), restored.getTimeMillis());
+        assertFalse(restored.isUpdated());
+        //无法解析的BSSID不写入
+        assertEquals(2, restored.getEntries().size());
+        WifiScanEntry first = restored.getEntries().get(0);
+        assertEquals("办公室", first.getSsid());
+        assertEquals("02:00:00:00:00:01", first.getBssid());
+        assertEquals(WifiCapabilities.PSK, first.getCapabilityFlags());
+        assertEquals(5180, first.getFrequency());
+        assertEquals(80, first.getChannelWidth());
+        assertEquals(5210, first.getCenterFrequency());
+        assertEquals(-48, first.getLevel());
+        assertEquals(-50, first.getSmoothedLevel());
+        assertEquals(4, first.getSignalBucket());
+        assertEquals(snapshot.getTimeMillis() - 1000, restored.getSeenMillis(first));
+        WifiScanEntry second = restored.getEntries().get(1);
+        assertEquals(20, second.getChannelWidth());
+        assertEquals(2437, second.getCenterFrequency());
+        assertEquals(snapshot.getTimeMillis() - 300_000, restored.getSeenMillis(second));
+    }
+
+    @Test
+    public void write_replacesPreviousSnapshot() throws IOException {
+        File file = folder.newFile();
+        ScanSnapshotCache cache = new ScanSnapshotCache(file, Runnable::run);
+        cache.write(snapshot(100, 1));
+        cache.write(snapshot(3, 2));
+        ScanSnapshot restored = cache.read();
+        assertEquals(3, restored.getEntries().size());
+        assertEquals(2, restored.getTimeMillis());
+    }
+
+    @Test
+    public void read_missingOrCorruptReturnsNull() throws IOException {
+        File file = new File(folder.getRoot(), "last_scan.bin");
+        ScanSnapshotCache cache = new ScanSnapshotCache(file, Runnable::run);
+        assertNull(cache.read());
+
+        cache.write(snapshot(10, 1));
+        //截断到记录中间
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        assertNull(cache.read());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.writeInt(0x12345678);
+            raf.write(new byte[40]);
+        }
+        assertNull(cache.read());
+    }
+
+    @Test
+    public void save_writesOnlyLatestPending() throws IOException {
+        File file = folder.newFile();
+        List<Runnable> tasks = new ArrayList<>();
+        ScanSnapshotCache cache = new ScanSnapshotCache(file, tasks::add);
+        cache.save(snapshot(1, 1));
+        cache.save(snapshot(2, 2));
+        cache.save(snapshot(3, 3));
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(3, cache.read().getTimeMillis());
+
+        cache.save(snapshot(4, 4));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void save_reportsWriteFailure() {
+        //父路径是文件，无法创建目录
+        List<IOException> errors = new ArrayList<>();
+        ScanSnapshotCache cache = new ScanSnapshotCache(new File(folder.getRoot(), "file/last_scan.bin"), Runnable::run);
+        cache.setErrorListener(errors::add);
+        try {
+            assertTrue(new File(folder.getRoot(), "file").createNewFile());
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+        cache.save(snapshot(1, 1));
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void seenMillis_unknownClockUsesSnapshotTime() {
+        WifiScanEntry entry = new WifiScanEntry("a", "02:00:00:00:00:01", "[ESS]", 2412, -50, 500);
+        assertEquals(1000, new ScanSnapshot(List.of(entry), 1000, true).getSeenMillis(entry));
+        //时间戳晚于快照时钟，视为刚扫描到
+        assertEquals(1000, new ScanSnapshot(List.of(entry), 1000, true, 100).getSeenMillis(entry));
+    }
+
+    private static ScanSnapshot snapshot(int count, long timeMillis) {
+        List<WifiScanEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new WifiScanEntry("site-" + i, MacAddresses.toString(0x020000000000L + i), "[ESS]", 2412, -60, 0));
+        }
+        return new ScanSnapshot(entries, timeMillis, true);
+    }
+}
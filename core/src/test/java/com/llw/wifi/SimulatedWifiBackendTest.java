@@ -0,0 +1,241 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 模拟Wifi系统接口测试，包括高密度下扫描和连接路径的负载测试
+ */
+public class SimulatedWifiBackendTest {
+
+    private static String describe(List<WifiScanEntry> entries) {
+        StringBuilder builder = new StringBuilder();
+        for (WifiScanEntry entry : entries) {
+            builder.append(entry.getBssid()).append(' ').append(entry.getSsid()).append(' ').append(entry.getFrequency())
+                    .append(' ').append(entry.getChannelWidth()).append(' ').append(entry.getLevel()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static List<WifiScanEntry> scan(SimulatedWifiBackend backend) {
+        assertTrue(backend.startScan());
+        backend.advance(SimulatedWifiBackend.DEFAULT_SCAN_DURATION_MILLIS);
+        return backend.getScanResults();
+    }
+
+    @Test
+    public void sameSeed_producesSameWorld() {
+        SimulatedWifiBackend first = new SimulatedWifiBackend(2000, 11);
+        SimulatedWifiBackend second = new SimulatedWifiBackend(2000, 11);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(describe(scan(first)), describe(scan(second)));
+        }
+        assertNotEquals(describe(scan(first)), describe(scan(new SimulatedWifiBackend(2000, 12))));
+    }
+
+    @Test
+    public void startScan_completesAfterDurationAndCoalesces() {
+        SimulatedWifiBackend backend = new SimulatedWifiBackend(100, 1);
+        List<Boolean> notified = new ArrayList<>();
+        backend.setScanListener(notified::add);
+        assertTrue(backend.startScan());
+        assertTrue(backend.startScan());
+        backend.advance(SimulatedWifiBackend.DEFAULT_SCAN_DURATION_MILLIS - 1);
+        assertTrue(backend.getScanResults().isEmpty());
+        backend.advance(1);
+        assertEquals(Collections.singletonList(true), notified);
+        assertEquals(1, backend.getScanCount());
+        assertFalse(backend.getScanResults().isEmpty());
+        for (WifiScanEntry entry : backend.getScanResults()) {
+            assertTrue(entry.getLevel() >= SimulatedWifiBackend.VISIBLE_LEVEL);
+            assertEquals(SimulatedWifiBackend.DEFAULT_SCAN_DURATION_MILLIS * 1000, entry.getTimestamp());
+        }
+
+        backend.setWifiEnabled(false);
+        assertFalse(backend.startScan());
+        assertTrue(backend.getScanResults().isEmpty());
+    }
+
+    @Test
+    public void scans_moveSignalsAndChurnChannels() {
+        SimulatedWifiBackend backend = new SimulatedWifiBackend(1000, 3);
+        backend.setChannelChurn(0.05);
+        Map<String, WifiScanEntry> first = new HashMap<>();
+        for (WifiScanEntry entry : scan(backend)) {
+            first.put(entry.getBssid(), entry);
+        }
+        for (int i = 0; i < 9; i++) {
+            scan(backend);
+        }
+        int moved = 0;
+        int churned = 0;
+        for (WifiScanEntry entry : scan(backend)) {
+            WifiScanEntry previous = first.get(entry.getBssid());
+            if (previous == null) {
+                continue;
+            }
+            moved += previous.getLevel() != entry.getLevel() ? 1 : 0;
+            churned += previous.getFrequency() != entry.getFrequency() ? 1 : 0;
+            assertEquals(ChannelAnalyzer.centerFrequencyOf(entry.getFrequency(), entry.getChannelWidth()), entry.getCenterFrequency());
+        }
+        //10次扫描后大部分接入点信号变化，约40%更换过信道
+        assertTrue("moved " + moved, moved > first.size() / 2);
+        assertTrue("churned " + churned, churned > first.size() / 5 && churned < first.size() * 3 / 5);
+
+        SimulatedWifiBackend still = new SimulatedWifiBackend(1000, 3);
+        still.setRssiStep(0);
+        still.setChannelChurn(0);
+        assertEquals(describe(scan(still)), describe(scan(still)));
+    }
+
+    @Test
+    public void requestNetwork_followsConfiguredDistribution() {
+        SimulatedWifiBackend backend = new SimulatedWifiBackend(3000, 5);
+        backend.setRssiStep(0);
+        backend.setConnectDistribution(0.8, 1_000, 0.5);
+        List<WifiCredential> strong = new ArrayList<>();
+        for (WifiNetwork network : new NetworkAggregator().update(scan(backend))) {
+            if (network.getLevel() >= SimulatedWifiBackend.GOOD_LEVEL) {
+                strong.add(new WifiCredential(network.getSsid(), network.getSecurity(), "password"));
+            }
+        }
+        assertFalse(strong.isEmpty());
+        int attempts = 2000;
+        long[] latencies = new long[attempts];
+        int[] successes = new int[1];
+        for (int i = 0; i < attempts; i++) {
+            int index = i;
+            long start = backend.getNowMillis();
+            backend.requestNetwork(strong.get(i % strong.size()), 60_000, new Recorder() {
+                @Override
+                public void onAvailable(WifiBackend.Request request) {
+                    successes[0]++;
+                    latencies[index] = backend.getNowMillis() - start;
+                    request.release();
+                }
+            });
+            backend.advance(60_000);
+        }
+        assertEquals(0.8, successes[0] / (double) attempts, 0.03);
+        long[] succeeded = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+        //对数正态分布的中位数
+        assertEquals(1_000, succeeded[succeeded.length / 2], 100);
+        assertTrue(succeeded[succeeded.length * 95 / 100] > 2_000);
+    }
+
+    @Test
+    public void requestNetwork_unknownTimesOutAndDisableLosesConnection() {
+        SimulatedWifiBackend backend = new SimulatedWifiBackend(200, 9);
+        backend.setConnectDistribution(1, 500, 0);
+        List<WifiScanEntry> results = scan(backend);
+        Recorder missing = new Recorder();
+        backend.requestNetwork(new WifiCredential("not-here", WifiSecurity.PSK, "password"), 10_000, missing);
+        Recorder present = new Recorder();
+        WifiScanEntry strongest = ScanProcessor.process(results).get(0);
+        backend.requestNetwork(new WifiCredential(strongest.getSsid(), strongest.getSecurity(), "password"), 10_000, present);
+        backend.advance(500);
+        assertEquals("available validated ", present.events.toString());
+        assertEquals("", missing.events.toString());
+        backend.advance(9_500);
+        assertEquals("unavailable ", missing.events.toString());
+
+        backend.setWifiEnabled(false);
+        assertEquals("available validated lost ", present.events.toString());
+    }
+
+    @Test
+    public void suggestions_enforceLimit() {
+        SimulatedWifiBackend backend = new SimulatedWifiBackend(10, 1);
+        backend.setMaxSuggestions(2);
+        SuggestionBatcher.Platform platform = backend.getSuggestionPlatform();
+        WifiCredential a = new WifiCredential("a", WifiSecurity.PSK, "12345678");
+        WifiCredential b = new WifiCredential("b", WifiSecurity.PSK, "12345678");
+        WifiCredential c = new WifiCredential("c", WifiSecurity.SAE, "12345678");
+        assertEquals(SuggestionBatcher.STATUS_SUCCESS, platform.add(Arrays.asList(a, b)));
+        assertEquals(SimulatedWifiBackend.STATUS_ERROR_ADD_EXCEEDS_MAX_PER_APP, platform.add(Collections.singletonList(c)));
+        assertEquals(SimulatedWifiBackend.STATUS_ERROR_REMOVE_INVALID, platform.remove(Collections.singletonList(c)));
+        assertEquals(SuggestionBatcher.STATUS_SUCCESS, platform.remove(Collections.singletonList(a)));
+        assertEquals(Collections.singletonList(b), backend.getSuggestedNetworks());
+
+        //通过批量提交时超出上限的网络单独标记
+        backend.setMaxSuggestions(50);
+        SuggestionBatcher batcher = new SuggestionBatcher(platform);
+        batcher.restore(backend.getSuggestedNetworks());
+        List<WifiCredential> many = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            many.add(new WifiCredential("n" + i, WifiSecurity.PSK, "12345678"));
+        }
+        batcher.submit(many, true);
+        assertEquals(50, backend.getSuggestedNetworks().size());
+    }
+
+    @Test
+    public void loadTest_scanAndRoamAtHighDensity() {
+        SimulatedWifiBackend backend = new SimulatedWifiBackend(5000, 21);
+        RssiTracker tracker = new RssiTracker();
+        NetworkAggregator aggregator = new NetworkAggregator();
+        ChannelAnalyzer analyzer = new ChannelAnalyzer();
+        RoamingSelector selector = new RoamingSelector();
+        List<WifiCredential> known = new ArrayList<>();
+        int scans = 0;
+        int networks = 0;
+        for (int i = 0; i < 30; i++) {
+            List<WifiScanEntry> entries = ScanProcessor.process(scan(backend), tracker, backend.getNowMillis());
+            List<WifiNetwork> list = aggregator.update(entries);
+            analyzer.update(entries);
+            if (known.isEmpty()) {
+                //信号最强的20个网络作为已知网络，连接第一个
+                for (WifiNetwork network : list.subList(0, 20)) {
+                    known.add(new WifiCredential(network.getSsid(), network.getSecurity(), "password"));
+                }
+                selector.setKnownNetworks(known);
+                selector.onConnected(known.get(0).getSsid(), backend.getNowMillis());
+            }
+            selector.evaluate(list, backend.getNowMillis());
+            scans++;
+            networks = list.size();
+            assertEquals(entries.size(), analyzer.getAccessPointCount());
+        }
+        assertEquals(30, backend.getScanCount());
+        assertEquals(30, scans);
+        assertTrue(networks > 1000);
+    }
+
+    /**
+     * 记录回调顺序
+     */
+    private static class Recorder implements WifiBackend.RequestCallback {
+
+        final StringBuilder events = new StringBuilder();
+
+        @Override
+        public void onAvailable(WifiBackend.Request request) {
+            events.append("available ");
+        }
+
+        @Override
+        public void onCapabilitiesChanged(WifiBackend.Request request, boolean validated) {
+            if (validated) {
+                events.append("validated ");
+            }
+        }
+
+        @Override
+        public void onUnavailable(WifiBackend.Request request) {
+            events.append("unavailable ");
+        }
+
+        @Override
+        public void onLost(WifiBackend.Request request) {
+            events.append("lost ");
+        }
+    }
+}
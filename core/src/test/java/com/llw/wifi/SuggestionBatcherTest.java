@@ -0,0 +1,178 @@
+package com.llw.wifi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量提交建议网络测试
+ */
+public class SuggestionBatcherTest {
+
+    private FakePlatform platform;
+
+    private SuggestionBatcher batcher;
+
+    @Before
+    public void setUp() {
+        platform = new FakePlatform(200);
+        batcher = new SuggestionBatcher(platform, 50);
+    }
+
+    private static List<WifiCredential> site(int count, String passphrase) {
+        List<WifiCredential> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new WifiCredential("site" + i, WifiSecurity.PSK, passphrase));
+        }
+        return list;
+    }
+
+    private static int count(List<SuggestionBatcher.Result> results, SuggestionBatcher.Status status) {
+        int count = 0;
+        for (SuggestionBatcher.Result result : results) {
+            if (result.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void submit_chunksWithinLimit() {
+        List<SuggestionBatcher.Result> results = batcher.submit(site(200, "password"), false);
+        assertEquals(200, count(results, SuggestionBatcher.Status.ADDED));
+        assertEquals(4, platform.addCalls);
+        assertEquals(200, platform.suggestions.size());
+    }
+
+    @Test
+    public void submit_skipsUnchanged() {
+        batcher.submit(site(100, "password"), false);
+        platform.addCalls = 0;
+        List<WifiCredential> next = site(101, "password");
+        List<SuggestionBatcher.Result> results = batcher.submit(next, false);
+        assertEquals(100, count(results, SuggestionBatcher.Status.UNCHANGED));
+        assertEquals(SuggestionBatcher.Status.ADDED, results.get(100).getStatus());
+        //只提交新增的一个
+        assertEquals(1, platform.addCalls);
+        assertEquals(1, platform.lastAddSize);
+    }
+
+    @Test
+    public void submit_changedPassphraseIsUpdated() {
+        batcher.submit(site(3, "old"), false);
+        List<WifiCredential> next = site(3, "old");
+        next.set(1, new WifiCredential("site1", WifiSecurity.PSK, "new"));
+        List<SuggestionBatcher.Result> results = batcher.submit(next, false);
+        assertEquals(SuggestionBatcher.Status.UPDATED, results.get(1).getStatus());
+        assertEquals(1, platform.removeCalls);
+        assertTrue(platform.suggestions.contains(next.get(1)));
+        assertFalse(platform.suggestions.contains(new WifiCredential("site1", WifiSecurity.PSK, "old")));
+    }
+
+    @Test
+    public void submit_removeMissing() {
+        batcher.submit(site(5, "password"), false);
+        List<SuggestionBatcher.Result> results = batcher.submit(site(3, "password"), true);
+        assertEquals(5, results.size());
+        assertEquals(3, count(results, SuggestionBatcher.Status.UNCHANGED));
+        assertEquals(2, count(results, SuggestionBatcher.Status.REMOVED));
+        assertEquals(3, platform.suggestions.size());
+        assertEquals(3, batcher.getSuggested().size());
+    }
+
+    @Test
+    public void submit_reportsLimitDuplicatesAndUnsupported() {
+        platform = new FakePlatform(2);
+        batcher = new SuggestionBatcher(platform);
+        List<SuggestionBatcher.Result> results = batcher.submit(Arrays.asList(
+                new WifiCredential("a", WifiSecurity.PSK, "password"),
+                new WifiCredential("a", WifiSecurity.PSK, "other"),
+                new WifiCredential("corp", WifiSecurity.EAP, ""),
+                WifiCredential.open("b"),
+                WifiCredential.open("c")), false);
+        assertEquals(SuggestionBatcher.Status.ADDED, results.get(0).getStatus());
+        assertEquals(SuggestionBatcher.Status.DUPLICATE, results.get(1).getStatus());
+        assertEquals(SuggestionBatcher.Status.UNSUPPORTED, results.get(2).getStatus());
+        assertEquals(SuggestionBatcher.Status.ADDED, results.get(3).getStatus());
+        assertEquals(SuggestionBatcher.Status.EXCEEDS_LIMIT, results.get(4).getStatus());
+    }
+
+    @Test
+    public void submit_failedChunkRetriedPerEntry() {
+        platform.rejected.add("site7");
+        List<SuggestionBatcher.Result> results = batcher.submit(site(10, "password"), false);
+        assertEquals(9, count(results, SuggestionBatcher.Status.ADDED));
+        assertEquals(SuggestionBatcher.Status.FAILED, results.get(7).getStatus());
+        assertEquals(FakePlatform.ERROR, results.get(7).getCode());
+        assertEquals(9, batcher.getSuggested().size());
+    }
+
+    @Test
+    public void restore_avoidsResubmitting() {
+        batcher.restore(site(10, "password"));
+        platform.suggestions.addAll(site(10, "password"));
+        List<SuggestionBatcher.Result> results = batcher.submit(site(10, "password"), false);
+        assertEquals(10, count(results, SuggestionBatcher.Status.UNCHANGED));
+        assertEquals(0, platform.addCalls);
+    }
+
+    /**
+     * 模拟系统接口，整批中有一个被拒绝时整批失败
+     */
+    private static final class FakePlatform implements SuggestionBatcher.Platform {
+
+        static final int ERROR = 1;
+
+        final int max;
+
+        final Set<WifiCredential> suggestions = new HashSet<>();
+
+        final Set<String> rejected = new HashSet<>();
+
+        int addCalls;
+
+        int removeCalls;
+
+        int lastAddSize;
+
+        FakePlatform(int max) {
+            this.max = max;
+        }
+
+        @Override
+        public int getMaxSuggestions() {
+            return max;
+        }
+
+        @Override
+        public int add(List<WifiCredential> credentials) {
+            addCalls++;
+            lastAddSize = credentials.size();
+            for (WifiCredential credential : credentials) {
+                if (rejected.contains(credential.getSsid())) {
+                    return ERROR;
+                }
+            }
+            if (suggestions.size() + credentials.size() > max) {
+                return ERROR;
+            }
+            suggestions.addAll(credentials);
+            return SuggestionBatcher.STATUS_SUCCESS;
+        }
+
+        @Override
+        public int remove(List<WifiCredential> credentials) {
+            removeCalls++;
+            suggestions.removeAll(credentials);
+            return SuggestionBatcher.STATUS_SUCCESS;
+        }
+    }
+}
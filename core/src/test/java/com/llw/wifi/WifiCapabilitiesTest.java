@@ -0,0 +1,71 @@
+package com.llw.wifi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 加密能力解析测试
+ */
+public class WifiCapabilitiesTest {
+
+    @Test
+    public void parse_recognizesKeyManagement() {
+        assertEquals(WifiCapabilities.PSK, WifiCapabilities.parse("[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]"));
+        assertEquals(WifiCapabilities.WEP, WifiCapabilities.parse("[WEP][ESS]"));
+        assertEquals(WifiCapabilities.EAP, WifiCapabilities.parse("[WPA2-EAP/SHA1-CCMP][RSN-EAP/SHA1-CCMP][ESS]"));
+        assertEquals(WifiCapabilities.SAE, WifiCapabilities.parse("[RSN-SAE-CCMP][ESS][MFPR][MFPC]"));
+        assertEquals(WifiCapabilities.OWE, WifiCapabilities.parse("[RSN-OWE-CCMP][ESS][MFPR][MFPC]"));
+        assertEquals(WifiCapabilities.WPS, WifiCapabilities.parse("[WPS][ESS]"));
+        assertEquals(0, WifiCapabilities.parse("[ESS]"));
+        assertEquals(0, WifiCapabilities.parse(""));
+        assertEquals(0, WifiCapabilities.parse(null));
+    }
+
+    @Test
+    public void parse_recognizesTransitionModes() {
+        int flags = WifiCapabilities.parse("[RSN-PSK+SAE-CCMP][ESS][MFPC]");
+        assertTrue(WifiCapabilities.has(flags, WifiCapabilities.PSK));
+        assertTrue(WifiCapabilities.has(flags, WifiCapabilities.SAE));
+        assertTrue(WifiCapabilities.has(flags, WifiCapabilities.PSK_SAE_TRANSITION));
+
+        flags = WifiCapabilities.parse("[RSN-OWE_TRANSITION-CCMP][ESS]");
+        assertEquals(WifiCapabilities.OWE_TRANSITION, flags);
+
+        flags = WifiCapabilities.parse("[RSN-EAP_SUITE_B_192-GCMP-256][ESS]");
+        assertEquals(WifiCapabilities.EAP | WifiCapabilities.EAP_SUITE_B, flags);
+    }
+
+    @Test
+    public void parse_treatsFastTransitionLikeBaseMethod() {
+        assertEquals(WifiCapabilities.PSK, WifiCapabilities.parse("[WPA2-FT/PSK-CCMP][ESS]"));
+        assertTrue(WifiCapabilities.has(WifiCapabilities.parse("[RSN-FT/SAE-CCMP][ESS]"), WifiCapabilities.SAE));
+    }
+
+    @Test
+    public void parse_doesNotConfuseSimilarTokens() {
+        //WPA2、ESS、PSK-SHA256 等不是认证方式
+        assertEquals(0, WifiCapabilities.parse("[WPA2][ESS][SHA256]"));
+        assertEquals(WifiCapabilities.PSK, WifiCapabilities.parse("[RSN-PSK-SHA256-CCMP][ESS]"));
+        assertEquals(WifiCapabilities.WPS | WifiCapabilities.PSK, WifiCapabilities.parse("[WPA2-PSK-CCMP][WPS][ESS]"));
+    }
+
+    @Test
+    public void parse_cachedResultMatchesTokenize() {
+        String capabilities = "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][ESS]";
+        assertEquals(WifiCapabilities.tokenize(capabilities), WifiCapabilities.parse(capabilities));
+        assertEquals(WifiCapabilities.tokenize(capabilities), WifiCapabilities.parse(new String(capabilities)));
+    }
+
+    @Test
+    public void security_ofFlags() {
+        assertEquals(WifiSecurity.PSK, WifiSecurity.of("[RSN-PSK+SAE-CCMP][ESS]"));
+        assertEquals(WifiSecurity.SAE, WifiSecurity.of("[RSN-SAE-CCMP][ESS]"));
+        assertEquals(WifiSecurity.EAP, WifiSecurity.of("[RSN-EAP/SHA256-CCMP][ESS]"));
+        assertEquals(WifiSecurity.WEP, WifiSecurity.of("[WEP]"));
+        assertEquals(WifiSecurity.OWE, WifiSecurity.of("[RSN-OWE-CCMP][ESS]"));
+        assertEquals(WifiSecurity.OPEN, WifiSecurity.of("[WPS][ESS]"));
+        assertFalse(WifiSecurity.OWE.isSecured());
+        assertTrue(WifiSecurity.SAE.isSecured());
+    }
+}
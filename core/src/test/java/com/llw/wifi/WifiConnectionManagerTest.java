@@ -0,0 +1,228 @@
+package com.llw.wifi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Wifi连接管理测试，系统接口只记录请求，由测试触发回调
+ */
+public class WifiConnectionManagerTest {
+
+    private final FakeBackend backend = new FakeBackend();
+
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    private final List<String> states = new ArrayList<>();
+
+    private WifiConnectionManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new WifiConnectionManager(backend, metrics);
+        manager.setStateListener((ssid, state, request) -> states.add(ssid + ":" + state + (request == null ? "" : "@" + backend.requests.indexOf(request))));
+    }
+
+    private static WifiCredential credential(String ssid, String password) {
+        return new WifiCredential(ssid, WifiSecurity.PSK, password);
+    }
+
+    private ConnectionMetrics.Attempt begin(String ssid) {
+        return metrics.begin(ConnectionMetrics.Path.SPECIFIER, ssid);
+    }
+
+    @Test
+    public void connect_reusesSameCredential() {
+        assertTrue(manager.connect(credential("office", "secret"), begin("office")));
+        assertFalse(manager.connect(credential("office", "secret"), begin("office")));
+        assertEquals(1, backend.requests.size());
+        assertFalse(backend.requests.get(0).released);
+        assertEquals(Collections.singletonList("office:CONNECTING"), states);
+    }
+
+    @Test
+    public void connect_supersedesWhenPasswordDiffers() {
+        manager.connect(credential("office", "wrong"), begin("office"));
+        assertTrue(manager.connect(credential("office", "right"), begin("office")));
+        assertEquals(2, backend.requests.size());
+        assertTrue(backend.requests.get(0).released);
+        assertEquals(credential("office", "right"), manager.getCredential());
+        //被替代的请求不再更新状态
+        backend.requests.get(0).callback.onUnavailable(backend.requests.get(0));
+        assertEquals(ConnectionState.CONNECTING, manager.getState());
+        backend.requests.get(1).available();
+        assertEquals(ConnectionState.CONNECTED, manager.getState());
+        assertSame(backend.requests.get(1), manager.getConnectedRequest());
+        assertEquals(1, metrics.getSuccessCount(ConnectionMetrics.Path.SPECIFIER));
+    }
+
+    @Test
+    public void connect_cancelsSupersededAttempt() {
+        List<String> finished = new ArrayList<>();
+        metrics.addListener(new ConnectionMetrics.Listener() {
+            @Override
+            public void onPhase(ConnectionMetrics.Attempt attempt, ConnectionMetrics.Phase phase, long micros) {
+
+            }
+
+            @Override
+            public void onFinished(ConnectionMetrics.Attempt attempt, boolean success) {
+                finished.add(attempt.getSsid() + ":" + success + (attempt.isCancelled() ? ":cancelled" : ""));
+            }
+        });
+        manager.connect(credential("office", "secret"), begin("office"));
+        manager.connect(credential("lab", "secret"), begin("lab"));
+        //还在连接的请求被替代时记为取消，并通知断开
+        assertEquals("[office:CONNECTING, office:IDLE, lab:CONNECTING]", states.toString());
+        assertEquals("[office:false:cancelled]", finished.toString());
+        assertEquals(1, metrics.getFailureCount(ConnectionMetrics.Path.SPECIFIER));
+        backend.requests.get(1).available();
+        manager.connect(credential("home", "secret"), begin("home"));
+        //已连接的请求被替代时带上断开的网络
+        assertTrue(states.contains("lab:IDLE@1"));
+        assertTrue(backend.requests.get(1).released);
+        assertEquals("[office:false:cancelled, lab:true]", finished.toString());
+        assertEquals(ConnectionState.CONNECTING, manager.getState());
+    }
+
+    @Test
+    public void disconnect_notifiesConnectedRequest() {
+        manager.connect(credential("office", "secret"), begin("office"));
+        backend.requests.get(0).available();
+        manager.disconnect();
+        assertEquals("[office:CONNECTING, office:CONNECTED@0, office:IDLE@0]", states.toString());
+        assertTrue(backend.requests.get(0).released);
+        assertEquals(ConnectionState.IDLE, manager.getState());
+        assertNull(manager.getConnectedRequest());
+        //断开还在连接的请求时计为取消
+        manager.connect(credential("lab", "secret"), begin("lab"));
+        manager.disconnect();
+        assertEquals(1, metrics.getFailureCount(ConnectionMetrics.Path.SPECIFIER));
+        manager.disconnect();
+        assertEquals(5, states.size());
+    }
+
+    @Test
+    public void connectionPool_closedWhenAttemptEnds() throws IOException {
+        assertNull(manager.getConnectionPool());
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            manager.connect(credential("office", "secret"), begin("office"));
+            assertNull(manager.getConnectionPool());
+            backend.requests.get(0).available();
+            ConnectionPool pool = manager.getConnectionPool();
+            assertSame(pool, manager.getConnectionPool());
+            ConnectionPool.Connection connection = pool.acquire(server.getInetAddress().getHostAddress(), server.getLocalPort(), 5000);
+            connection.release();
+            assertEquals(1, pool.getIdleCount());
+            //切换到其他网络时关闭，不会收到 onLost
+            manager.connect(credential("lab", "secret"), begin("lab"));
+            assertTrue(pool.isClosed());
+            assertTrue(connection.getSocket().isClosed());
+            assertNull(manager.getConnectionPool());
+
+            backend.requests.get(1).available();
+            pool = manager.getConnectionPool();
+            manager.disconnect();
+            assertTrue(pool.isClosed());
+
+            manager.connect(credential("home", "secret"), begin("home"));
+            FakeRequest request = backend.requests.get(2);
+            request.available();
+            pool = manager.getConnectionPool();
+            request.callback.onLost(request);
+            assertTrue(pool.isClosed());
+            assertNull(manager.getConnectionPool());
+        }
+    }
+
+    @Test
+    public void connect_failsWhenBackendRejects() {
+        backend.reject = true;
+        assertTrue(manager.connect(credential("office", "secret"), begin("office")));
+        assertEquals(ConnectionState.FAILED, manager.getState());
+        assertNull(manager.getCredential());
+        assertEquals(1, metrics.getFailureCount(ConnectionMetrics.Path.SPECIFIER));
+    }
+
+    /**
+     * 只记录请求的系统接口
+     */
+    static final class FakeBackend implements WifiBackend {
+
+        final List<FakeRequest> requests = new ArrayList<>();
+
+        boolean reject;
+
+        @Override
+        public boolean isWifiEnabled() {
+            return true;
+        }
+
+        @Override
+        public void setScanListener(ScanListener listener) {
+        }
+
+        @Override
+        public boolean startScan() {
+            return true;
+        }
+
+        @Override
+        public List<WifiScanEntry> getScanResults() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getConfiguredNetworks() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Request requestNetwork(WifiCredential credential, long timeoutMillis, RequestCallback callback) {
+            if (reject) {
+                throw new IllegalStateException("too many requests");
+            }
+            FakeRequest request = new FakeRequest(callback);
+            requests.add(request);
+            return request;
+        }
+
+        @Override
+        public SuggestionBatcher.Platform getSuggestionPlatform() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<WifiCredential> getSuggestedNetworks() {
+            return Collections.emptyList();
+        }
+    }
+
+    static final class FakeRequest implements WifiBackend.Request {
+
+        final WifiBackend.RequestCallback callback;
+
+        boolean released;
+
+        FakeRequest(WifiBackend.RequestCallback callback) {
+            this.callback = callback;
+        }
+
+        void available() {
+            callback.onAvailable(this);
+        }
+
+        @Override
+        public void release() {
+            released = true;
+        }
+    }
+}
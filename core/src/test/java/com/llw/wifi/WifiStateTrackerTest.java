@@ -0,0 +1,126 @@
+package com.llw.wifi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Wifi开关状态跟踪测试
+ */
+public class WifiStateTrackerTest {
+
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private final List<String> changes = Collections.synchronizedList(new ArrayList<>());
+
+    private WifiStateTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new WifiStateTracker(DEBOUNCE_MILLIS, Executors.newSingleThreadScheduledExecutor());
+        tracker.addListener((previous, current) -> changes.add(previous + "->" + current));
+    }
+
+    @After
+    public void tearDown() {
+        tracker.release();
+    }
+
+    private void awaitState(WifiStateTracker.State expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tracker.getState() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, tracker.getState());
+    }
+
+    @Test
+    public void of_mapsWifiManagerValues() {
+        assertEquals(WifiStateTracker.State.DISABLING, WifiStateTracker.State.of(0));
+        assertEquals(WifiStateTracker.State.ENABLED, WifiStateTracker.State.of(3));
+        assertEquals(WifiStateTracker.State.UNKNOWN, WifiStateTracker.State.of(4));
+        assertEquals(WifiStateTracker.State.UNKNOWN, WifiStateTracker.State.of(42));
+        assertEquals(3, WifiStateTracker.State.ENABLED.getValue());
+    }
+
+    @Test
+    public void report_firstStateIsImmediate() {
+        assertEquals(WifiStateTracker.State.UNKNOWN, tracker.getState());
+        tracker.report(WifiStateTracker.State.ENABLED);
+        assertTrue(tracker.isEnabled());
+        assertEquals(Collections.singletonList("UNKNOWN->ENABLED"), changes);
+    }
+
+    @Test
+    public void report_debouncesTransitions() throws InterruptedException {
+        tracker.report(WifiStateTracker.State.DISABLED);
+        tracker.report(WifiStateTracker.State.ENABLING);
+        //生效前仍是原来的状态
+        assertEquals(WifiStateTracker.State.DISABLED, tracker.getState());
+        tracker.report(WifiStateTracker.State.ENABLED);
+        awaitState(WifiStateTracker.State.ENABLED);
+        Thread.sleep(DEBOUNCE_MILLIS * 2);
+        assertEquals("[UNKNOWN->DISABLED, DISABLED->ENABLED]", changes.toString());
+    }
+
+    @Test
+    public void report_ignoresTransientFlip() throws InterruptedException {
+        tracker.report(WifiStateTracker.State.ENABLED);
+        tracker.report(WifiStateTracker.State.DISABLING);
+        tracker.report(WifiStateTracker.State.ENABLED);
+        tracker.reportNetworkAvailable();
+        Thread.sleep(DEBOUNCE_MILLIS * 3);
+        assertEquals(WifiStateTracker.State.ENABLED, tracker.getState());
+        assertEquals(Collections.singletonList("UNKNOWN->ENABLED"), changes);
+    }
+
+    @Test
+    public void runWhenEnabled_queuesUntilEnabled() throws InterruptedException {
+        tracker.report(WifiStateTracker.State.DISABLED);
+        AtomicInteger scans = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(1);
+        Runnable scan = () -> {
+            scans.incrementAndGet();
+            ran.countDown();
+        };
+        Runnable cancelled = () -> fail("cancelled task ran");
+        assertFalse(tracker.runWhenEnabled(scan));
+        //同一个任务只排队一次
+        assertFalse(tracker.runWhenEnabled(scan));
+        assertFalse(tracker.runWhenEnabled(cancelled));
+        tracker.cancel(cancelled);
+        assertEquals(1, tracker.getPendingCount());
+        tracker.report(WifiStateTracker.State.ENABLING);
+        tracker.report(WifiStateTracker.State.ENABLED);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(1, scans.get());
+        assertEquals(0, tracker.getPendingCount());
+        //已打开时立即执行
+        assertTrue(tracker.runWhenEnabled(scan));
+        assertEquals(2, scans.get());
+    }
+
+    @Test
+    public void runWhenEnabled_keepsQueueWhileDisabled() throws InterruptedException {
+        tracker.report(WifiStateTracker.State.ENABLED);
+        tracker.report(WifiStateTracker.State.DISABLED);
+        awaitState(WifiStateTracker.State.DISABLED);
+        AtomicInteger scans = new AtomicInteger();
+        tracker.runWhenEnabled(scans::incrementAndGet);
+        tracker.report(WifiStateTracker.State.ENABLING);
+        Thread.sleep(DEBOUNCE_MILLIS * 3);
+        assertEquals(WifiStateTracker.State.ENABLING, tracker.getState());
+        assertEquals(0, scans.get());
+        assertEquals(1, tracker.getPendingCount());
+    }
+}
@@ -0,0 +1,46 @@
+package com.llw.wifi.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * 生成基准配置文件
+ * <p>
+ * 需要在已 root 的设备或 userdebug 模拟器上运行，执行启动和显示列表的过程，
+ * 生成的配置文件路径输出在测试日志中，复制到 app/src/main/baseline-prof.txt。
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    private static final String PACKAGE_NAME = "com.llw.wifi";
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void startup() {
+        baselineProfileRule.collectBaselineProfile(
+                PACKAGE_NAME,
+                Collections.emptyList(),
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    UiDevice device = scope.getDevice();
+                    //等待上一次的扫描结果或占位提示显示
+                    device.wait(Until.hasObject(By.res(PACKAGE_NAME, "rv_wifi")), 5_000);
+                    device.waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+}
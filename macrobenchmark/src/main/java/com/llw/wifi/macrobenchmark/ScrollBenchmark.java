@@ -0,0 +1,85 @@
+package com.llw.wifi.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * 列表滑动卡顿测试
+ * <p>
+ * 使用 benchmark 构建的模拟扫描结果填充列表，首次显示后连续滑动，记录帧耗时。
+ * 在修改前后的提交上分别运行，对比 frameDurationCpuMs 和 frameOverrunMs 的分布。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+
+    private static final String PACKAGE_NAME = "com.llw.wifi";
+
+    /**
+     * 与 MainActivity.EXTRA_SYNTHETIC_NETWORKS 相同
+     */
+    private static final String EXTRA_SYNTHETIC_NETWORKS = "synthetic_networks";
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scroll150() {
+        scroll(150);
+    }
+
+    @Test
+    public void scroll1000() {
+        scroll(1000);
+    }
+
+    private void scroll(int networks) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    Intent intent = new Intent(Intent.ACTION_MAIN);
+                    intent.setPackage(PACKAGE_NAME);
+                    intent.addCategory(Intent.CATEGORY_LAUNCHER);
+                    intent.putExtra(EXTRA_SYNTHETIC_NETWORKS, networks);
+                    scope.startActivityAndWait(intent);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    //等待第一批列表项显示
+                    device.wait(Until.hasObject(By.res(PACKAGE_NAME, "tv_wifi_name")), 5_000);
+                    UiObject2 list = device.findObject(By.res(PACKAGE_NAME, "rv_wifi"));
+                    //避免从屏幕边缘开始滑动触发系统手势
+                    list.setGestureMargin(device.getDisplayWidth() / 5);
+                    for (int i = 0; i < 3; i++) {
+                        list.fling(Direction.DOWN);
+                    }
+                    list.fling(Direction.UP);
+                    device.waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+}
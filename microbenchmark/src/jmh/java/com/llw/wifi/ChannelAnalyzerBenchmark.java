@@ -0,0 +1,77 @@
+package com.llw.wifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 信道分析基准测试
+ * <p>
+ * 预先录制一段连续扫描（每次约10%的接入点信号变化），依次分析每次扫描，
+ * 对比增量更新和每次重新计算整张表的耗时。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelAnalyzerBenchmark {
+
+    private static final int SCANS = 32;
+
+    @Param({"50", "150", "1000"})
+    public int networks;
+
+    private final List<List<WifiScanEntry>> trace = new ArrayList<>(SCANS);
+
+    private ChannelAnalyzer analyzer;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        SyntheticScanSource source = new SyntheticScanSource(networks, 42);
+        for (int i = 0; i < SCANS; i++) {
+            trace.add(ScanProcessor.process(source.getScanResults()));
+        }
+        analyzer = new ChannelAnalyzer();
+        analyzer.update(trace.get(0));
+    }
+
+    private List<WifiScanEntry> nextScan() {
+        next = (next + 1) % SCANS;
+        return trace.get(next);
+    }
+
+    /**
+     * 增量更新，并推荐各频段的信道
+     */
+    @Benchmark
+    public int updateIncremental() {
+        analyzer.update(nextScan());
+        return analyzer.getBestChannel(WifiBand.BAND_2_4_GHZ, 20) + analyzer.getBestChannel(WifiBand.BAND_5_GHZ, 80);
+    }
+
+    /**
+     * 每次扫描重新计算
+     */
+    @Benchmark
+    public int updateFromScratch() {
+        ChannelAnalyzer fresh = new ChannelAnalyzer();
+        fresh.update(nextScan());
+        return fresh.getBestChannel(WifiBand.BAND_2_4_GHZ, 20) + fresh.getBestChannel(WifiBand.BAND_5_GHZ, 80);
+    }
+}
@@ -0,0 +1,96 @@
+package com.llw.wifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网络聚合基准测试
+ * <p>
+ * 对比逐个接入点排序、每次重建聚合和增量聚合的耗时。两次扫描之间约10%的接入点信号强度发生变化。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkAggregatorBenchmark {
+
+    @Param({"150", "1000", "10000"})
+    public int accessPoints;
+
+    /**
+     * 每个网络平均包含的接入点数量
+     */
+    @Param({"12"})
+    public int accessPointsPerNetwork;
+
+    private List<WifiScanEntry> scanA;
+
+    private List<WifiScanEntry> scanB;
+
+    private NetworkAggregator aggregator;
+
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        int networks = Math.max(1, accessPoints / accessPointsPerNetwork);
+        scanA = new ArrayList<>(accessPoints);
+        scanB = new ArrayList<>(accessPoints);
+        for (int i = 0; i < accessPoints; i++) {
+            String ssid = "site-" + random.nextInt(networks);
+            String bssid = String.format("02:00:00:%02x:%02x:%02x", i >> 16 & 0xff, i >> 8 & 0xff, i & 0xff);
+            String capabilities = random.nextInt(5) == 0 ? "[ESS]" : "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]";
+            int frequency = random.nextBoolean() ? 2412 + 5 * random.nextInt(13) : 5180 + 20 * random.nextInt(8);
+            int level = -30 - random.nextInt(65);
+            scanA.add(new WifiScanEntry(ssid, bssid, capabilities, frequency, level, 0));
+            int nextLevel = random.nextInt(10) == 0 ? level - 1 - random.nextInt(5) : level;
+            scanB.add(new WifiScanEntry(ssid, bssid, capabilities, frequency, nextLevel, 1));
+        }
+        aggregator = new NetworkAggregator();
+        aggregator.update(scanA);
+    }
+
+    /**
+     * 当前做法：每个接入点一行，全部排序
+     */
+    @Benchmark
+    public List<WifiScanEntry> perAccessPoint() {
+        flip = !flip;
+        return ScanProcessor.process(flip ? scanB : scanA);
+    }
+
+    /**
+     * 每次扫描重新聚合
+     */
+    @Benchmark
+    public List<WifiNetwork> aggregateFromScratch() {
+        flip = !flip;
+        return new NetworkAggregator().update(flip ? scanB : scanA);
+    }
+
+    /**
+     * 增量聚合，只重建发生变化的网络
+     */
+    @Benchmark
+    public List<WifiNetwork> aggregateIncremental() {
+        flip = !flip;
+        return aggregator.update(flip ? scanB : scanA);
+    }
+}
@@ -0,0 +1,108 @@
+package com.llw.wifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网络过滤基准测试
+ * <p>
+ * 模拟逐字输入 "site-12" 时每次按键的过滤耗时，对比逐个比较名称和使用后缀索引；
+ * 另外测量新的扫描结果到达时更新索引的耗时，两次扫描之间约5%的网络发生替换。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkFilterBenchmark {
+
+    private static final String QUERY = "site-12";
+
+    @Param({"150", "1000", "10000"})
+    public int networks;
+
+    private List<WifiNetwork> listA;
+
+    private List<WifiNetwork> listB;
+
+    private NetworkFilterEngine engine;
+
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<WifiScanEntry> scanA = new ArrayList<>(networks);
+        List<WifiScanEntry> scanB = new ArrayList<>(networks);
+        for (int i = 0; i < networks; i++) {
+            String bssid = String.format("02:00:00:%02x:%02x:%02x", i >> 16 & 0xff, i >> 8 & 0xff, i & 0xff);
+            String capabilities = random.nextInt(5) == 0 ? "[ESS]" : "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]";
+            int level = -30 - random.nextInt(65);
+            scanA.add(new WifiScanEntry("Site-" + i, bssid, capabilities, 2412, level, 0));
+            String ssid = random.nextInt(20) == 0 ? "Guest-" + i : "Site-" + i;
+            scanB.add(new WifiScanEntry(ssid, bssid, capabilities, 2412, level, 1));
+        }
+        listA = new NetworkAggregator().update(scanA);
+        listB = new NetworkAggregator().update(scanB);
+        engine = new NetworkFilterEngine();
+        engine.setNetworks(listA);
+    }
+
+    /**
+     * 每次按键逐个比较所有名称
+     */
+    @Benchmark
+    public int typeLinear() {
+        int total = 0;
+        for (int length = 1; length <= QUERY.length(); length++) {
+            NetworkFilter filter = NetworkFilter.ALL.withText(QUERY.substring(0, length), false);
+            for (WifiNetwork network : listA) {
+                if (filter.matches(network)) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 每次按键在后缀索引中查找
+     */
+    @Benchmark
+    public int typeIndexed() {
+        int total = 0;
+        for (int length = 1; length <= QUERY.length(); length++) {
+            engine.setFilter(NetworkFilter.ALL.withText(QUERY.substring(0, length), false));
+            total += engine.getResults().size();
+        }
+        //回到空关键字，下一次调用重新开始输入
+        engine.setFilter(NetworkFilter.ALL);
+        return total;
+    }
+
+    /**
+     * 新的扫描结果到达，保持关键字不变
+     */
+    @Benchmark
+    public int rescanIndexed() {
+        flip = !flip;
+        engine.setFilter(NetworkFilter.ALL.withText(QUERY, false));
+        engine.setNetworks(flip ? listB : listA);
+        return engine.getResults().size();
+    }
+}
@@ -0,0 +1,120 @@
+package com.llw.wifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次扫描的处理基准测试
+ * <p>
+ * 对比原来的扫描广播中过滤隐藏网络、用减法比较器按信号排序，以及列表绑定时逐项计算信号图标等级，
+ * 与现在的 {@link ScanProcessor#process} 和构造时预先计算的等级。扫描结果中约5%为隐藏网络。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanHandlingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int accessPoints;
+
+    private List<WifiScanEntry> scan;//系统返回的扫描结果，顺序与信号无关
+
+    private List<WifiScanEntry> bound;//已排序的列表，模拟绑定时的数据
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        scan = new ArrayList<>(accessPoints);
+        for (int i = 0; i < accessPoints; i++) {
+            String ssid = random.nextInt(20) == 0 ? "" : "Site-" + random.nextInt(Math.max(1, accessPoints / 2));
+            scan.add(new WifiScanEntry(ssid, MacAddresses.toString(0x020000000000L + i), "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+                    2412 + 5 * random.nextInt(13), -30 - random.nextInt(75), 0));
+        }
+        bound = ScanProcessor.process(scan);
+    }
+
+    /**
+     * 原来的做法：MainActivity.wifiScanReceiver 中的过滤循环和 sortByLevel
+     */
+    @Benchmark
+    public List<WifiScanEntry> filterAndSortLegacy() {
+        List<WifiScanEntry> wifiList = new ArrayList<>();
+        for (WifiScanEntry entry : scan) {
+            if (!entry.getSsid().isEmpty()) {
+                wifiList.add(entry);
+            }
+        }
+        Collections.sort(wifiList, (lhs, rhs) -> rhs.getLevel() - lhs.getLevel());
+        return wifiList;
+    }
+
+    /**
+     * 现在的做法：过滤、按BSSID去重并用 Integer.compare 排序，结果不可修改
+     */
+    @Benchmark
+    public List<WifiScanEntry> filterAndSortProcessor() {
+        return ScanProcessor.process(scan);
+    }
+
+    /**
+     * 原来的做法：WifiAdapter.onBindViewHolder 中带上下界的判断链
+     */
+    @Benchmark
+    public void bucketLegacy(Blackhole blackhole) {
+        for (WifiScanEntry entry : bound) {
+            int imgLevel;
+            int level = entry.getLevel();
+            if (level <= 0 && level >= -50) {
+                imgLevel = 5;
+            } else if (level < -50 && level >= -70) {
+                imgLevel = 4;
+            } else if (level < -70 && level >= -80) {
+                imgLevel = 3;
+            } else if (level < -80 && level >= -100) {
+                imgLevel = 2;
+            } else {
+                imgLevel = 1;
+            }
+            blackhole.consume(imgLevel);
+        }
+    }
+
+    /**
+     * 只保留下界的判断链，每次绑定时计算
+     */
+    @Benchmark
+    public void bucketOf(Blackhole blackhole) {
+        for (WifiScanEntry entry : bound) {
+            blackhole.consume(RssiTracker.bucketOf(entry.getLevel()));
+        }
+    }
+
+    /**
+     * 现在的做法：构造快照时已经计算，绑定时直接读取
+     */
+    @Benchmark
+    public void bucketPrecomputed(Blackhole blackhole) {
+        for (WifiScanEntry entry : bound) {
+            blackhole.consume(entry.getSignalBucket());
+        }
+    }
+}
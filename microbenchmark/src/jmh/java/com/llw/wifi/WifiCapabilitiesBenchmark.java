@@ -0,0 +1,100 @@
+package com.llw.wifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加密能力解析基准测试
+ * <p>
+ * 对比原来的 String.contains 判断链与按描述缓存的位标志解析，每次操作处理一批扫描结果。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WifiCapabilitiesBenchmark {
+
+    private static final String[] CAPABILITIES = {
+            "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]",
+            "[WPA-PSK-TKIP+CCMP][WPA2-PSK-TKIP+CCMP][ESS][WPS]",
+            "[RSN-PSK+SAE-CCMP][ESS][MFPC]",
+            "[RSN-SAE-CCMP][ESS][MFPR][MFPC]",
+            "[WPA2-EAP/SHA1-CCMP][RSN-EAP/SHA1-CCMP][ESS]",
+            "[RSN-OWE-CCMP][ESS][MFPR][MFPC]",
+            "[WEP][ESS]",
+            "[ESS]",
+    };
+
+    @Param({"10", "150", "1000", "10000"})
+    public int accessPoints;
+
+    private String[] scan;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        scan = new String[accessPoints];
+        for (int i = 0; i < accessPoints; i++) {
+            //扫描结果中的描述是各自独立的字符串对象
+            scan[i] = new String(CAPABILITIES[random.nextInt(CAPABILITIES.length)]);
+        }
+    }
+
+    /**
+     * 原来的做法：WifiAdapter.onBindViewHolder 与 EasyWifi.getCipherType 中的判断链
+     */
+    @Benchmark
+    public void containsChain(Blackhole blackhole) {
+        for (String capabilities : scan) {
+            boolean secured = capabilities.contains("WEP") || capabilities.contains("PSK") || capabilities.contains("EAP");
+            int cipher;
+            if (capabilities.contains("WEB")) {
+                cipher = 0;
+            } else if (capabilities.contains("PSK")) {
+                cipher = 1;
+            } else if (capabilities.contains("WPS")) {
+                cipher = 2;
+            } else {
+                cipher = 2;
+            }
+            blackhole.consume(secured);
+            blackhole.consume(cipher);
+        }
+    }
+
+    /**
+     * 不使用缓存，逐个解析
+     */
+    @Benchmark
+    public void tokenize(Blackhole blackhole) {
+        for (String capabilities : scan) {
+            blackhole.consume(WifiCapabilities.tokenize(capabilities));
+        }
+    }
+
+    /**
+     * 按描述缓存解析结果
+     */
+    @Benchmark
+    public void parseCached(Blackhole blackhole) {
+        for (String capabilities : scan) {
+            int flags = WifiCapabilities.parse(capabilities);
+            blackhole.consume(WifiSecurity.of(flags).isSecured());
+        }
+    }
+}